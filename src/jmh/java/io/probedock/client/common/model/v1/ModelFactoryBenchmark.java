@@ -0,0 +1,85 @@
+package io.probedock.client.common.model.v1;
+
+import io.probedock.client.common.config.Configuration;
+import io.probedock.client.common.utils.MetaDataBuilder;
+import io.probedock.client.common.utils.TestDescriptor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the creation of the test results done by {@link ModelFactory} for each test.
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ModelFactoryBenchmark {
+	private Configuration configuration;
+
+	private Set<String> contributors;
+
+	private Set<String> tags;
+
+	private Set<String> tickets;
+
+	private Map<String, String> data;
+
+	private String longMessage;
+
+	@Setup
+	public void setUp() {
+		configuration = new Configuration() {
+			{
+				config.setProperty("probedock.project.baseTestPath", "src/test/java");
+			}
+		};
+
+		contributors = new HashSet<>(Arrays.asList("someone@probedock.io"));
+		tags = new HashSet<>(Arrays.asList("benchmark", "model"));
+		tickets = new HashSet<>(Arrays.asList("PD-1"));
+		data = new MetaDataBuilder().add("custom", "value").toMetaData();
+
+		StringBuilder sb = new StringBuilder("java.lang.AssertionError: ünïcödé – 測試\n");
+		while (sb.length() < 200000) {
+			sb.append("\tat io.probedock.client.common.model.v1.ModelFactoryBenchmark.method(ModelFactoryBenchmark.java:42)\n");
+		}
+		longMessage = sb.toString();
+	}
+
+	@Benchmark
+	public TestResult createTestResult() {
+		return ModelFactory.createTestResult(
+			"key", "fingerprint", "Model factory: create test result", "Unit", 10L, null, true, true, contributors, tags, tickets, data
+		);
+	}
+
+	@Benchmark
+	public TestResult createFailedTestResultWithLongMessage() {
+		return ModelFactory.createTestResult(
+			"key", "fingerprint", "Model factory: create failed test result", "Unit", 10L, longMessage, false, true, contributors, tags, tickets, data
+		);
+	}
+
+	@Benchmark
+	public TestResult createTestResultFromDescriptor() {
+		return ModelFactory.createTestResult(
+			configuration, TestDescriptor.of(ModelFactoryBenchmark.class, "createTestResultFromDescriptor"), "Unit", 10L, null, true, data
+		);
+	}
+
+	@Benchmark
+	public TestResult createAndEnrichTestResult() {
+		TestResult testResult = createTestResult();
+		ModelFactory.enrichTestResult(configuration, testResult, "io.probedock.client.common.model.v1", "ModelFactoryBenchmark", "createAndEnrichTestResult", 42);
+		return testResult;
+	}
+}
@@ -0,0 +1,53 @@
+package io.probedock.client.common.utils;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the fingerprint computed for each test by {@link FingerprintGenerator}. The thread local digest
+ * is compared to a digest created for each fingerprint. Run it with {@code -Djmh.options="-prof gc"} to see the
+ * memory allocated by each call.
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class FingerprintGeneratorBenchmark {
+	private static final String FINGERPRINTED = "io.probedock.client.common.utils.FingerprintGeneratorBenchmark.fingerprintFromString";
+
+	private Method method;
+
+	@Setup
+	public void setUp() throws NoSuchMethodException {
+		method = FingerprintGeneratorBenchmark.class.getMethod("fingerprintFromClassAndMethod");
+	}
+
+	@Benchmark
+	public String fingerprintFromString() {
+		return FingerprintGenerator.fingerprint(FINGERPRINTED);
+	}
+
+	@Benchmark
+	public String fingerprintFromClassAndMethod() {
+		return FingerprintGenerator.fingerprint(FingerprintGeneratorBenchmark.class, method);
+	}
+
+	@Benchmark
+	public String fingerprintWithDigestPerCall() throws NoSuchAlgorithmException {
+		StringBuilder result = new StringBuilder();
+
+		for (byte b : MessageDigest.getInstance("SHA-1").digest(FINGERPRINTED.getBytes())) {
+			result.append(Integer.toString((b & 0xff) + 0x100, 16).substring(1));
+		}
+
+		return result.toString();
+	}
+}
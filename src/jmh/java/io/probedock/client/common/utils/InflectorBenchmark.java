@@ -0,0 +1,26 @@
+package io.probedock.client.common.utils;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the human readable names forged by {@link Inflector} for the tests without a name.
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class InflectorBenchmark {
+	@Param({"itShouldWork", "theNameOfThisTestShouldBeHumanizedWithHTTPAcronym"})
+	private String methodName;
+
+	@Benchmark
+	public String getHumanName() {
+		return Inflector.getHumanName(methodName);
+	}
+}
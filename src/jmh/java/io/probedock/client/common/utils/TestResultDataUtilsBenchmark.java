@@ -0,0 +1,55 @@
+package io.probedock.client.common.utils;
+
+import io.probedock.client.common.config.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the category resolution of {@link TestResultDataUtils} which matches the package of each test
+ * against the patterns configured with {@link PackageMatcher}.
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class TestResultDataUtilsBenchmark {
+	/**
+	 * Number of package patterns configured
+	 */
+	@Param({"0", "10", "100"})
+	private int patterns;
+
+	private Configuration configuration;
+
+	@Setup
+	public void setUp() {
+		final Map<String, String> categoriesByPackage = new LinkedHashMap<>();
+
+		for (int i = 0; i < patterns; i++) {
+			categoriesByPackage.put("com.company.module" + i + ".**", "Category " + i);
+		}
+
+		configuration = new Configuration() {
+			{
+				config.setProperty("probedock.java.categoriesByPackage", categoriesByPackage);
+			}
+		};
+	}
+
+	@Benchmark
+	public String getCategoryMatchingTheLastPattern() {
+		return TestResultDataUtils.getCategory("com.company.module" + (patterns - 1) + ".service.impl", configuration, null, null, "Unit");
+	}
+
+	@Benchmark
+	public String getCategoryMatchingNoPattern() {
+		return TestResultDataUtils.getCategory("org.other.project.service", configuration, null, null, "Unit");
+	}
+}
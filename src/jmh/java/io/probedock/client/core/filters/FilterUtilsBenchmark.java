@@ -0,0 +1,57 @@
+package io.probedock.client.core.filters;
+
+import io.probedock.client.annotations.ProbeTest;
+import io.probedock.client.annotations.ProbeTestClass;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link FilterUtils} which decides for each test if it must be run regarding the filters.
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class FilterUtilsBenchmark {
+	private static final String[] TYPES = {"*", "key", "fp", "name", "tag", "ticket"};
+
+	/**
+	 * Number of filters, none of them match the test
+	 */
+	@Param({"0", "10", "100", "1000"})
+	private int filterCount;
+
+	private Method method;
+
+	private List<FilterDefinition> filters;
+
+	@Setup
+	public void setUp() throws NoSuchMethodException {
+		method = AnnotatedTest.class.getMethod("aTestShouldBeFiltered");
+
+		filters = new ArrayList<>();
+		for (int i = 0; i < filterCount; i++) {
+			filters.add(new FilterDefinitionImpl(TYPES[i % TYPES.length], "unknown" + i));
+		}
+	}
+
+	@Benchmark
+	public boolean isRunnable() {
+		return FilterUtils.isRunnable(AnnotatedTest.class, method, filters);
+	}
+
+	@ProbeTestClass(tags = {"benchmark", "filters"}, tickets = "PD-1")
+	public static class AnnotatedTest {
+		@ProbeTest(key = "abc123", tags = {"fast", "unit"}, tickets = {"PD-2", "PD-3"})
+		public void aTestShouldBeFiltered() {
+		}
+	}
+}
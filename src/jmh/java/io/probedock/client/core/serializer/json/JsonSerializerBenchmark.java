@@ -0,0 +1,77 @@
+package io.probedock.client.core.serializer.json;
+
+import io.probedock.client.common.model.v1.ModelFactory;
+import io.probedock.client.common.model.v1.TestRun;
+import io.probedock.client.common.utils.MetaDataBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the serialization and the deserialization of the test runs by {@link JsonSerializer}.
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class JsonSerializerBenchmark {
+	@Param({"1000", "100000"})
+	private int results;
+
+	private JsonSerializer serializer;
+
+	private TestRun testRun;
+
+	private byte[] payload;
+
+	@Setup
+	public void setUp() throws IOException {
+		serializer = new JsonSerializer();
+
+		testRun = new TestRun();
+		testRun.setProjectId("project");
+		testRun.setVersion("1.0.0");
+
+		for (int i = 0; i < results; i++) {
+			testRun.getTestResults().add(ModelFactory.createTestResult(
+				null, "fingerprint" + i, "Json serializer: test " + i, "Unit", 10L, null, true, true,
+				new HashSet<>(Arrays.asList("someone@probedock.io")),
+				new HashSet<>(Arrays.asList("benchmark", "serializer")),
+				new HashSet<>(Arrays.asList("PD-1")),
+				new MetaDataBuilder()
+					.add("java.package", "io.probedock.client.core.serializer.json")
+					.add("java.class", "JsonSerializerBenchmark")
+					.add("java.method", "test" + i)
+					.toMetaData()
+			));
+		}
+
+		payload = serialize();
+	}
+
+	@Benchmark
+	public byte[] serialize() throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		serializer.serializePayload(baos, testRun, false);
+		return baos.toByteArray();
+	}
+
+	@Benchmark
+	public TestRun deserialize() throws IOException {
+		return serializer.deserializePayload(new ByteArrayInputStream(payload), TestRun.class);
+	}
+
+	@Benchmark
+	public TestRun roundTrip() throws IOException {
+		return serializer.deserializePayload(new ByteArrayInputStream(serialize()), TestRun.class);
+	}
+}
@@ -0,0 +1,121 @@
+package io.probedock.client.core.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.probedock.client.common.config.Configuration;
+import io.probedock.client.common.model.v1.ModelFactory;
+import io.probedock.client.common.model.v1.TestResult;
+import io.probedock.client.common.model.v1.TestRun;
+import io.probedock.client.common.utils.Constants;
+import io.probedock.client.common.utils.MetaDataBuilder;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the loading of the payloads stored by {@link FileStore}. The segment log is compared to the
+ * previous layout of one file per payload, read with a fresh object mapper for each payload.
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class FileStoreBenchmark {
+	@Param({"1000", "5000"})
+	private int payloads;
+
+	private File workspace;
+
+	private FileStore fileStore;
+
+	private File payloadDir;
+
+	@Setup
+	public void setUp() throws IOException {
+		workspace = Files.createTempDirectory("probedock-benchmark").toFile();
+
+		final String workspacePath = workspace.getAbsolutePath();
+
+		Configuration configuration = new Configuration() {
+			{
+				config.setProperty("probedock.workspace", workspacePath);
+			}
+		};
+
+		fileStore = new FileStore(configuration, "benchmark");
+		payloadDir = new File(workspace, "files");
+		payloadDir.mkdirs();
+
+		ObjectMapper mapper = new ObjectMapper();
+		for (int i = 0; i < payloads; i++) {
+			TestRun testRun = createTestRun(i);
+			fileStore.save(testRun);
+			mapper.writeValue(new File(payloadDir, UUID.randomUUID().toString()), testRun);
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(workspace);
+	}
+
+	@Benchmark
+	public List<TestRun> loadFromSegmentLog() throws IOException {
+		return fileStore.load(TestRun.class);
+	}
+
+	@Benchmark
+	public List<TestRun> loadFromSegmentLogByName() throws IOException {
+		List<TestRun> testRuns = new ArrayList<>();
+
+		for (String name : fileStore.getNames(TestRun.class)) {
+			testRuns.add(fileStore.load(name, TestRun.class));
+		}
+
+		return testRuns;
+	}
+
+	@Benchmark
+	public List<TestRun> loadFromFilePerPayload() throws IOException {
+		List<TestRun> testRuns = new ArrayList<>();
+
+		for (File f : payloadDir.listFiles()) {
+			try (InputStreamReader isr = new InputStreamReader(new FileInputStream(f), Charset.forName(Constants.ENCODING).newDecoder())) {
+				testRuns.add(new ObjectMapper().readValue(isr, TestRun.class));
+			}
+		}
+
+		return testRuns;
+	}
+
+	private static TestRun createTestRun(int index) {
+		TestRun testRun = new TestRun();
+		testRun.setProjectId("project");
+		testRun.setVersion("1.0.0");
+
+		for (int i = 0; i < 10; i++) {
+			TestResult testResult = ModelFactory.createTestResult(
+				null, "fingerprint" + index + "." + i, "Benchmark: test " + i, "Unit", 10L, null, true, true,
+				new HashSet<>(Collections.singletonList("someone@probedock.io")),
+				new HashSet<>(Arrays.asList("benchmark", "storage")),
+				new HashSet<>(Collections.singletonList("PD-1")),
+				new MetaDataBuilder().add("java.class", "FileStoreBenchmark").toMetaData()
+			);
+
+			testRun.getTestResults().add(testResult);
+		}
+
+		return testRun;
+	}
+}
@@ -1,5 +1,6 @@
 package io.probedock.client.common.config;
 
+import io.probedock.client.common.utils.MessageTruncator;
 import io.probedock.client.utils.EnvironmentUtils;
 import org.apache.commons.configuration.CompositeConfiguration;
 import org.apache.commons.configuration.ConfigurationException;
@@ -70,9 +71,30 @@ public class Configuration {
 
     private static final String P_PAYLOAD_PRINT = P_ROOT_NODE_NAME + ".payload.print";
     private static final String P_PAYLOAD_SAVE = P_ROOT_NODE_NAME + ".payload.save";
+    private static final String P_PAYLOAD_CHUNKED = P_ROOT_NODE_NAME + ".payload.chunked";
+    private static final String P_PAYLOAD_COMPRESSION = P_ROOT_NODE_NAME + ".payload.compression";
+    private static final String P_PAYLOAD_OUTBOX = P_ROOT_NODE_NAME + ".payload.outbox";
+    private static final String P_PAYLOAD_DEDUPLICATE_FAILURES = P_ROOT_NODE_NAME + ".payload.deduplicateFailures";
+
+    private static final String P_MESSAGE_MAX_BYTES = P_ROOT_NODE_NAME + ".message.maxBytes";
+    private static final String P_MESSAGE_TRUNCATION = P_ROOT_NODE_NAME + ".message.truncation";
+
+    private static final String P_ASYNC_ENABLED = P_ROOT_NODE_NAME + ".async.enabled";
+    private static final String P_ASYNC_QUEUE_SIZE = P_ROOT_NODE_NAME + ".async.queueSize";
+    private static final String P_ASYNC_DRAIN_TIMEOUT = P_ROOT_NODE_NAME + ".async.drainTimeout";
+
+    private static final String P_BATCH_SIZE = P_ROOT_NODE_NAME + ".batch.size";
+    private static final String P_BATCH_INTERVAL = P_ROOT_NODE_NAME + ".batch.interval";
+    private static final String P_BATCH_MAX_PENDING = P_ROOT_NODE_NAME + ".batch.maxPending";
+
+    private static final String P_RETRY_MAX_ATTEMPTS = P_ROOT_NODE_NAME + ".retry.maxAttempts";
+    private static final String P_RETRY_INITIAL_DELAY = P_ROOT_NODE_NAME + ".retry.initialDelay";
+    private static final String P_RETRY_MAX_DELAY = P_ROOT_NODE_NAME + ".retry.maxDelay";
+    private static final String P_RETRY_BUDGET = P_ROOT_NODE_NAME + ".retry.budget";
 
     private static final String P_SERIALIZER_CLASS = P_ROOT_NODE_NAME + ".java.serializerClass";
     private static final String P_CATEGORIESBYPACKAGE = P_ROOT_NODE_NAME + ".java.categoriesByPackage";
+    private static final String P_TEST_INDEX_ENABLED = P_ROOT_NODE_NAME + ".java.testIndex.enabled";
 
     private static final String P_PROJECT_API_ID = P_ROOT_NODE_NAME + ".project.apiId";
     private static final String P_PROJECT_VERSION = P_ROOT_NODE_NAME + ".project.version";
@@ -110,6 +132,7 @@ public class Configuration {
     private Set<String> tags;
     private Set<String> tickets;
     private Map<String, String> categoriesByPackage;
+    private MessageTruncator messageTruncator;
 
     private boolean disabled = false;
 
@@ -323,6 +346,126 @@ public class Configuration {
         return EnvironmentUtils.getEnvironmentBoolean("PRINT_PAYLOAD", config.getBoolean(P_PAYLOAD_PRINT, Boolean.FALSE));
     }
 
+    /**
+     * @return Define if the payload must be streamed to Probe Dock with chunked transfer encoding. By default, the
+     * payload is fully buffered to compute the content length before it is sent.
+     */
+    public boolean isPayloadChunked() {
+        return EnvironmentUtils.getEnvironmentBoolean("CHUNKED_PAYLOAD", config.getBoolean(P_PAYLOAD_CHUNKED, Boolean.FALSE));
+    }
+
+    /**
+     * @return The compression to apply to the payload sent to Probe Dock (none, gzip or deflate), null if not set
+     */
+    public String getPayloadCompression() {
+        return EnvironmentUtils.getEnvironmentString("PAYLOAD_COMPRESSION", config.getString(P_PAYLOAD_COMPRESSION));
+    }
+
+    /**
+     * @return Define if the failure messages shared by several test results are sent once in the test run. Probe Dock
+     * must support it. By default, each test result holds its message.
+     */
+    public boolean isPayloadDeduplicateFailures() {
+        return EnvironmentUtils.getEnvironmentBoolean("DEDUPLICATE_FAILURES", config.getBoolean(P_PAYLOAD_DEDUPLICATE_FAILURES, Boolean.FALSE));
+    }
+
+    /**
+     * @return The maximum number of UTF-8 bytes of the test result messages, 50000 by default
+     */
+    public int getMessageMaxBytes() {
+        return EnvironmentUtils.getEnvironmentInteger("MESSAGE_MAX_BYTES", config.getInt(P_MESSAGE_MAX_BYTES, MessageTruncator.DEFAULT_MAX_BYTES));
+    }
+
+    /**
+     * @return The part of the messages kept when they are truncated (head or headTail), null if not set
+     */
+    public String getMessageTruncation() {
+        return EnvironmentUtils.getEnvironmentString("MESSAGE_TRUNCATION", config.getString(P_MESSAGE_TRUNCATION));
+    }
+
+    /**
+     * @return The truncator of the test result messages built from the configuration
+     */
+    public MessageTruncator getMessageTruncator() {
+        if (messageTruncator == null) {
+            messageTruncator = new MessageTruncator(getMessageMaxBytes(), MessageTruncator.Mode.fromName(getMessageTruncation()));
+        }
+
+        return messageTruncator;
+    }
+
+    /**
+     * @return Define if the {@code AsyncConnector} created from the configuration sends the test runs in the
+     * background. By default, the test runs are sent from the thread that finished the tests.
+     */
+    public boolean isAsyncEnabled() {
+        return EnvironmentUtils.getEnvironmentBoolean("ASYNC_ENABLED", config.getBoolean(P_ASYNC_ENABLED, Boolean.FALSE));
+    }
+
+    /**
+     * @return The maximum number of test runs waiting to be sent by the asynchronous connector, 16 by default
+     */
+    public int getAsyncQueueSize() {
+        return EnvironmentUtils.getEnvironmentInteger("ASYNC_QUEUE_SIZE", config.getInt(P_ASYNC_QUEUE_SIZE, 16));
+    }
+
+    /**
+     * @return The time in seconds given to the asynchronous connector to send the pending test runs when the JVM exits,
+     * 30 seconds by default
+     */
+    public int getAsyncDrainTimeout() {
+        return EnvironmentUtils.getEnvironmentInteger("ASYNC_DRAIN_TIMEOUT", config.getInt(P_ASYNC_DRAIN_TIMEOUT, 30));
+    }
+
+    /**
+     * @return The number of test results after which a partial test run is published, 500 by default
+     */
+    public int getBatchSize() {
+        return EnvironmentUtils.getEnvironmentInteger("BATCH_SIZE", config.getInt(P_BATCH_SIZE, 500));
+    }
+
+    /**
+     * @return The time in seconds after which a partial test run is published, 60 seconds by default
+     */
+    public int getBatchInterval() {
+        return EnvironmentUtils.getEnvironmentInteger("BATCH_INTERVAL", config.getInt(P_BATCH_INTERVAL, 60));
+    }
+
+    /**
+     * @return The maximum number of test results kept while the batches cannot be published, the oldest ones are
+     * dropped beyond it, 5000 by default
+     */
+    public int getBatchMaxPending() {
+        return EnvironmentUtils.getEnvironmentInteger("BATCH_MAX_PENDING", config.getInt(P_BATCH_MAX_PENDING, 5000));
+    }
+
+    /**
+     * @return The maximum number of attempts to publish a test run, 3 by default
+     */
+    public int getRetryMaxAttempts() {
+        return EnvironmentUtils.getEnvironmentInteger("RETRY_MAX_ATTEMPTS", config.getInt(P_RETRY_MAX_ATTEMPTS, 3));
+    }
+
+    /**
+     * @return The maximum delay in milliseconds before the first retry, 1 second by default
+     */
+    public int getRetryInitialDelay() {
+        return EnvironmentUtils.getEnvironmentInteger("RETRY_INITIAL_DELAY", config.getInt(P_RETRY_INITIAL_DELAY, 1000));
+    }
+
+    /**
+     * @return The maximum delay in milliseconds between two attempts, 30 seconds by default
+     */
+    public int getRetryMaxDelay() {
+        return EnvironmentUtils.getEnvironmentInteger("RETRY_MAX_DELAY", config.getInt(P_RETRY_MAX_DELAY, 30000));
+    }
+
+    /**
+     * @return The maximum number of retries available at once for all the publications of the JVM, 10 by default
+     */
+    public int getRetryBudget() {
+        return EnvironmentUtils.getEnvironmentInteger("RETRY_BUDGET", config.getInt(P_RETRY_BUDGET, 10));
+    }
 
     /**
      * @return Get tags from the configuration, if none, empty set is returned
@@ -407,7 +550,8 @@ public class Configuration {
     @SuppressWarnings("unchecked")
     public Map<String, String> getCategoriesByPackage() {
         if (categoriesByPackage == null) {
-            categoriesByPackage = new HashMap<>();
+            // Keep the order of the configuration, the first pattern that matches wins
+            categoriesByPackage = new LinkedHashMap<>();
 
             Map<String, String> globalPackages = (Map<String, String>) config.getProperty(P_CATEGORIESBYPACKAGE);
 
@@ -420,6 +564,14 @@ public class Configuration {
         return categoriesByPackage;
     }
 
+    /**
+     * @return Define if the probes install the test index generated at compile time to filter and describe the
+     * tests without reflection. By default, the tests are described from their annotations.
+     */
+    public boolean isTestIndexEnabled() {
+        return EnvironmentUtils.getEnvironmentBoolean("TEST_INDEX_ENABLED", config.getBoolean(P_TEST_INDEX_ENABLED, Boolean.FALSE));
+    }
+
     /**
      * @return Define if the results must be stored or not locally
      */
@@ -427,6 +579,13 @@ public class Configuration {
         return EnvironmentUtils.getEnvironmentBoolean("SAVE_PAYLOAD", config.getBoolean(P_PAYLOAD_SAVE, Boolean.FALSE));
     }
 
+    /**
+     * @return Define if the test runs that cannot be sent must be kept in the outbox to be replayed later
+     */
+    public boolean isPayloadOutbox() {
+        return EnvironmentUtils.getEnvironmentBoolean("OUTBOX_PAYLOAD", config.getBoolean(P_PAYLOAD_OUTBOX, Boolean.FALSE));
+    }
+
     /**
      * @return Define if the test results must be send to Probe Dock.
      */
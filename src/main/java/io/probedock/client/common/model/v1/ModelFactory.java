@@ -4,12 +4,12 @@ import io.probedock.client.common.config.Configuration;
 import io.probedock.client.common.config.ScmInfo;
 import io.probedock.client.common.config.ScmRemoteInfo;
 import io.probedock.client.common.model.ProbeTestRun;
-import io.probedock.client.common.utils.Constants;
 import io.probedock.client.common.utils.FingerprintGenerator;
+import io.probedock.client.common.utils.MessageTruncator;
 import io.probedock.client.common.utils.MetaDataBuilder;
+import io.probedock.client.common.utils.TestDescriptor;
 
 import java.lang.reflect.Method;
-import java.nio.charset.Charset;
 import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
@@ -189,7 +189,7 @@ public class ModelFactory {
 	 * @param key The unique key that identifies the test (mandatory)
 	 * @param name Name
 	 * @param duration Approximative duration time (0 or positive)
-	 * @param message Message to enrich the result (mandatory when failed, max. 65535 car, truncated)
+	 * @param message Message to enrich the result (mandatory when failed, truncated to 50000 UTF-8 bytes)
 	 * @param passed Flag to know if a test pass or not
 	 * @param active if the test is active
 	 * @param contributors A list of contributors
@@ -203,6 +203,31 @@ public class ModelFactory {
 											  boolean passed, Boolean active, Set<String> contributors,
 											  Set<String> tags, Set<String> tickets, Map<String, String> data) {
 
+		return createTestResult(key, fingerprint, name, category, duration, message, passed, active, contributors, tags, tickets, data, MessageTruncator.DEFAULT);
+	}
+
+	/**
+	 * Create a test result
+	 *
+	 * @param key The unique key that identifies the test (mandatory)
+	 * @param name Name
+	 * @param duration Approximative duration time (0 or positive)
+	 * @param message Message to enrich the result (mandatory when failed, truncated by the truncator)
+	 * @param passed Flag to know if a test pass or not
+	 * @param active if the test is active
+	 * @param contributors A list of contributors
+	 * @param tags A list of tags
+	 * @param tickets A list of tickets
+	 * @param data A list of meta data
+	 * @param truncator The truncator of the message, {@link MessageTruncator#DEFAULT} when null
+	 * @return Created test
+	 */
+	public static TestResult createTestResult(String key, String fingerprint, String name,
+											  String category, long duration, String message,
+											  boolean passed, Boolean active, Set<String> contributors,
+											  Set<String> tags, Set<String> tickets, Map<String, String> data,
+											  MessageTruncator truncator) {
+
 		if (duration < 0) {
 			throw new IllegalArgumentException("The duration cannot be negative.");
 		}
@@ -232,12 +257,7 @@ public class ModelFactory {
 		testResult.setPassed(passed);
 		
 		if (testResult.getMessage() == null) {
-			if (message != null && message.getBytes(Charset.forName(Constants.ENCODING)).length > 50000) {
-				testResult.setMessage(new String(message.getBytes(Charset.forName(Constants.ENCODING)), 0, 49997, Charset.forName(Constants.ENCODING)) + "...");
-			}
-			else {
-				testResult.setMessage(message);
-			}
+			testResult.setMessage((truncator != null ? truncator : MessageTruncator.DEFAULT).truncate(message));
 		}
 		
 		if (category != null && !category.isEmpty()) {
@@ -270,6 +290,50 @@ public class ModelFactory {
 		return testResult;
 	}
 
+	/**
+	 * Create a test result from the descriptor of the test method
+	 *
+	 * @param config The configuration
+	 * @param descriptor The test descriptor
+	 * @param defaultCategory The default category if none is found
+	 * @param duration Approximative duration time (0 or positive)
+	 * @param message Message to enrich the result (mandatory when failed, truncated as configured)
+	 * @param passed Flag to know if a test pass or not
+	 * @param data A list of meta data
+	 * @return Created test
+	 */
+	public static TestResult createTestResult(Configuration config, TestDescriptor descriptor, String defaultCategory,
+											  long duration, String message, boolean passed, Map<String, String> data) {
+
+		return createTestResult(
+			descriptor.getKey(),
+			descriptor.getFingerprint(),
+			descriptor.getName(),
+			descriptor.getCategory(config, defaultCategory),
+			duration,
+			message,
+			passed,
+			descriptor.isActive(),
+			descriptor.getContributors(config),
+			descriptor.getTags(config),
+			descriptor.getTickets(config),
+			data,
+			config.getMessageTruncator()
+		);
+	}
+
+	/**
+	 * Enrich the test result with the java package, class and method names of the test descriptor.
+	 *
+	 * @param config The configuration
+	 * @param result The result to enrich
+	 * @param descriptor The test descriptor
+	 * @param lineNumber The line number
+	 */
+	public static void enrichTestResult(Configuration config, TestResult result, TestDescriptor descriptor, int lineNumber) {
+		enrichTestResult(config, result, descriptor.getPackageName(), descriptor.getClassName(), descriptor.getMethodName(), lineNumber);
+	}
+
 	/**
 	 * Enrich the test result with the java package, class and method names.
 	 *
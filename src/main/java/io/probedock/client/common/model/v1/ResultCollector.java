@@ -0,0 +1,121 @@
+package io.probedock.client.common.model.v1;
+
+import java.lang.ref.WeakReference;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Collector of the test results recorded by tests running in parallel. Each thread adds its results to its own
+ * buffer, so the threads never wait for each other while the tests are running. The buffers are merged when
+ * the results are flushed, the order of the results recorded by the same thread is kept.
+ * <p/>
+ * A test result is expected to be built by a single thread before it is added to the collector.
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class ResultCollector {
+	/**
+	 * Buffer of the current thread
+	 */
+	private final ThreadLocal<Buffer> buffer = new ThreadLocal<Buffer>() {
+		@Override
+		protected Buffer initialValue() {
+			Buffer buffer = new Buffer(Thread.currentThread());
+			buffers.add(buffer);
+			return buffer;
+		}
+	};
+
+	/**
+	 * Buffers of all the threads that added test results
+	 */
+	private final Queue<Buffer> buffers = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Add a test result to the buffer of the current thread
+	 *
+	 * @param testResult The test result to add
+	 */
+	public void add(TestResult testResult) {
+		buffer.get().results.offer(testResult);
+	}
+
+	/**
+	 * Add test results to the buffer of the current thread
+	 *
+	 * @param testResults The test results to add
+	 */
+	public void addAll(Collection<TestResult> testResults) {
+		buffer.get().results.addAll(testResults);
+	}
+
+	/**
+	 * Move the test results of all the buffers to the target. The buffers of the threads that terminated are released.
+	 *
+	 * @param target The collection where to add the test results
+	 * @return The number of test results moved
+	 */
+	public synchronized int flush(Collection<? super TestResult> target) {
+		int count = 0;
+
+		for (Iterator<Buffer> it = buffers.iterator(); it.hasNext(); ) {
+			Buffer current = it.next();
+
+			if (current.isTerminated()) {
+				it.remove();
+			}
+
+			// A terminated thread cannot add results anymore, its buffer is drained for the last time
+			count += current.drain(target);
+		}
+
+		return count;
+	}
+
+	/**
+	 * @return The number of test results not flushed yet
+	 */
+	public int getPendingCount() {
+		int count = 0;
+
+		for (Buffer current : buffers) {
+			count += current.results.size();
+		}
+
+		return count;
+	}
+
+	/**
+	 * Test results added by a thread
+	 */
+	private static class Buffer {
+		/**
+		 * The thread is not retained once it terminated
+		 */
+		private final WeakReference<Thread> owner;
+
+		private final Queue<TestResult> results = new ConcurrentLinkedQueue<>();
+
+		private Buffer(Thread owner) {
+			this.owner = new WeakReference<>(owner);
+		}
+
+		private boolean isTerminated() {
+			Thread thread = owner.get();
+			return thread == null || !thread.isAlive();
+		}
+
+		private int drain(Collection<? super TestResult> target) {
+			int count = 0;
+
+			for (TestResult result = results.poll(); result != null; result = results.poll()) {
+				target.add(result);
+				count++;
+			}
+
+			return count;
+		}
+	}
+}
@@ -1,7 +1,12 @@
 package io.probedock.client.common.model.v1;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import io.probedock.client.common.model.ProbeTestResult;
+import io.probedock.client.common.utils.ArrayMap;
+import io.probedock.client.common.utils.ArraySet;
+import io.probedock.client.common.utils.StringPool;
 
 import java.util.*;
 import java.util.Map.Entry;
@@ -33,20 +38,27 @@ public class TestResult implements ProbeTestResult {
 
 	@JsonProperty("m")
 	private String message;
+
+	@JsonProperty("r")
+	private String failureRef;
 	
 	@JsonProperty("c")
 	private String category;
 
 	@JsonProperty("o")
+	@JsonDeserialize(as = ArraySet.class)
 	private Set<String> contributors;
 
 	@JsonProperty("g")
+	@JsonDeserialize(as = ArraySet.class)
 	private Set<String> tags;
 	
 	@JsonProperty("t")
+	@JsonDeserialize(as = ArraySet.class)
 	private Set<String> tickets;
 	
 	@JsonProperty("a")
+	@JsonDeserialize(as = ArrayMap.class)
 	private Map<String, String> data;
 	
 	public TestResult() {}
@@ -58,7 +70,7 @@ public class TestResult implements ProbeTestResult {
 		this.duration = duration;
 		this.passed = passed;
 		this.message = message;
-		this.category = category;
+		this.category = StringPool.DEFAULT.pool(category);
 	}
 
 	public TestResult(String key, String fingerprint, String name, Long duration, boolean passed, String message, String category, Boolean active) {
@@ -68,7 +80,7 @@ public class TestResult implements ProbeTestResult {
 		this.duration = duration;
 		this.passed = passed;
 		this.message = message;
-		this.category = category;
+		this.category = StringPool.DEFAULT.pool(category);
 		this.active = active;
 	}
 	
@@ -126,13 +138,24 @@ public class TestResult implements ProbeTestResult {
 		this.message = message;
 	}
 
+	/**
+	 * @return The identifier of the failure message stored in the test run, null when the message is kept in the result
+	 */
+	public String getFailureRef() {
+		return failureRef;
+	}
+
+	public void setFailureRef(String failureRef) {
+		this.failureRef = failureRef;
+	}
+
 	@Override
 	public String getCategory() {
 		return category;
 	}
 
 	public void setCategory(String category) {
-		this.category = category;
+		this.category = StringPool.DEFAULT.pool(category);
 	}
 
 	@Override
@@ -144,8 +167,15 @@ public class TestResult implements ProbeTestResult {
 		this.active = active;
 	}
 
+	/**
+	 * The set shared with other test results is copied before it is returned, so it can be modified.
+	 *
+	 * @return The contributors, null if there is none
+	 */
 	@Override
+	@JsonIgnore
 	public Set<String> getContributors() {
+		contributors = copyOnWrite(contributors);
 		return contributors;
 	}
 
@@ -154,25 +184,26 @@ public class TestResult implements ProbeTestResult {
 	}
 
 	public void addContributors(List<String> contributors) {
-		addContributors(new HashSet<>(contributors));
+		this.contributors = merge(this.contributors, contributors);
 	}
 
 	public void addContributors(Set<String> contributors) {
-		if (this.contributors == null) {
-			this.contributors = new HashSet<>();
-		}
-		this.contributors.addAll(contributors);
+		this.contributors = merge(this.contributors, contributors);
 	}
 
 	public void addContributor(String contributor) {
-		if (contributors == null) {
-			contributors = new HashSet<>();
-		}
-		contributors.add(contributor);
+		contributors = merge(contributors, contributor);
 	}
 
+	/**
+	 * The set shared with other test results is copied before it is returned, so it can be modified.
+	 *
+	 * @return The tags, null if there is none
+	 */
 	@Override
+	@JsonIgnore
 	public Set<String> getTags() {
+		tags = copyOnWrite(tags);
 		return tags;
 	}
 	
@@ -181,25 +212,26 @@ public class TestResult implements ProbeTestResult {
 	}
 	
 	public void addTags(List<String> tags) {
-		addTags(new HashSet<>(tags));
+		this.tags = merge(this.tags, tags);
 	}
-	
+
 	public void addTags(Set<String> tags) {
-		if (this.tags == null) {
-			this.tags = new HashSet<>();
-		}
-		this.tags.addAll(tags);
+		this.tags = merge(this.tags, tags);
 	}
 	
 	public void addTag(String tag) {
-		if (tags == null) {
-			tags = new HashSet<>();
-		}
-		tags.add(tag);
+		tags = merge(tags, tag);
 	}
 
+	/**
+	 * The set shared with other test results is copied before it is returned, so it can be modified.
+	 *
+	 * @return The tickets, null if there is none
+	 */
 	@Override
+	@JsonIgnore
 	public Set<String> getTickets() {
+		tickets = copyOnWrite(tickets);
 		return tickets;
 	}
 
@@ -208,21 +240,15 @@ public class TestResult implements ProbeTestResult {
 	}
 	
 	public void addTickets(List<String> tickets) {
-		addTickets(new HashSet<>(tickets));
+		this.tickets = merge(this.tickets, tickets);
 	}
-	
+
 	public void addTickets(Set<String> tickets) {
-		if (this.tickets == null) {
-			this.tickets = new HashSet<>();
-		}
-		this.tickets.addAll(tickets);
+		this.tickets = merge(this.tickets, tickets);
 	}
 	
 	public void addTicket(String ticket) {
-		if (tickets == null) {
-			tickets = new HashSet<>();
-		}
-		tickets.add(ticket);
+		tickets = merge(tickets, ticket);
 	}
 
 	@Override
@@ -231,19 +257,79 @@ public class TestResult implements ProbeTestResult {
 	}
 
 	public void addData(Map<String, String> data) {
-		if (this.data == null) {
-			this.data = new HashMap<>();
+		for (Entry<String, String> e : data.entrySet()) {
+			addData(e.getKey(), e.getValue());
 		}
-		this.data.putAll(data);
 	}
 	
 	public void addData(String key, String value) {
 		if (this.data == null) {
-			this.data = new HashMap<>();
+			this.data = new ArrayMap<>();
 		}
-		this.data.put(key, value);
+		this.data.put(StringPool.DEFAULT.pool(key), StringPool.DEFAULT.pool(value));
+	}
+
+	/**
+	 * Merge values in a set. The immutable sets are shared until a value is added to them, the values copied
+	 * are shared through the string pool.
+	 *
+	 * @param current The current set, can be null
+	 * @param values The values to add
+	 * @return The set with the values
+	 */
+	private static Set<String> merge(Set<String> current, Collection<String> values) {
+		if (current == null && (values.isEmpty() || ArraySet.isImmutable(values))) {
+			return ArraySet.immutableOf(values);
+		}
+		else if (current != null && current.containsAll(values)) {
+			return current;
+		}
+
+		Set<String> merged = mutable(current);
+		for (String value : values) {
+			merged.add(StringPool.DEFAULT.pool(value));
+		}
+		return merged;
 	}
-	
+
+	private static Set<String> merge(Set<String> current, String value) {
+		Set<String> merged = mutable(current);
+		merged.add(StringPool.DEFAULT.pool(value));
+		return merged;
+	}
+
+	private static Set<String> mutable(Set<String> current) {
+		if (current == null) {
+			return new ArraySet<>();
+		}
+
+		return ArraySet.isImmutable(current) ? new ArraySet<>(current) : current;
+	}
+
+	/**
+	 * Copy the result to reference a failure message stored in the test run
+	 *
+	 * @param failureRef The identifier of the failure message
+	 * @return The copy of the result without its message
+	 */
+	TestResult withFailureRef(String failureRef) {
+		TestResult copy = new TestResult(key, fingerprint, name, duration, passed, null, category, active);
+		copy.failureRef = failureRef;
+		copy.contributors = contributors != null ? ArraySet.immutableOf(contributors) : null;
+		copy.tags = tags != null ? ArraySet.immutableOf(tags) : null;
+		copy.tickets = tickets != null ? ArraySet.immutableOf(tickets) : null;
+		copy.data = data != null ? new ArrayMap<>(data) : null;
+		return copy;
+	}
+
+	/**
+	 * @param current The current set, can be null
+	 * @return A mutable copy of the set when it is shared, the set itself otherwise
+	 */
+	private static Set<String> copyOnWrite(Set<String> current) {
+		return current != null && ArraySet.isImmutable(current) ? new ArraySet<>(current) : current;
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder sbContributors = new StringBuilder();
@@ -283,6 +369,7 @@ public class TestResult implements ProbeTestResult {
 				"Active: " + active + ", " +
 				"Duration: " + duration + ", " +
 				"Message: " + message  + ", " +
+				"FailureRef: " + failureRef + ", " +
 				"Category: " + category + ", " +
 				"Active: " + active + ", " +
 				"Contributors: [" + sbContributors.toString().replaceAll(", $", "], ") +
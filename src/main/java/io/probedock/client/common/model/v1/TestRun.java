@@ -4,8 +4,11 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonUnwrapped;
 import io.probedock.client.common.model.ProbeTestRun;
+import io.probedock.client.common.utils.FailureFingerprint;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -41,7 +44,7 @@ public class TestRun implements ProbeTestRun {
 	private Probe probe;
 
 	@JsonProperty("results")
-	private List<TestResult> testResults = new ArrayList<>();
+	private final List<TestResult> testResults = Collections.synchronizedList(new ArrayList<TestResult>());
 
 	@JsonProperty("data")
 	private Map<String, String> data;
@@ -49,6 +52,11 @@ public class TestRun implements ProbeTestRun {
 	@JsonProperty("reports")
 	private List<TestReport> testReports = new ArrayList<>();
 
+	@JsonProperty("failures")
+	private Map<String, String> failures;
+
+	private final ResultCollector resultCollector = new ResultCollector();
+
 	@Override
 	@JsonIgnore
 	public String getApiVersion() {
@@ -159,13 +167,54 @@ public class TestRun implements ProbeTestRun {
 		}
 	}
 
+	/**
+	 * The results of the collector are moved to the list while the list is locked, the other threads see either
+	 * all of them or none of them. The list is synchronized, it must be locked to iterate it while results are added.
+	 *
+	 * @return The test results, including the ones added to the result collector until now
+	 */
 	@Override
+	@JsonIgnore
 	public List<TestResult> getTestResults() {
-		return testResults;
+		synchronized (testResults) {
+			resultCollector.flush(testResults);
+			return testResults;
+		}
 	}
 
 	public void addTestResults(List<TestResult> results) {
-		testResults.addAll(results);
+		synchronized (testResults) {
+			getTestResults().addAll(results);
+		}
+	}
+
+	/**
+	 * @return A copy of the test results taken at once, including the ones added to the result collector until now
+	 */
+	@JsonProperty("results")
+	private List<TestResult> getTestResultsSnapshot() {
+		synchronized (testResults) {
+			return new ArrayList<>(getTestResults());
+		}
+	}
+
+	@JsonProperty("results")
+	private void setTestResults(List<TestResult> results) {
+		synchronized (testResults) {
+			testResults.clear();
+			testResults.addAll(results);
+		}
+	}
+
+	/**
+	 * The result collector is used by the tests running in parallel to add their results without waiting for
+	 * each other. The results are added to the test run when they are retrieved.
+	 *
+	 * @return The result collector of the test run
+	 */
+	@JsonIgnore
+	public ResultCollector getResultCollector() {
+		return resultCollector;
 	}
 
 	@Override
@@ -173,10 +222,92 @@ public class TestRun implements ProbeTestRun {
 		return testReports;
 	}
 
+	/**
+	 * @return The failure messages shared by several test results by their identifier, null if there is none
+	 */
+	public Map<String, String> getFailures() {
+		return failures;
+	}
+
+	/**
+	 * Store the failure messages shared by several test results once in a copy of the test run. The results of
+	 * the copy reference the message by its identifier instead of holding it. The messages are shared when they are
+	 * identical once their line numbers and lambda names are removed, the message of the first result is kept.
+	 * <p/>
+	 * The test run and its results are not modified, the copy shares the results that hold their message.
+	 * Probe Dock must support the failures of the test runs to resolve the messages.
+	 *
+	 * @return The copy of the test run with the failures shared, the test run itself when no failure is shared
+	 */
+	public TestRun withDeduplicatedFailures() {
+		List<TestResult> results = getTestResultsSnapshot();
+
+		String[] fingerprints = new String[results.size()];
+		Map<String, Integer> counts = new HashMap<>();
+
+		for (int i = 0; i < fingerprints.length; i++) {
+			TestResult result = results.get(i);
+
+			if (!result.isPassed() && result.getMessage() != null) {
+				fingerprints[i] = FailureFingerprint.fingerprint(result.getMessage());
+
+				if (fingerprints[i] != null) {
+					Integer count = counts.get(fingerprints[i]);
+					counts.put(fingerprints[i], count == null ? 1 : count + 1);
+				}
+			}
+		}
+
+		Map<String, String> sharedFailures = failures != null ? new LinkedHashMap<>(failures) : null;
+		List<TestResult> deduplicatedResults = new ArrayList<>(results.size());
+		int deduplicated = 0;
+
+		for (int i = 0; i < fingerprints.length; i++) {
+			String fingerprint = fingerprints[i];
+			TestResult result = results.get(i);
+
+			// The failures that are not shared are kept in their result
+			if (fingerprint == null || (counts.get(fingerprint) < 2 && (sharedFailures == null || !sharedFailures.containsKey(fingerprint)))) {
+				deduplicatedResults.add(result);
+				continue;
+			}
+
+			if (sharedFailures == null) {
+				sharedFailures = new LinkedHashMap<>();
+			}
+
+			if (!sharedFailures.containsKey(fingerprint)) {
+				sharedFailures.put(fingerprint, result.getMessage());
+			}
+
+			deduplicatedResults.add(result.withFailureRef(fingerprint));
+			deduplicated++;
+		}
+
+		if (deduplicated == 0) {
+			return this;
+		}
+
+		TestRun copy = new TestRun();
+		copy.projectId = projectId;
+		copy.version = version;
+		copy.duration = duration;
+		copy.pipeline = pipeline;
+		copy.stage = stage;
+		copy.context = context;
+		copy.probe = probe;
+		copy.data = data != null ? new HashMap<>(data) : null;
+		copy.testReports.addAll(testReports);
+		copy.testResults.addAll(deduplicatedResults);
+		copy.failures = sharedFailures;
+
+		return copy;
+	}
+
 	@Override
 	public String toString() {
 		final StringBuilder sbTestResults = new StringBuilder();
-		for (TestResult testResult : testResults) {
+		for (TestResult testResult : getTestResultsSnapshot()) {
 			sbTestResults.append(testResult).append(", ");
 		}
 
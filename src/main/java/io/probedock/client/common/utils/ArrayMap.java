@@ -0,0 +1,226 @@
+package io.probedock.client.common.utils;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Map of a few entries with the keys and values kept in a single array in the order they were added. The
+ * lookups are linear, so it is meant for the meta data of a test that hold a handful of entries. It takes a
+ * fraction of the memory of a {@link java.util.HashMap} which allocates an entry object per mapping.
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public final class ArrayMap<K, V> extends AbstractMap<K, V> {
+    private static final Object[] NO_ENTRIES = {};
+
+    /**
+     * Keys at the even indexes followed by their values
+     */
+    private Object[] entries = NO_ENTRIES;
+    private int size;
+
+    /**
+     * Constructor of an empty map
+     */
+    public ArrayMap() {
+    }
+
+    /**
+     * Constructor
+     *
+     * @param map The entries of the map
+     */
+    public ArrayMap(Map<? extends K, ? extends V> map) {
+        entries = new Object[map.size() * 2];
+        putAll(map);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int index = indexOf(key);
+        return index >= 0 ? (V) entries[index + 1] : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value) {
+        int index = indexOf(key);
+
+        if (index >= 0) {
+            V previous = (V) entries[index + 1];
+            entries[index + 1] = value;
+            return previous;
+        }
+
+        if (size * 2 == entries.length) {
+            entries = Arrays.copyOf(entries, size < 4 ? 8 : (size + (size >> 1)) * 2);
+        }
+
+        entries[size * 2] = key;
+        entries[size * 2 + 1] = value;
+        size++;
+
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        int index = indexOf(key);
+
+        if (index < 0) {
+            return null;
+        }
+
+        V previous = (V) entries[index + 1];
+        removeAt(index);
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(entries, 0, size * 2, null);
+        size = 0;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public void clear() {
+                ArrayMap.this.clear();
+            }
+
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator();
+            }
+        };
+    }
+
+    private int indexOf(Object key) {
+        for (int i = 0; i < size * 2; i += 2) {
+            if (key == null ? entries[i] == null : key.equals(entries[i])) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private void removeAt(int index) {
+        System.arraycopy(entries, index + 2, entries, index, size * 2 - index - 2);
+        size--;
+        entries[size * 2] = null;
+        entries[size * 2 + 1] = null;
+    }
+
+    /**
+     * Iterator over the entries, each entry reads and writes the array directly
+     */
+    private class EntryIterator implements Iterator<Entry<K, V>> {
+        private int next;
+        private int last = -1;
+        private int expectedSize = size;
+
+        @Override
+        public boolean hasNext() {
+            return next < size * 2;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (expectedSize != size) {
+                throw new ConcurrentModificationException();
+            }
+            else if (next >= size * 2) {
+                throw new NoSuchElementException();
+            }
+
+            last = next;
+            next += 2;
+
+            final int index = last;
+
+            return new Entry<K, V>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public K getKey() {
+                    return (K) entries[index];
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public V getValue() {
+                    return (V) entries[index + 1];
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public V setValue(V value) {
+                    V previous = (V) entries[index + 1];
+                    entries[index + 1] = value;
+                    return previous;
+                }
+
+                @Override
+                public boolean equals(Object o) {
+                    if (!(o instanceof Entry)) {
+                        return false;
+                    }
+
+                    Entry<?, ?> e = (Entry<?, ?>) o;
+                    return eq(getKey(), e.getKey()) && eq(getValue(), e.getValue());
+                }
+
+                @Override
+                public int hashCode() {
+                    return (getKey() == null ? 0 : getKey().hashCode()) ^ (getValue() == null ? 0 : getValue().hashCode());
+                }
+
+                @Override
+                public String toString() {
+                    return getKey() + "=" + getValue();
+                }
+            };
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+
+            removeAt(last);
+            next = last;
+            last = -1;
+            expectedSize = size;
+        }
+    }
+
+    private static boolean eq(Object left, Object right) {
+        return left == null ? right == null : left.equals(right);
+    }
+}
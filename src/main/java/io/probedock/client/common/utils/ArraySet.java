@@ -0,0 +1,191 @@
+package io.probedock.client.common.utils;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Set of a few elements kept in an array in the order they were added. The lookups are linear, so it is meant
+ * for the tags, tickets and contributors of a test that hold a handful of elements. It takes a fraction of the
+ * memory of a {@link java.util.HashSet} which allocates an entry per element.
+ * <p/>
+ * The immutable sets are shared between the test results. The sets with the same content are not merged.
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public final class ArraySet<E> extends AbstractSet<E> {
+    private static final Object[] NO_ELEMENTS = {};
+
+    private static final ArraySet<Object> EMPTY = new ArraySet<>(NO_ELEMENTS, 0, true);
+
+    private Object[] elements;
+    private int size;
+    private final boolean immutable;
+
+    /**
+     * Constructor of an empty mutable set
+     */
+    public ArraySet() {
+        this(NO_ELEMENTS, 0, false);
+    }
+
+    /**
+     * Constructor of a mutable set
+     *
+     * @param elements The elements of the set
+     */
+    public ArraySet(Collection<? extends E> elements) {
+        this(new Object[elements.size()], 0, false);
+        addAll(elements);
+    }
+
+    private ArraySet(Object[] elements, int size, boolean immutable) {
+        this.elements = elements;
+        this.size = size;
+        this.immutable = immutable;
+    }
+
+    /**
+     * Retrieve an immutable set with the elements of a collection. The collection is returned when it is
+     * already an immutable {@link ArraySet}, an empty collection gives the shared empty set.
+     *
+     * @param elements The elements
+     * @param <E> The type of the elements
+     * @return The immutable set
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> ArraySet<E> immutableOf(Collection<? extends E> elements) {
+        if (elements instanceof ArraySet && ((ArraySet) elements).immutable) {
+            return (ArraySet<E>) elements;
+        }
+        else if (elements.isEmpty()) {
+            return (ArraySet<E>) EMPTY;
+        }
+
+        ArraySet<E> copy = new ArraySet<>(elements);
+        return new ArraySet<>(copy.size == copy.elements.length ? copy.elements : Arrays.copyOf(copy.elements, copy.size), copy.size, true);
+    }
+
+    /**
+     * @param elements The elements
+     * @param <E> The type of the elements
+     * @return True if the elements are in an immutable {@link ArraySet}
+     */
+    public static <E> boolean isImmutable(Collection<E> elements) {
+        return elements instanceof ArraySet && ((ArraySet) elements).immutable;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public boolean add(E e) {
+        checkMutable();
+
+        if (indexOf(e) >= 0) {
+            return false;
+        }
+
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size < 4 ? 4 : size + (size >> 1));
+        }
+
+        elements[size++] = e;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        checkMutable();
+
+        int index = indexOf(o);
+
+        if (index < 0) {
+            return false;
+        }
+
+        removeAt(index);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        checkMutable();
+
+        Arrays.fill(elements, 0, size, null);
+        size = 0;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int next;
+            private int last = -1;
+            private int expectedSize = size;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (expectedSize != size) {
+                    throw new ConcurrentModificationException();
+                }
+                else if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+
+                last = next++;
+                return (E) elements[last];
+            }
+
+            @Override
+            public void remove() {
+                checkMutable();
+
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+
+                removeAt(last);
+                next = last;
+                last = -1;
+                expectedSize = size;
+            }
+        };
+    }
+
+    private int indexOf(Object o) {
+        for (int i = 0; i < size; i++) {
+            if (o == null ? elements[i] == null : o.equals(elements[i])) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private void removeAt(int index) {
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        elements[--size] = null;
+    }
+
+    private void checkMutable() {
+        if (immutable) {
+            throw new UnsupportedOperationException("The set is immutable.");
+        }
+    }
+}
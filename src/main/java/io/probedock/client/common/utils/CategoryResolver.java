@@ -0,0 +1,546 @@
+package io.probedock.client.common.utils;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Resolve the category of a package from the patterns of the configuration (categoriesByPackage). The
+ * patterns are compiled once in a tree of package segments and the result is memoized for each package.
+ * <p/>
+ * The patterns are evaluated in the order of the configuration, the first one that matches wins. The
+ * segments of a pattern are separated by dots and support the following wildcards:
+ * <ul>
+ *     <li>{@code **} as a whole segment matches zero or more segments</li>
+ *     <li>{@code *} matches any characters inside a segment</li>
+ *     <li>{@code ?} matches one character inside a segment</li>
+ *     <li>{@code [...]} matches one of the characters inside a segment ({@code [!...]} to negate)</li>
+ *     <li>{@code {a,b}} and {@code {1..3}} are expanded to several patterns, they can span several segments. A
+ *     pattern is matched literally when it expands to more than {@value #MAX_EXPANDED_PATTERNS} patterns</li>
+ *     <li>{@code @(a|b)}, {@code ?(a|b)}, {@code *(a|b)}, {@code +(a|b)} and {@code !(a|b)} match exactly one,
+ *     at most one, any number, at least one and none of the alternatives inside a segment</li>
+ * </ul>
+ * The negated patterns ({@code !pattern}) and the comments of minimatch are not supported, a warning is
+ * logged and they are matched literally.
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class CategoryResolver {
+    private static final Logger LOGGER = Logger.getLogger(CategoryResolver.class.getCanonicalName());
+
+    private static final String GLOBSTAR = "**";
+
+    /**
+     * Numeric range of a brace expansion: {1..3}
+     */
+    private static final Pattern NUMERIC_RANGE = Pattern.compile("(-?\\d+)\\.\\.(-?\\d+)");
+
+    /**
+     * Characters introducing an extended glob when followed by a parenthesis
+     */
+    private static final String EXTGLOB_TYPES = "?*+@!";
+
+    /**
+     * Maximum number of patterns a pattern with braces can be expanded to
+     */
+    static final int MAX_EXPANDED_PATTERNS = 1000;
+
+    /**
+     * Maximum number of resolvers kept for the different patterns used
+     */
+    private static final int MAX_RESOLVERS = 8;
+
+    /**
+     * Memoized result for the packages without category
+     */
+    private static final Map.Entry<String, String> NO_MATCH = new AbstractMap.SimpleImmutableEntry<>(null, null);
+
+    /**
+     * Resolvers built for the last patterns used, by the patterns and categories in their order
+     */
+    private static final Map<List<Map.Entry<String, String>>, CategoryResolver> RESOLVERS = new LinkedHashMap<List<Map.Entry<String, String>>, CategoryResolver>(MAX_RESOLVERS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Map.Entry<String, String>>, CategoryResolver> eldest) {
+            return size() > MAX_RESOLVERS;
+        }
+    };
+
+    /**
+     * The patterns and categories in the order they are evaluated
+     */
+    private final List<Map.Entry<String, String>> entries;
+
+    private final Node root = new Node();
+
+    private final ConcurrentMap<String, Map.Entry<String, String>> resolved = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param categoriesByPackage The categories by package patterns, in the order they must be evaluated
+     */
+    public CategoryResolver(Map<String, String> categoriesByPackage) {
+        this(snapshot(categoriesByPackage));
+    }
+
+    private CategoryResolver(List<Map.Entry<String, String>> entries) {
+        this.entries = entries;
+
+        for (int i = 0; i < entries.size(); i++) {
+            Map.Entry<String, String> e = entries.get(i);
+
+            if (e.getKey().startsWith("!") && !e.getKey().startsWith("!(") || e.getKey().startsWith("#")) {
+                LOGGER.warning("The negated patterns and the comments are not supported, the package pattern " + e.getKey() + " is matched literally.");
+            }
+
+            // The patterns expanded from the braces share the index of the pattern configured
+            for (String pattern : expandBraces(e.getKey())) {
+                Node node = root;
+
+                for (String segment : pattern.split("\\.", -1)) {
+                    node = node.getOrCreateChild(segment);
+                }
+
+                // The first pattern wins when the same one is configured twice
+                if (node.index < 0) {
+                    node.index = i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Retrieve a resolver for the patterns. The resolvers are cached by the content of the map, in its order,
+     * so a map modified in place gets a new resolver and a few configurations used in turn keep theirs.
+     *
+     * @param categoriesByPackage The categories by package patterns
+     * @return The resolver
+     */
+    public static CategoryResolver forPatterns(Map<String, String> categoriesByPackage) {
+        List<Map.Entry<String, String>> entries = snapshot(categoriesByPackage);
+
+        synchronized (RESOLVERS) {
+            CategoryResolver resolver = RESOLVERS.get(entries);
+
+            if (resolver == null) {
+                resolver = new CategoryResolver(entries);
+                RESOLVERS.put(entries, resolver);
+            }
+
+            return resolver;
+        }
+    }
+
+    /**
+     * Copy the patterns and categories in their order
+     *
+     * @param categoriesByPackage The categories by package patterns, can be null
+     * @return The patterns and categories
+     */
+    private static List<Map.Entry<String, String>> snapshot(Map<String, String> categoriesByPackage) {
+        List<Map.Entry<String, String>> entries = new ArrayList<>();
+
+        if (categoriesByPackage != null) {
+            for (Map.Entry<String, String> e : categoriesByPackage.entrySet()) {
+                entries.add(new AbstractMap.SimpleImmutableEntry<>(e.getKey(), e.getValue()));
+            }
+        }
+
+        return entries;
+    }
+
+    /**
+     * Find the first pattern that matches the package
+     *
+     * @param pkg The package
+     * @return The entry with the pattern and the category, null if no pattern matches
+     */
+    public Map.Entry<String, String> match(String pkg) {
+        if (pkg == null || entries.isEmpty()) {
+            return null;
+        }
+
+        Map.Entry<String, String> entry = resolved.get(pkg);
+
+        if (entry == null) {
+            int index = root.match(pkg.split("\\.", -1), 0, Integer.MAX_VALUE);
+            entry = index < Integer.MAX_VALUE ? entries.get(index) : NO_MATCH;
+            resolved.putIfAbsent(pkg, entry);
+        }
+
+        return entry != NO_MATCH ? entry : null;
+    }
+
+    /**
+     * @param pkg The package
+     * @return The category of the first pattern that matches the package, null if no pattern matches
+     */
+    public String resolve(String pkg) {
+        Map.Entry<String, String> entry = match(pkg);
+        return entry != null ? entry.getValue() : null;
+    }
+
+    /**
+     * Expand the braces of a pattern
+     *
+     * @param pattern The pattern
+     * @return The patterns expanded, the pattern itself when it has no brace to expand or when it expands to
+     * too many patterns
+     */
+    static List<String> expandBraces(String pattern) {
+        List<String> expanded = new ArrayList<>();
+
+        if (!expandBraces(pattern, expanded)) {
+            LOGGER.warning("The package pattern " + pattern + " expands to more than " + MAX_EXPANDED_PATTERNS + " patterns, it is matched literally.");
+            expanded.clear();
+            expanded.add(pattern);
+        }
+
+        return expanded;
+    }
+
+    /**
+     * @return False when the expansion is stopped because of too many patterns
+     */
+    private static boolean expandBraces(String pattern, List<String> expanded) {
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+
+            if (c == '\\') {
+                i++;
+            }
+            else if (c == '{') {
+                int close = findClosing(pattern, i, '{', '}');
+
+                // Unbalanced braces are matched literally
+                if (close < 0) {
+                    break;
+                }
+
+                String prefix = pattern.substring(0, i);
+                String suffix = pattern.substring(close + 1);
+                List<String> alternatives = split(pattern, i + 1, close, ',');
+
+                if (alternatives.size() > 1) {
+                    for (String alternative : alternatives) {
+                        if (!expandBraces(prefix + alternative + suffix, expanded)) {
+                            return false;
+                        }
+                    }
+
+                    return true;
+                }
+
+                Matcher range = NUMERIC_RANGE.matcher(alternatives.get(0));
+
+                if (range.matches()) {
+                    // Bounds of more than 18 digits could overflow a long, they are too far apart anyway
+                    if (range.group(1).length() > 18 || range.group(2).length() > 18) {
+                        return false;
+                    }
+
+                    long from = Long.parseLong(range.group(1));
+                    long to = Long.parseLong(range.group(2));
+                    long step = from <= to ? 1 : -1;
+
+                    if (Math.abs(to - from) >= MAX_EXPANDED_PATTERNS) {
+                        return false;
+                    }
+
+                    for (long n = from; n != to + step; n += step) {
+                        if (!expandBraces(prefix + n + suffix, expanded)) {
+                            return false;
+                        }
+                    }
+
+                    return true;
+                }
+                else if (alternatives.get(0).contains("..")) {
+                    LOGGER.warning("Only the numeric ranges are supported in the braces, the package pattern " + pattern + " is matched literally.");
+                }
+            }
+        }
+
+        expanded.add(pattern);
+
+        return expanded.size() <= MAX_EXPANDED_PATTERNS;
+    }
+
+    /**
+     * Convert a segment with wildcards to a regular expression
+     *
+     * @param segment The segment
+     * @return The regular expression, null if the segment has no wildcard
+     */
+    private static Pattern compileSegment(String segment) {
+        StringBuilder regex = new StringBuilder();
+        return translate(segment, regex) ? Pattern.compile(regex.toString()) : null;
+    }
+
+    /**
+     * Translate a segment with wildcards to a regular expression
+     *
+     * @param segment The segment
+     * @param regex The regular expression to complete
+     * @return True if the segment has wildcards
+     */
+    private static boolean translate(String segment, StringBuilder regex) {
+        boolean wildcard = false;
+
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+
+            int close = EXTGLOB_TYPES.indexOf(c) >= 0 && i + 1 < segment.length() && segment.charAt(i + 1) == '(' ? findClosing(segment, i + 1, '(', ')') : -1;
+
+            if (close > 0) {
+                StringBuilder alternatives = new StringBuilder();
+
+                for (String alternative : split(segment, i + 2, close, '|')) {
+                    if (alternatives.length() > 0) {
+                        alternatives.append('|');
+                    }
+
+                    translate(alternative, alternatives);
+                }
+
+                if (c == '!') {
+                    // Anything but the alternatives followed by the rest of the segment
+                    StringBuilder rest = new StringBuilder();
+                    translate(segment.substring(close + 1), rest);
+                    regex.append("(?:(?!(?:").append(alternatives).append(')').append(rest).append("$).*?)");
+                }
+                else {
+                    regex.append("(?:").append(alternatives).append(')');
+
+                    if (c != '@') {
+                        regex.append(c);
+                    }
+                }
+
+                wildcard = true;
+                i = close;
+            }
+            else if (c == '*') {
+                regex.append(".*");
+                wildcard = true;
+
+                // Consecutive stars inside a segment behave like a single one
+                while (i + 1 < segment.length() && segment.charAt(i + 1) == '*') {
+                    i++;
+                }
+            }
+            else if (c == '?') {
+                regex.append('.');
+                wildcard = true;
+            }
+            else if (c == '[' && segment.indexOf(']', i + 2) > 0) {
+                int end = segment.indexOf(']', i + 2);
+                String chars = segment.substring(i + 1, end);
+
+                regex.append('[');
+                if (chars.charAt(0) == '!' || chars.charAt(0) == '^') {
+                    regex.append('^');
+                    chars = chars.substring(1);
+                }
+                regex.append(chars.replace("\\", "\\\\").replace("[", "\\[")).append(']');
+
+                wildcard = true;
+                i = end;
+            }
+            else if (c == '\\' && i + 1 < segment.length()) {
+                regex.append(Pattern.quote(String.valueOf(segment.charAt(++i))));
+                wildcard = true;
+            }
+            else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+
+        return wildcard;
+    }
+
+    /**
+     * Find the closing character of a group, the nested groups and the escaped characters are skipped
+     *
+     * @param text The text
+     * @param open The index of the opening character
+     * @param opening The opening character
+     * @param closing The closing character
+     * @return The index of the closing character, -1 if the group is not closed
+     */
+    private static int findClosing(String text, int open, char opening, char closing) {
+        int depth = 0;
+
+        for (int i = open; i < text.length(); i++) {
+            char c = text.charAt(i);
+
+            if (c == '\\') {
+                i++;
+            }
+            else if (c == opening) {
+                depth++;
+            }
+            else if (c == closing && --depth == 0) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Split a part of a text on a separator outside of the nested groups
+     *
+     * @param text The text
+     * @param from The start index, inclusive
+     * @param to The end index, exclusive
+     * @param separator The separator
+     * @return The parts of the text
+     */
+    private static List<String> split(String text, int from, int to, char separator) {
+        List<String> parts = new ArrayList<>();
+        int depth = 0;
+        int start = from;
+
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+
+            if (c == '\\') {
+                i++;
+            }
+            else if (c == '{' || c == '(') {
+                depth++;
+            }
+            else if (c == '}' || c == ')') {
+                depth--;
+            }
+            else if (c == separator && depth == 0) {
+                parts.add(text.substring(start, i));
+                start = i + 1;
+            }
+        }
+
+        parts.add(text.substring(start, to));
+
+        return parts;
+    }
+
+    /**
+     * Node of the tree of package segments
+     */
+    private static class Node {
+        /**
+         * Index of the pattern ending at this node, -1 if none
+         */
+        private int index = -1;
+
+        private Map<String, Node> literals;
+
+        private List<Node> wildcards;
+
+        private Pattern pattern;
+
+        private String segment;
+
+        private Node globstar;
+
+        private Node getOrCreateChild(String segment) {
+            if (GLOBSTAR.equals(segment)) {
+                if (globstar == null) {
+                    globstar = new Node();
+                }
+
+                return globstar;
+            }
+
+            Pattern compiled = compileSegment(segment);
+
+            if (compiled == null) {
+                if (literals == null) {
+                    literals = new HashMap<>();
+                }
+
+                Node child = literals.get(segment);
+                if (child == null) {
+                    child = new Node();
+                    literals.put(segment, child);
+                }
+
+                return child;
+            }
+
+            if (wildcards == null) {
+                wildcards = new ArrayList<>();
+            }
+
+            for (Node child : wildcards) {
+                if (child.segment.equals(segment)) {
+                    return child;
+                }
+            }
+
+            Node child = new Node();
+            child.segment = segment;
+            child.pattern = compiled;
+            wildcards.add(child);
+
+            return child;
+        }
+
+        /**
+         * Find the lowest index of the patterns matching the remaining segments
+         *
+         * @param segments The segments of the package
+         * @param position The first segment to match
+         * @param best The lowest index found so far
+         * @return The lowest index, the best given if no better pattern matches
+         */
+        private int match(String[] segments, int position, int best) {
+            if (position == segments.length) {
+                if (index >= 0 && index < best) {
+                    best = index;
+                }
+            }
+            else {
+                String segment = segments[position];
+
+                if (literals != null) {
+                    Node child = literals.get(segment);
+
+                    if (child != null) {
+                        best = child.match(segments, position + 1, best);
+                    }
+                }
+
+                if (wildcards != null) {
+                    for (Node child : wildcards) {
+                        if (child.pattern.matcher(segment).matches()) {
+                            best = child.match(segments, position + 1, best);
+                        }
+                    }
+                }
+            }
+
+            // The globstar consumes zero or more segments, but at least one when it ends the pattern (a.** does not match a)
+            if (globstar != null) {
+                for (int next = position; next <= segments.length; next++) {
+                    if (next == segments.length && next == position && position > 0) {
+                        continue;
+                    }
+
+                    best = globstar.match(segments, next, best);
+                }
+            }
+
+            return best;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package io.probedock.client.common.utils;
+
+import java.util.regex.Pattern;
+
+/**
+ * Fingerprint of the failure messages. The stack traces of the same failure differ by their line numbers, the
+ * names generated for the lambdas and the number of frames in common with the enclosing trace. They are removed
+ * before the message is fingerprinted, so the near-identical failures share the same fingerprint.
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public final class FailureFingerprint {
+    /**
+     * Line numbers of the stack trace elements: (Test.java:42)
+     */
+    private static final Pattern LINE_NUMBERS = Pattern.compile("\\(([^():\\s]+):\\d+\\)");
+
+    /**
+     * Classes generated for the lambdas: $$Lambda$12/1234567 or $$Lambda$12/0x0000000800c02a00
+     */
+    private static final Pattern LAMBDA_CLASSES = Pattern.compile("\\$\\$Lambda\\$\\d+(/(0x)?[0-9a-fA-F]+)?");
+
+    /**
+     * Methods generated for the lambdas: lambda$test$0
+     */
+    private static final Pattern LAMBDA_METHODS = Pattern.compile("lambda\\$([\\w$]*?)\\$\\d+");
+
+    /**
+     * Frames in common with the enclosing trace: ... 12 more
+     */
+    private static final Pattern COMMON_FRAMES = Pattern.compile("\\.\\.\\. \\d+ more");
+
+    /**
+     * Remove the parts of a failure message that differ between the occurrences of the same failure
+     *
+     * @param message The failure message
+     * @return The normalized message
+     */
+    public static String normalize(String message) {
+        String normalized = LINE_NUMBERS.matcher(message).replaceAll("($1)");
+        normalized = LAMBDA_CLASSES.matcher(normalized).replaceAll("\\$\\$Lambda\\$");
+        normalized = LAMBDA_METHODS.matcher(normalized).replaceAll("lambda\\$$1\\$");
+        return COMMON_FRAMES.matcher(normalized).replaceAll("... more");
+    }
+
+    /**
+     * Generate the fingerprint of a failure message
+     *
+     * @param message The failure message
+     * @return The fingerprint of the normalized message
+     */
+    public static String fingerprint(String message) {
+        return FingerprintGenerator.fingerprint(normalize(message));
+    }
+}
@@ -1,8 +1,11 @@
 package io.probedock.client.common.utils;
 
 import java.lang.reflect.Method;
+import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Logger;
 
 /**
@@ -13,6 +16,35 @@ import java.util.logging.Logger;
 public class FingerprintGenerator {
 	private static final Logger LOGGER = Logger.getLogger(FingerprintGenerator.class.getCanonicalName());
 
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	/**
+	 * Digest and buffers of each thread. The digest lookup and the buffers are paid once per thread instead
+	 * of once per fingerprint.
+	 */
+	private static final ThreadLocal<Digester> DIGESTERS = new ThreadLocal<Digester>() {
+		@Override
+		protected Digester initialValue() {
+			try {
+				return new Digester(MessageDigest.getInstance("SHA-1"));
+			}
+			catch (NoSuchAlgorithmException nsae) {
+				return null;
+			}
+		}
+	};
+
+	/**
+	 * Fingerprints of the test methods by class. The fingerprints are attached to the classes, they do not
+	 * prevent the class loaders of the tests from being unloaded.
+	 */
+	private static final ClassValue<ConcurrentMap<String, String>> FINGERPRINTS = new ClassValue<ConcurrentMap<String, String>>() {
+		@Override
+		protected ConcurrentMap<String, String> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+
 	/**
 	 * Generate a fingerprint for a given string
 	 *
@@ -20,14 +52,19 @@ public class FingerprintGenerator {
 	 * @return The fingerprint generated
 	 */
 	public static String fingerprint(String str) {
-		try {
-			MessageDigest md = MessageDigest.getInstance("SHA-1");
-			return byteArrayToHexString(md.digest(str.getBytes()));
-		}
-		catch (NoSuchAlgorithmException nsae) {
-			LOGGER.warning("Unable to calculate the fingerprint for string [" + str + "].");
-			return null;
+		Digester digester = DIGESTERS.get();
+
+		if (digester != null) {
+			try {
+				return digester.digest(str);
+			}
+			catch (DigestException de) {
+				// Fall through
+			}
 		}
+
+		LOGGER.warning("Unable to calculate the fingerprint for string [" + str + "].");
+		return null;
 	}
 
 	/**
@@ -42,29 +79,114 @@ public class FingerprintGenerator {
 	}
 
 	/**
-	 * Generate a fingerprint based on class and method name
+	 * Generate a fingerprint based on class and method name. The fingerprint is computed once per method.
 	 *
 	 * @param cl The class
 	 * @param methodName The method name
 	 * @return The fingerprint generated
 	 */
 	public static String fingerprint(Class cl, String methodName) {
-		return fingerprint(cl.getCanonicalName() + "." + methodName);
+		if (methodName == null) {
+			return fingerprint(cl.getCanonicalName() + "." + methodName);
+		}
+
+		ConcurrentMap<String, String> fingerprints = FINGERPRINTS.get(cl);
+
+		String fingerprint = fingerprints.get(methodName);
+
+		if (fingerprint == null) {
+			fingerprint = fingerprint(cl.getCanonicalName() + "." + methodName);
+
+			if (fingerprint != null) {
+				fingerprints.putIfAbsent(methodName, fingerprint);
+			}
+		}
+
+		return fingerprint;
 	}
 
 	/**
-	 * Convert a byte array to hexadecimal string
-	 * 
-	 * @param byteArray The byte array to convert
-	 * @return The hexadecimal string
+	 * SHA-1 digest with reusable buffers. The string is encoded in UTF-8 and the hash is converted in
+	 * hexadecimal without intermediate objects, only the resulting string is allocated. The long strings
+	 * like the failure messages are digested by chunks, so the buffer of each thread stays small.
 	 */
-	private static String byteArrayToHexString(byte[] byteArray) {
-		StringBuilder result = new StringBuilder();
-		
-		for (byte b : byteArray) {
-			result.append(Integer.toString((b & 0xff) + 0x100, 16).substring(1));
+	private static class Digester {
+		/**
+		 * Size of the chunks given to the digest
+		 */
+		private static final int CHUNK_SIZE = 2048;
+
+		private final MessageDigest digest;
+
+		private final byte[] input = new byte[CHUNK_SIZE];
+
+		private final byte[] hash;
+
+		private final char[] hex;
+
+		public Digester(MessageDigest digest) {
+			this.digest = digest;
+			this.hash = new byte[digest.getDigestLength()];
+			this.hex = new char[hash.length * 2];
+		}
+
+		public String digest(String str) throws DigestException {
+			encode(str);
+
+			digest.digest(hash, 0, hash.length);
+
+			for (int i = 0; i < hash.length; i++) {
+				hex[i * 2] = HEX_DIGITS[(hash[i] >> 4) & 0xf];
+				hex[i * 2 + 1] = HEX_DIGITS[hash[i] & 0xf];
+			}
+
+			return new String(hex);
+		}
+
+		/**
+		 * Encode the string in UTF-8 and give it to the digest one chunk at a time. The unpaired surrogates
+		 * are replaced by '?' like {@link String#getBytes(java.nio.charset.Charset)} does.
+		 *
+		 * @param str The string to encode
+		 */
+		private void encode(String str) {
+			int strLength = str.length();
+			int length = 0;
+
+			for (int i = 0; i < strLength; i++) {
+				// A code point takes at most four bytes
+				if (length > CHUNK_SIZE - 4) {
+					digest.update(input, 0, length);
+					length = 0;
+				}
+
+				char c = str.charAt(i);
+
+				if (c < 0x80) {
+					input[length++] = (byte) c;
+				}
+				else if (c < 0x800) {
+					input[length++] = (byte) (0xc0 | (c >> 6));
+					input[length++] = (byte) (0x80 | (c & 0x3f));
+				}
+				else if (Character.isHighSurrogate(c) && i + 1 < strLength && Character.isLowSurrogate(str.charAt(i + 1))) {
+					int codePoint = Character.toCodePoint(c, str.charAt(++i));
+					input[length++] = (byte) (0xf0 | (codePoint >> 18));
+					input[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+					input[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+					input[length++] = (byte) (0x80 | (codePoint & 0x3f));
+				}
+				else if (Character.isSurrogate(c)) {
+					input[length++] = '?';
+				}
+				else {
+					input[length++] = (byte) (0xe0 | (c >> 12));
+					input[length++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+					input[length++] = (byte) (0x80 | (c & 0x3f));
+				}
+			}
+
+			digest.update(input, 0, length);
 		}
-		
-		return result.toString();
 	}
 }
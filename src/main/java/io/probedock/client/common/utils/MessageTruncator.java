@@ -0,0 +1,217 @@
+package io.probedock.client.common.utils;
+
+/**
+ * Truncate the messages of the test results to a maximum number of UTF-8 bytes. The UTF-8 length is counted on
+ * the characters directly, no byte array is allocated, and the messages are only cut between two code points.
+ * <p/>
+ * The head of the message is kept by default. The head and tail mode also keeps the end of the message where the
+ * root cause of a stack trace is printed.
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public final class MessageTruncator {
+    /**
+     * The maximum number of bytes of a message accepted by Probe Dock
+     */
+    public static final int DEFAULT_MAX_BYTES = 50000;
+
+    /**
+     * Truncator of the messages to the maximum accepted by Probe Dock, the head of the messages is kept
+     */
+    public static final MessageTruncator DEFAULT = new MessageTruncator(DEFAULT_MAX_BYTES, Mode.HEAD);
+
+    /**
+     * Marker of the characters removed
+     */
+    private static final String ELLIPSIS = "...";
+
+    /**
+     * Part of the message kept
+     */
+    public enum Mode {
+        /**
+         * The beginning of the message is kept
+         */
+        HEAD,
+
+        /**
+         * The beginning and the end of the message are kept, half of the bytes each
+         */
+        HEAD_TAIL;
+
+        /**
+         * Retrieve the mode from its name
+         *
+         * @param name The name of the mode (head or headTail), case insensitive
+         * @return The mode found, {@link #HEAD} when the name is empty or unknown
+         */
+        public static Mode fromName(String name) {
+            if (name != null && ("headTail".equalsIgnoreCase(name) || HEAD_TAIL.name().equalsIgnoreCase(name))) {
+                return HEAD_TAIL;
+            }
+
+            return HEAD;
+        }
+    }
+
+    private final int maxBytes;
+    private final Mode mode;
+
+    /**
+     * Constructor
+     *
+     * @param maxBytes The maximum number of UTF-8 bytes of the messages truncated, the ellipsis included
+     * @param mode The part of the message kept
+     */
+    public MessageTruncator(int maxBytes, Mode mode) {
+        if (maxBytes < ELLIPSIS.length()) {
+            throw new IllegalArgumentException("The maximum number of bytes must be at least " + ELLIPSIS.length() + ".");
+        }
+
+        this.maxBytes = maxBytes;
+        this.mode = mode != null ? mode : Mode.HEAD;
+    }
+
+    public int getMaxBytes() {
+        return maxBytes;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Truncate a message when it is longer than the maximum number of bytes
+     *
+     * @param message The message
+     * @return The message itself when it is short enough, otherwise the message truncated with an ellipsis
+     */
+    public String truncate(String message) {
+        // A character takes at most three bytes, the surrogate pairs take four bytes for two characters
+        if (message == null || message.length() <= maxBytes / 3) {
+            return message;
+        }
+
+        int budget = maxBytes - ELLIPSIS.length();
+        int headBytes = mode == Mode.HEAD_TAIL ? budget / 2 : budget;
+
+        int headEnd = scan(message, headBytes, maxBytes);
+
+        if (headEnd < 0) {
+            return message;
+        }
+
+        int tailStart = mode == Mode.HEAD_TAIL ? tailStart(message, headEnd, budget - headBytes) : message.length();
+
+        // The characters are copied once in the array given to the string
+        char[] chars = new char[headEnd + ELLIPSIS.length() + message.length() - tailStart];
+        message.getChars(0, headEnd, chars, 0);
+        ELLIPSIS.getChars(0, ELLIPSIS.length(), chars, headEnd);
+        message.getChars(tailStart, message.length(), chars, headEnd + ELLIPSIS.length());
+
+        return new String(chars);
+    }
+
+    /**
+     * Count the UTF-8 bytes of a text without encoding it
+     *
+     * @param text The text
+     * @return The number of bytes
+     */
+    public static int utf8Length(CharSequence text) {
+        int bytes = 0;
+
+        for (int i = 0, length = text.length(); i < length; ) {
+            int count = charCount(text, i, length);
+            bytes += byteCount(text.charAt(i), count);
+            i += count;
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Walk the text once to find where to cut its head. The walk stops as soon as the text is too long.
+     *
+     * @param text The text
+     * @param headBytes The number of bytes of the head
+     * @param maxBytes The maximum number of bytes of the text
+     * @return The end index of the head, -1 when the text is not longer than the maximum
+     */
+    private static int scan(CharSequence text, int headBytes, int maxBytes) {
+        int headEnd = -1;
+        int bytes = 0;
+
+        for (int i = 0, length = text.length(); i < length; ) {
+            int count = charCount(text, i, length);
+            int size = byteCount(text.charAt(i), count);
+
+            if (headEnd < 0 && bytes + size > headBytes) {
+                headEnd = i;
+            }
+
+            bytes += size;
+
+            if (bytes > maxBytes) {
+                return headEnd;
+            }
+
+            i += count;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Walk the text backward to find where its tail starts
+     *
+     * @param text The text
+     * @param from The index before which the tail cannot start
+     * @param tailBytes The number of bytes of the tail
+     * @return The start index of the tail
+     */
+    private static int tailStart(CharSequence text, int from, int tailBytes) {
+        int bytes = 0;
+        int i = text.length();
+
+        while (i > from) {
+            char c = text.charAt(i - 1);
+            int count = Character.isLowSurrogate(c) && i - 2 >= from && Character.isHighSurrogate(text.charAt(i - 2)) ? 2 : 1;
+            int size = byteCount(c, count);
+
+            if (bytes + size > tailBytes) {
+                break;
+            }
+
+            bytes += size;
+            i -= count;
+        }
+
+        return i;
+    }
+
+    /**
+     * @return 2 for a surrogate pair, 1 otherwise
+     */
+    private static int charCount(CharSequence text, int index, int length) {
+        return Character.isHighSurrogate(text.charAt(index)) && index + 1 < length && Character.isLowSurrogate(text.charAt(index + 1)) ? 2 : 1;
+    }
+
+    /**
+     * @return The number of UTF-8 bytes of a code point, a lone surrogate is encoded as '?'
+     */
+    private static int byteCount(char c, int charCount) {
+        if (charCount == 2) {
+            return 4;
+        }
+        else if (c < 0x80 || Character.isSurrogate(c)) {
+            return 1;
+        }
+        else if (c < 0x800) {
+            return 2;
+        }
+        else {
+            return 3;
+        }
+    }
+}
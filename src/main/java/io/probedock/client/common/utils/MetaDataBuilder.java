@@ -23,7 +23,8 @@ public class MetaDataBuilder {
 	 * @return This
 	 */
 	public MetaDataBuilder add(String name, String value) {
-		data.put(name, value);
+		// The same values are repeated for many tests (package, class, file path, ...)
+		data.put(name, StringPool.DEFAULT.pool(value));
 		return this;
 	}
 
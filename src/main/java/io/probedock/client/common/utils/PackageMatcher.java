@@ -1,11 +1,10 @@
 package io.probedock.client.common.utils;
 
-import minimatch.Minimatch;
-
 import java.util.Map;
 
 /**
- * Match the package against kind of minimatch patterns.
+ * Match the package against kind of minimatch patterns. The matching is done by a {@link CategoryResolver}
+ * compiled for the patterns.
  *
  * @author Laurent Prevost laurent.prevost@probedock.io
  */
@@ -19,11 +18,7 @@ public class PackageMatcher {
      */
     public static Map.Entry<String, String> match(Map<String, String> categoriesByPackage, String pkg) {
         if (categoriesByPackage != null && pkg != null) {
-            for (Map.Entry<String, String> e : categoriesByPackage.entrySet()) {
-                if (Minimatch.minimatch(pkg.replaceAll("\\.", "/"), e.getKey().replaceAll("\\.", "/"))) {
-                    return e;
-                }
-            }
+            return CategoryResolver.forPatterns(categoriesByPackage).match(pkg);
         }
 
         return null;
@@ -0,0 +1,69 @@
+package io.probedock.client.common.utils;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Pool to share a single instance of the strings repeated in many test results (categories, tags, tickets,
+ * contributors, package and class names, file paths, ...).
+ * <p/>
+ * The pool is a fixed table of slots indexed by the hash of the strings, so its memory is bounded and it never
+ * blocks. A string replaces the one of its slot when they differ, the most recent strings are therefore kept.
+ * The long strings like the messages are rarely repeated and are not pooled.
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public final class StringPool {
+    /**
+     * Pool shared by the model and the serializers
+     */
+    public static final StringPool DEFAULT = new StringPool(8192, 256);
+
+    private final AtomicReferenceArray<String> slots;
+    private final int mask;
+    private final int maxLength;
+
+    /**
+     * Constructor
+     *
+     * @param capacity The number of slots, rounded up to a power of two
+     * @param maxLength The length of the longest string pooled
+     */
+    public StringPool(int capacity, int maxLength) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be positive.");
+        }
+
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Retrieve the pooled instance of a string
+     *
+     * @param value The string
+     * @return The instance of the pool equal to the string, the string itself when it is not pooled yet
+     */
+    public String pool(String value) {
+        if (value == null || value.length() > maxLength) {
+            return value;
+        }
+
+        int hash = value.hashCode();
+        int index = (hash ^ (hash >>> 16)) & mask;
+
+        String pooled = slots.get(index);
+
+        if (value.equals(pooled)) {
+            return pooled;
+        }
+
+        slots.lazySet(index, value);
+        return value;
+    }
+}
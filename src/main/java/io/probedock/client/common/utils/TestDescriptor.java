@@ -0,0 +1,409 @@
+package io.probedock.client.common.utils;
+
+import io.probedock.client.annotations.ProbeTest;
+import io.probedock.client.annotations.ProbeTestClass;
+import io.probedock.client.common.config.Configuration;
+import io.probedock.client.utils.CollectionHelper;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Immutable description of a test method built once from its annotations. The descriptors are cached
+ * with the test classes, so the annotations are read and the fingerprint and names are computed once per
+ * method. The data merged with the configuration are computed once per configuration.
+ * <p/>
+ * The names and the annotations come from the class declaring the method, the fingerprint is computed
+ * from the test class.
+ * <p/>
+ * When an {@link Index} generated at compile time is set, the fingerprint, names, key, category, tags, tickets
+ * and contributors of the methods indexed are taken from it, their annotations are not read. The data merged
+ * with the configuration are computed from the same values for the indexed methods and the other ones.
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public final class TestDescriptor {
+    private static final ClassValue<ConcurrentMap<String, TestDescriptor>> DESCRIPTORS = new ClassValue<ConcurrentMap<String, TestDescriptor>>() {
+        @Override
+        protected ConcurrentMap<String, TestDescriptor> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    /**
+     * Index of the test methods, null if none
+     */
+    private static volatile Index index;
+
+    private final String fingerprint;
+    private final String name;
+    private final String technicalName;
+    private final String packageName;
+    private final String className;
+    private final String methodName;
+    private final String key;
+    private final Boolean active;
+    private final boolean annotated;
+
+    /**
+     * Category of the method or class annotation, null if none
+     */
+    private final String category;
+
+    private final Set<String> tags;
+    private final Set<String> tickets;
+    private final Set<String> contributors;
+
+    /**
+     * Data merged with the last configuration used
+     */
+    private volatile Configured configured;
+
+    /**
+     * Category resolved with the last configuration and default category used
+     */
+    private volatile Categorized categorized;
+
+    /**
+     * Constructor
+     *
+     * @param testClass The test class
+     * @param declaringClass The class declaring the test method
+     * @param methodName The test method name
+     * @param method The test method, null if it cannot be found
+     */
+    private TestDescriptor(Class<?> testClass, Class<?> declaringClass, String methodName, Method method) {
+        this.technicalName = declaringClass.getCanonicalName() + "." + methodName;
+        this.packageName = declaringClass.getPackage() != null ? declaringClass.getPackage().getName() : null;
+        this.className = declaringClass.getSimpleName();
+        this.methodName = methodName;
+
+        // The index describes the methods of the classes declaring them, the inherited methods are not indexed
+        Index currentIndex = index;
+        IndexedTest indexed = currentIndex != null && testClass == declaringClass ? currentIndex.find(testClass.getName(), methodName) : null;
+
+        if (indexed != null) {
+            this.fingerprint = indexed.getFingerprint();
+            this.name = indexed.getName();
+            this.key = indexed.getKey();
+            this.active = indexed.isActive();
+            this.annotated = true;
+            this.category = indexed.getCategory();
+
+            this.tags = ArraySet.immutableOf(indexed.getTags());
+            this.tickets = ArraySet.immutableOf(indexed.getTickets());
+            this.contributors = ArraySet.immutableOf(indexed.getContributors());
+        }
+        else {
+            ProbeTest methodAnnotation = method != null ? method.getAnnotation(ProbeTest.class) : null;
+            ProbeTestClass classAnnotation = declaringClass.getAnnotation(ProbeTestClass.class);
+
+            this.fingerprint = FingerprintGenerator.fingerprint(testClass, methodName);
+            this.name = Inflector.forgeName(declaringClass, methodName, methodAnnotation);
+            this.key = TestResultDataUtils.getKey(methodAnnotation);
+            this.active = TestResultDataUtils.isActive(methodAnnotation);
+            this.annotated = methodAnnotation != null || classAnnotation != null;
+            this.category = getCategory(methodAnnotation, classAnnotation);
+
+            this.tags = ArraySet.immutableOf(CollectionHelper.getTags(null, methodAnnotation, classAnnotation));
+            this.tickets = ArraySet.immutableOf(CollectionHelper.getTickets(null, methodAnnotation, classAnnotation));
+            this.contributors = ArraySet.immutableOf(CollectionHelper.getContributors(null, methodAnnotation, classAnnotation));
+        }
+    }
+
+    /**
+     * Set the index of the test methods. It must be set before the descriptors of the tests are retrieved, the
+     * descriptors already built are kept.
+     *
+     * @param index The index, null to compute the data of the tests from their annotations only
+     */
+    public static void setIndex(Index index) {
+        TestDescriptor.index = index;
+    }
+
+    /**
+     * @return The index of the test methods, null if none is set
+     */
+    public static Index getIndex() {
+        return index;
+    }
+
+    /**
+     * Retrieve the descriptor of a test method
+     *
+     * @param testClass The test class
+     * @param method The test method
+     * @return The descriptor
+     */
+    public static TestDescriptor of(Class<?> testClass, Method method) {
+        ConcurrentMap<String, TestDescriptor> descriptors = DESCRIPTORS.get(testClass);
+
+        TestDescriptor descriptor = descriptors.get(method.getName());
+
+        if (descriptor == null) {
+            descriptor = new TestDescriptor(testClass, method.getDeclaringClass(), method.getName(), method);
+
+            TestDescriptor previous = descriptors.putIfAbsent(method.getName(), descriptor);
+            if (previous != null) {
+                descriptor = previous;
+            }
+        }
+
+        return descriptor;
+    }
+
+    /**
+     * Retrieve the descriptor of a test method. When the method cannot be found (i.e. it is not public), the
+     * descriptor is built without the method annotation.
+     *
+     * @param testClass The test class
+     * @param methodName The test method name
+     * @return The descriptor
+     */
+    public static TestDescriptor of(Class<?> testClass, String methodName) {
+        TestDescriptor descriptor = DESCRIPTORS.get(testClass).get(methodName);
+
+        if (descriptor != null) {
+            return descriptor;
+        }
+
+        try {
+            return of(testClass, testClass.getMethod(methodName));
+        }
+        catch (NoSuchMethodException | SecurityException e) {
+            descriptor = new TestDescriptor(testClass, testClass, methodName, null);
+
+            TestDescriptor previous = DESCRIPTORS.get(testClass).putIfAbsent(methodName, descriptor);
+            return previous != null ? previous : descriptor;
+        }
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * @return The name from the annotation or the human name forged from the class and method names
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The canonical name of the class followed by the method name
+     */
+    public String getTechnicalName() {
+        return technicalName;
+    }
+
+    public String getPackageName() {
+        return packageName;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    /**
+     * @return The key or null if there is no key
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return True/false if the the status is specified, otherwise null
+     */
+    public Boolean isActive() {
+        return active;
+    }
+
+    /**
+     * @return True if the method or the class is annotated
+     */
+    public boolean isAnnotated() {
+        return annotated;
+    }
+
+    /**
+     * @return The tags of the annotations
+     */
+    public Set<String> getTags() {
+        return tags;
+    }
+
+    /**
+     * @return The tickets of the annotations
+     */
+    public Set<String> getTickets() {
+        return tickets;
+    }
+
+    /**
+     * @return The contributors of the annotations
+     */
+    public Set<String> getContributors() {
+        return contributors;
+    }
+
+    /**
+     * @param configuration The configuration
+     * @return The tags of the configuration and the annotations
+     */
+    public Set<String> getTags(Configuration configuration) {
+        return getConfigured(configuration).tags;
+    }
+
+    /**
+     * @param configuration The configuration
+     * @return The tickets of the configuration and the annotations
+     */
+    public Set<String> getTickets(Configuration configuration) {
+        return getConfigured(configuration).tickets;
+    }
+
+    /**
+     * @param configuration The configuration
+     * @return The contributors of the configuration and the annotations
+     */
+    public Set<String> getContributors(Configuration configuration) {
+        return getConfigured(configuration).contributors;
+    }
+
+    /**
+     * Retrieve the category of the test
+     *
+     * @param configuration The configuration
+     * @param defaultCategory The default category if none is found
+     * @return The category
+     */
+    public String getCategory(Configuration configuration, String defaultCategory) {
+        Categorized current = categorized;
+
+        if (current == null || current.configuration != configuration || !equals(current.defaultCategory, defaultCategory)) {
+            current = new Categorized(configuration, defaultCategory,
+                category != null ? category : TestResultDataUtils.getCategory(packageName, configuration, null, null, defaultCategory));
+            categorized = current;
+        }
+
+        return current.category;
+    }
+
+    private Configured getConfigured(Configuration configuration) {
+        Configured current = configured;
+
+        if (current == null || current.configuration != configuration) {
+            current = new Configured(configuration);
+            configured = current;
+        }
+
+        return current;
+    }
+
+    /**
+     * @param methodAnnotation The method annotation, null if none
+     * @param classAnnotation The class annotation, null if none
+     * @return The category of the method annotation, then of the class annotation, null if none
+     */
+    private static String getCategory(ProbeTest methodAnnotation, ProbeTestClass classAnnotation) {
+        if (methodAnnotation != null && methodAnnotation.category() != null && !methodAnnotation.category().isEmpty()) {
+            return methodAnnotation.category();
+        }
+        else if (classAnnotation != null && classAnnotation.category() != null && !classAnnotation.category().isEmpty()) {
+            return classAnnotation.category();
+        }
+
+        return null;
+    }
+
+    private static boolean equals(String left, String right) {
+        return left == null ? right == null : left.equals(right);
+    }
+
+    @Override
+    public String toString() {
+        return "fingerprint: " + fingerprint + ", name: " + name + ", technicalName: " + technicalName + ", key: " + key;
+    }
+
+    /**
+     * Index of the test methods known before their classes are loaded
+     */
+    public interface Index {
+        /**
+         * @param className The binary name of the class declaring the method
+         * @param methodName The method name
+         * @return The data of the method, null if the method is not indexed
+         */
+        IndexedTest find(String className, String methodName);
+    }
+
+    /**
+     * Data of a test method read from its annotations at compile time
+     */
+    public interface IndexedTest {
+        String getFingerprint();
+
+        String getName();
+
+        String getTechnicalName();
+
+        String getKey();
+
+        /**
+         * @return The category of the method or class annotation, null if none
+         */
+        String getCategory();
+
+        Boolean isActive();
+
+        Set<String> getTags();
+
+        Set<String> getTickets();
+
+        Set<String> getContributors();
+    }
+
+    /**
+     * Data merged with a configuration. The values of the configuration are checked, the ones of the annotations
+     * or of the index already are.
+     */
+    private class Configured {
+        private final Configuration configuration;
+        private final Set<String> tags;
+        private final Set<String> tickets;
+        private final Set<String> contributors;
+
+        private Configured(Configuration configuration) {
+            this.configuration = configuration;
+            this.tags = merge(CollectionHelper.getTags(configuration.getTags(), null, null), TestDescriptor.this.tags);
+            this.tickets = merge(CollectionHelper.getTickets(configuration.getTickets(), null, null), TestDescriptor.this.tickets);
+            this.contributors = merge(CollectionHelper.getContributors(configuration.getContributors(), null, null), TestDescriptor.this.contributors);
+        }
+
+        private Set<String> merge(Set<String> configured, Set<String> values) {
+            configured.addAll(values);
+            return ArraySet.immutableOf(configured);
+        }
+    }
+
+    /**
+     * Category resolved with a configuration
+     */
+    private static class Categorized {
+        private final Configuration configuration;
+        private final String defaultCategory;
+        private final String category;
+
+        private Categorized(Configuration configuration, String defaultCategory, String category) {
+            this.configuration = configuration;
+            this.defaultCategory = defaultCategory;
+            this.category = category;
+        }
+    }
+}
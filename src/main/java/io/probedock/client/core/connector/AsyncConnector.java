@@ -0,0 +1,208 @@
+package io.probedock.client.core.connector;
+
+import io.probedock.client.common.config.Configuration;
+import io.probedock.client.common.model.ProbeTestRun;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Connector to send the payloads to Probe Dock in the background. The test runs are queued in a bounded
+ * queue and sent one after the other by a dedicated worker thread. When the queue is full, the test run
+ * is sent from the calling thread to apply back pressure.
+ * <p/>
+ * When the JVM exits, the pending test runs are sent until the drain timeout expires. The remaining ones
+ * are dropped to avoid blocking the JVM exit because of a slow server. A single shutdown hook drains all the
+ * connectors that are not shut down yet.
+ * <p/>
+ * The connector created from the configuration sends the test runs from the calling thread when the asynchronous
+ * publication is disabled ({@link Configuration#isAsyncEnabled()}), so the probes always create this connector.
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class AsyncConnector {
+	private static final Logger LOGGER = Logger.getLogger(AsyncConnector.class.getCanonicalName());
+
+	/**
+	 * The connectors to drain when the JVM exits
+	 */
+	private static final Set<AsyncConnector> OPENED = Collections.newSetFromMap(new ConcurrentHashMap<AsyncConnector, Boolean>());
+
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread("probedock-publisher-drain") {
+			@Override
+			public void run() {
+				for (AsyncConnector connector : OPENED) {
+					connector.drain(connector.drainTimeout);
+				}
+			}
+		});
+	}
+
+	private final Connector connector;
+
+	/**
+	 * The worker sending the test runs, null when the test runs are sent from the calling thread
+	 */
+	private final ThreadPoolExecutor executor;
+
+	private final long drainTimeout;
+
+	private volatile boolean shutdown;
+
+	/**
+	 * Constructor
+	 *
+	 * @param configuration Configuration
+	 */
+	public AsyncConnector(Configuration configuration) {
+		this(
+			new Connector(configuration),
+			configuration.isAsyncEnabled(),
+			configuration.getAsyncQueueSize(),
+			TimeUnit.SECONDS.toMillis(configuration.getAsyncDrainTimeout())
+		);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param connector The connector used to send the test runs
+	 * @param queueSize The maximum number of test runs waiting to be sent
+	 * @param drainTimeout The time in milliseconds given to send the pending test runs when the JVM exits
+	 */
+	public AsyncConnector(Connector connector, int queueSize, long drainTimeout) {
+		this(connector, true, queueSize, drainTimeout);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param connector The connector used to send the test runs
+	 * @param enabled True to send the test runs in the background, false to send them from the calling thread
+	 * @param queueSize The maximum number of test runs waiting to be sent
+	 * @param drainTimeout The time in milliseconds given to send the pending test runs when the JVM exits
+	 */
+	AsyncConnector(Connector connector, boolean enabled, int queueSize, long drainTimeout) {
+		if (queueSize <= 0) {
+			throw new IllegalArgumentException("The queue size must be positive.");
+		}
+
+		this.connector = connector;
+		this.drainTimeout = drainTimeout;
+
+		if (!enabled) {
+			executor = null;
+			return;
+		}
+
+		executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(queueSize), new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "probedock-publisher");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+		OPENED.add(this);
+	}
+
+	/**
+	 * @return True if the test runs are sent in the background
+	 */
+	public boolean isEnabled() {
+		return executor != null;
+	}
+
+	/**
+	 * Queue a payload to be sent to Probe Dock
+	 *
+	 * @param testRun The test run to send
+	 * @return The future result, true if the test run was successfully sent to Probe Dock
+	 * @throws IllegalStateException When the connector is already shut down
+	 */
+	public Future<Boolean> send(final ProbeTestRun testRun) {
+		Callable<Boolean> task = new Callable<Boolean>() {
+			@Override
+			public Boolean call() throws Exception {
+				return connector.send(testRun);
+			}
+		};
+
+		if (shutdown) {
+			throw new IllegalStateException("The asynchronous connector is already shut down.");
+		}
+
+		if (executor != null) {
+			try {
+				return executor.submit(task);
+			}
+			catch (RejectedExecutionException ree) {
+				if (executor.isShutdown()) {
+					throw new IllegalStateException("The asynchronous connector is already shut down.");
+				}
+
+				LOGGER.warning("The queue of test runs to send to Probe Dock is full, the test run is sent synchronously.");
+			}
+		}
+
+		FutureTask<Boolean> future = new FutureTask<>(task);
+		future.run();
+		return future;
+	}
+
+	/**
+	 * Stop accepting new test runs and wait for the pending ones to be sent until the drain timeout expires.
+	 *
+	 * @return True if all the pending test runs were processed
+	 */
+	public boolean shutdown() {
+		shutdown = true;
+
+		if (executor == null) {
+			return true;
+		}
+
+		OPENED.remove(this);
+
+		return drain(drainTimeout);
+	}
+
+	/**
+	 * Wait for the pending test runs to be sent and drop the remaining ones once the timeout expired.
+	 *
+	 * @param timeout The time to wait in milliseconds
+	 * @return True if all the pending test runs were processed
+	 */
+	private boolean drain(long timeout) {
+		executor.shutdown();
+
+		try {
+			if (executor.awaitTermination(timeout, TimeUnit.MILLISECONDS)) {
+				return true;
+			}
+		}
+		catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		}
+
+		List<Runnable> dropped = executor.shutdownNow();
+
+		LOGGER.log(Level.SEVERE, "Unable to send all the test runs to Probe Dock before the timeout of " + timeout + "ms, " + dropped.size() + " test run(s) dropped.");
+
+		return false;
+	}
+}
@@ -0,0 +1,403 @@
+package io.probedock.client.core.connector;
+
+import io.probedock.client.common.config.Configuration;
+import io.probedock.client.common.model.ProbeTestRun;
+import io.probedock.client.common.model.v1.TestReport;
+import io.probedock.client.common.model.v1.TestResult;
+import io.probedock.client.common.model.v1.TestRun;
+
+import java.net.MalformedURLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Publisher to send the test results by batches while the tests are still running. Each batch is sent as a
+ * partial test run that shares the same test report UID, so Probe Dock gathers them in the same report.
+ * <p/>
+ * A batch is published every N results or every T seconds, whichever comes first. The interval is checked by
+ * a timer, so the pending results are published even when no new result is added. The results are released
+ * once Probe Dock acknowledged them or once they are stored in the outbox. When a batch cannot be sent, its
+ * results are kept and published with the next batch. At most M results are kept while Probe Dock is
+ * unreachable, the oldest ones are dropped beyond it.
+ * <p/>
+ * The batches are sent by a background daemon thread, the tests that add their results are never blocked by
+ * a slow server. Only one batch is sent at a time, the results added meanwhile are published with the next
+ * batch. The remaining results are published by {@link #shutdown()} once the tests are done.
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class BatchPublisher {
+	private static final Logger LOGGER = Logger.getLogger(BatchPublisher.class.getCanonicalName());
+
+	/**
+	 * Number of batches kept by default while they cannot be published
+	 */
+	private static final int DEFAULT_MAX_PENDING_BATCHES = 10;
+
+	/**
+	 * Number of times the batch interval is checked during an interval
+	 */
+	private static final int INTERVAL_CHECKS = 10;
+
+	private final Connector connector;
+
+	private final TestRun testRun;
+
+	private final int batchSize;
+
+	private final long batchInterval;
+
+	private final int maxPending;
+
+	private final Lock publicationLock = new ReentrantLock();
+
+	/**
+	 * Background thread that publishes the batches
+	 */
+	private final ScheduledExecutorService executor;
+
+	/**
+	 * True while a publication is waiting for the background thread
+	 */
+	private final AtomicBoolean publicationScheduled = new AtomicBoolean();
+
+	private Deque<TestResult> pendingResults = new ArrayDeque<>();
+
+	private long lastPublication;
+
+	private int droppedCount;
+
+	/**
+	 * Constructor
+	 *
+	 * @param configuration Configuration
+	 * @param testRun The test run that provides the data shared by all the batches (context, probe, project, ...)
+	 */
+	public BatchPublisher(Configuration configuration, TestRun testRun) {
+		this(
+			new Connector(configuration),
+			testRun,
+			configuration.getBatchSize(),
+			TimeUnit.SECONDS.toMillis(configuration.getBatchInterval()),
+			configuration.getBatchMaxPending()
+		);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param connector The connector to send the batches
+	 * @param testRun The test run that provides the data shared by all the batches (context, probe, project, ...)
+	 * @param batchSize The number of results after which a batch is published
+	 * @param batchInterval The time in milliseconds after which a batch is published
+	 */
+	public BatchPublisher(Connector connector, TestRun testRun, int batchSize, long batchInterval) {
+		this(connector, testRun, batchSize, batchInterval, batchSize * DEFAULT_MAX_PENDING_BATCHES);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param connector The connector to send the batches
+	 * @param testRun The test run that provides the data shared by all the batches (context, probe, project, ...)
+	 * @param batchSize The number of results after which a batch is published
+	 * @param batchInterval The time in milliseconds after which a batch is published
+	 * @param maxPending The maximum number of results kept while the batches cannot be published
+	 */
+	public BatchPublisher(Connector connector, TestRun testRun, int batchSize, long batchInterval, int maxPending) {
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("The batch size must be positive.");
+		}
+
+		if (maxPending < batchSize) {
+			throw new IllegalArgumentException("The maximum number of pending results must be at least the batch size.");
+		}
+
+		this.connector = connector;
+		this.testRun = testRun;
+		this.batchSize = batchSize;
+		this.batchInterval = batchInterval;
+		this.maxPending = maxPending;
+		this.lastPublication = System.currentTimeMillis();
+
+		// All the batches must share the same report UID to end in the same report
+		if (testRun.getData() == null || testRun.getData().get(ProbeTestRun.PROBEDOCK_REPORT_UID) == null) {
+			String uid = UUID.randomUUID().toString();
+			testRun.getTestReports().add(new TestReport(uid));
+			testRun.addData(ProbeTestRun.PROBEDOCK_REPORT_UID, uid);
+		}
+
+		executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "probedock-batch-publisher");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+		// The interval is checked a few times per interval to publish the batches close to it
+		if (batchInterval > 0) {
+			long period = Math.max(batchInterval / INTERVAL_CHECKS, 1);
+
+			executor.scheduleWithFixedDelay(new Runnable() {
+				@Override
+				public void run() {
+					if (isIntervalReached()) {
+						schedulePublication();
+					}
+				}
+			}, period, period, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * @return The test report UID shared by all the batches
+	 */
+	public String getReportUid() {
+		return testRun.getData().get(ProbeTestRun.PROBEDOCK_REPORT_UID);
+	}
+
+	/**
+	 * Add a test result, the pending ones are published in the background when the batch size or interval is
+	 * reached. When another batch is being sent, the result is published with the next batch.
+	 *
+	 * @param testResult The test result to add
+	 * @throws MalformedURLException Never thrown anymore, the batches are published in the background
+	 */
+	public void add(TestResult testResult) throws MalformedURLException {
+		boolean ready;
+
+		synchronized (this) {
+			pendingResults.addLast(testResult);
+			dropOldestResults();
+			ready = pendingResults.size() >= batchSize || isIntervalReached();
+		}
+
+		if (ready) {
+			schedulePublication();
+		}
+	}
+
+	/**
+	 * Publish the pending test results from the calling thread, waits for the batch being sent if any
+	 *
+	 * @return True if there was nothing to publish or if the batch was successfully sent to Probe Dock, false if
+	 * the batch was stored in the outbox or kept for the next batch
+	 * @throws MalformedURLException When the Probe Dock URL is malformed
+	 */
+	public boolean publish() throws MalformedURLException {
+		publicationLock.lock();
+
+		try {
+			return publishPendingResults();
+		}
+		finally {
+			publicationLock.unlock();
+		}
+	}
+
+	/**
+	 * Stop the background publication and publish the remaining test results from the calling thread
+	 *
+	 * @return True if there was nothing to publish or if the last batch was successfully sent to Probe Dock
+	 * @throws MalformedURLException When the Probe Dock URL is malformed
+	 */
+	public boolean shutdown() throws MalformedURLException {
+		executor.shutdown();
+
+		try {
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		}
+		catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		}
+
+		return publish();
+	}
+
+	/**
+	 * Wait for the publications scheduled until now to be done
+	 *
+	 * @throws InterruptedException When the current thread is interrupted
+	 */
+	void awaitPublications() throws InterruptedException {
+		try {
+			executor.submit(new Runnable() {
+				@Override
+				public void run() {}
+			}).get();
+		}
+		catch (ExecutionException ee) {
+			throw new IllegalStateException(ee.getCause());
+		}
+	}
+
+	/**
+	 * Ask the background thread to publish the pending results, unless a publication is already waiting for it
+	 */
+	private void schedulePublication() {
+		if (executor.isShutdown() || !publicationScheduled.compareAndSet(false, true)) {
+			return;
+		}
+
+		Runnable publication = new Runnable() {
+			@Override
+			public void run() {
+				// The results added from now on need another publication
+				publicationScheduled.set(false);
+
+				if (!publicationLock.tryLock()) {
+					return;
+				}
+
+				try {
+					publishPendingResults();
+				}
+				catch (MalformedURLException | RuntimeException e) {
+					LOGGER.log(Level.SEVERE, "Unable to publish the batch of test results.", e);
+				}
+				finally {
+					publicationLock.unlock();
+				}
+			}
+		};
+
+		try {
+			executor.execute(publication);
+		}
+		catch (RejectedExecutionException ree) {
+			// The publisher is shut down meanwhile, the remaining results are published by the shutdown
+			publicationScheduled.set(false);
+		}
+	}
+
+	private synchronized boolean isIntervalReached() {
+		return System.currentTimeMillis() - lastPublication >= batchInterval;
+	}
+
+	/**
+	 * @return The number of test results waiting to be published
+	 */
+	public synchronized int getPendingCount() {
+		return pendingResults.size();
+	}
+
+	/**
+	 * Send the pending test results as a batch, the caller must hold the publication lock
+	 *
+	 * @return True if there was nothing to publish or if the batch was successfully sent to Probe Dock, false if
+	 * the batch was stored in the outbox or kept for the next batch
+	 * @throws MalformedURLException When the Probe Dock URL is malformed
+	 */
+	private boolean publishPendingResults() throws MalformedURLException {
+		List<TestResult> results;
+
+		synchronized (this) {
+			lastPublication = System.currentTimeMillis();
+
+			if (pendingResults.isEmpty()) {
+				return true;
+			}
+
+			// The results added while the batch is sent go to the next batch
+			results = new ArrayList<>(pendingResults);
+			pendingResults = new ArrayDeque<>();
+		}
+
+		Delivery delivery = Delivery.FAILED;
+
+		try {
+			delivery = connector.deliver(createBatch(results));
+		}
+		finally {
+			// The results stored in the outbox are published when it is replayed
+			if (delivery == Delivery.FAILED) {
+				restore(results);
+			}
+		}
+
+		return delivery == Delivery.SENT;
+	}
+
+	/**
+	 * Put back the results of a batch that cannot be sent before the results added meanwhile
+	 *
+	 * @param results The results of the batch
+	 */
+	private synchronized void restore(List<TestResult> results) {
+		Deque<TestResult> restored = new ArrayDeque<>(results);
+		restored.addAll(pendingResults);
+		pendingResults = restored;
+
+		LOGGER.warning("Unable to publish the batch of " + results.size() + " test results, they will be published with the next batch.");
+
+		dropOldestResults();
+	}
+
+	/**
+	 * Drop the oldest results beyond the maximum number of pending results, the caller must hold the lock
+	 */
+	private void dropOldestResults() {
+		if (pendingResults.size() <= maxPending) {
+			return;
+		}
+
+		int count = pendingResults.size() - maxPending;
+
+		for (int i = 0; i < count; i++) {
+			pendingResults.removeFirst();
+		}
+
+		// Warn once, then every time another batch worth of results is dropped
+		if (droppedCount == 0 || droppedCount / batchSize != (droppedCount + count) / batchSize) {
+			LOGGER.warning("Probe Dock is unreachable and more than " + maxPending + " test results are waiting to be published, " + (droppedCount + count) + " test results dropped so far.");
+		}
+
+		droppedCount += count;
+	}
+
+	/**
+	 * @return The number of test results dropped because too many were waiting to be published
+	 */
+	public synchronized int getDroppedCount() {
+		return droppedCount;
+	}
+
+	/**
+	 * Create a partial test run with the given results
+	 *
+	 * @param results The results of the batch
+	 * @return The batch created
+	 */
+	private TestRun createBatch(List<TestResult> results) {
+		TestRun batch = new TestRun();
+
+		batch.setContext(testRun.getContext());
+		batch.setProbe(testRun.getProbe());
+		batch.setProjectId(testRun.getProjectId());
+		batch.setVersion(testRun.getVersion());
+		batch.setPipeline(testRun.getPipeline());
+		batch.setStage(testRun.getStage());
+		batch.setDuration(testRun.getDuration());
+		batch.getTestReports().addAll(testRun.getTestReports());
+		batch.addData(testRun.getData());
+		batch.addTestResults(results);
+
+		return batch;
+	}
+}
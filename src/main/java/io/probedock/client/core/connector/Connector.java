@@ -3,9 +3,11 @@ package io.probedock.client.core.connector;
 import io.probedock.client.common.config.Configuration;
 import io.probedock.client.common.config.ServerConfiguration;
 import io.probedock.client.common.model.ProbeTestRun;
+import io.probedock.client.common.model.v1.TestRun;
 import io.probedock.client.common.utils.Constants;
 import io.probedock.client.core.serializer.ProbeSerializer;
 import io.probedock.client.core.serializer.json.JsonSerializer;
+import io.probedock.client.core.storage.Outbox;
 
 import java.io.*;
 import java.net.*;
@@ -26,10 +28,17 @@ public class Connector {
 	private static final int CONNECTION_TIMEOUT = 10000;
 	private static final int CONNECTION_READ_TIMEOUT = 60000;
 
+	/**
+	 * Size of the chunks when the payload is streamed to Probe Dock
+	 */
+	private static final int CHUNK_SIZE = 8192;
+
 	private Configuration configuration;
 
 	private ProbeSerializer serializer;
 
+	private RetryPolicy retryPolicy;
+
 	/**
 	 * Constructor
 	 *
@@ -38,6 +47,16 @@ public class Connector {
 	public Connector(Configuration configuration) {
 		this.configuration = configuration;
 		this.serializer = new JsonSerializer();
+
+		// The connectors to the same server share their retry budget
+		ServerConfiguration server = configuration.getServerConfiguration();
+
+		this.retryPolicy = new RetryPolicy(
+			configuration.getRetryMaxAttempts(),
+			configuration.getRetryInitialDelay(),
+			configuration.getRetryMaxDelay(),
+			RetryBudget.getInstance(server != null ? server.getApiUrl() : null, configuration.getRetryBudget())
+		);
 	}
 
 	/**
@@ -48,17 +67,117 @@ public class Connector {
 	 * @throws MalformedURLException
 	 */
 	public boolean send(ProbeTestRun testRun) throws MalformedURLException {
+		return deliver(testRun) == Delivery.SENT;
+	}
+
+	/**
+	 * Send a payload to Probe Dock, the test run is stored in the outbox when it cannot be sent and the outbox
+	 * is enabled. The caller must not send a test run stored in the outbox again.
+	 *
+	 * @param testRun The test run to send
+	 * @return The outcome of the delivery
+	 * @throws MalformedURLException
+	 */
+	public Delivery deliver(ProbeTestRun testRun) throws MalformedURLException {
 		LOGGER.info("Connected to Probe Dock API at " + configuration.getServerConfiguration().getApiUrl());
 
+		// Probe Dock must support the failures stored in the test run, the results of the caller are not modified
+		ProbeTestRun payload = testRun;
+		if (configuration.isPayloadDeduplicateFailures() && testRun instanceof TestRun) {
+			payload = ((TestRun) testRun).withDeduplicatedFailures();
+		}
+
 		// Print the payload to the outout stream
 		if (configuration.isPayloadPrint()) {
-			try (OutputStreamWriter testRunOsw = new OutputStreamWriter(System.out)) {
-				serializer.serializePayload(testRunOsw, testRun, true);
+			try {
+				// The serializer closes the stream once done, the standard output must stay open
+				serializer.serializePayload(new FilterOutputStream(System.out) {
+					@Override
+					public void write(byte[] b, int off, int len) throws IOException {
+						out.write(b, off, len);
+					}
+
+					@Override
+					public void close() throws IOException {
+						flush();
+					}
+				}, payload, true);
 			}
 			catch (IOException ioe) {}
 		}
 
-		return sendTestRun(testRun);
+		if (sendTestRun(payload)) {
+			return Delivery.SENT;
+		}
+
+		// Keep the test run to replay it later
+		if (configuration.isPayloadOutbox()) {
+			try {
+				String entry = getOutbox().add(payload);
+				LOGGER.warning("The test run was stored in the outbox (" + entry + ") to be sent later.");
+				return Delivery.STORED;
+			}
+			catch (IOException ioe) {
+				LOGGER.log(Level.SEVERE, "Unable to store the test run in the outbox.", ioe);
+			}
+		}
+
+		return Delivery.FAILED;
+	}
+
+	/**
+	 * Send the test runs kept in the outbox of the server to Probe Dock, the oldest first. An entry is removed
+	 * once Probe Dock accepted it, the replay stops at the first test run that cannot be sent and keeps it in
+	 * place. Nothing is sent when another replay of the outbox is running.
+	 *
+	 * @param <T> The type of test run
+	 * @param clazz The class of the test runs stored in the outbox
+	 * @return The number of test runs successfully sent
+	 * @throws MalformedURLException
+	 */
+	public <T extends ProbeTestRun> int replayOutbox(Class<T> clazz) throws MalformedURLException {
+		final Outbox outbox = getOutbox();
+
+		int sent = 0;
+
+		try (Closeable lock = outbox.lockReplay()) {
+			if (lock == null) {
+				LOGGER.info("The outbox is already replayed by another process.");
+				return 0;
+			}
+
+			for (String entry : outbox.getEntries(clazz)) {
+				T testRun = outbox.peek(entry, clazz);
+
+				// Removed meanwhile or unreadable
+				if (testRun == null) {
+					continue;
+				}
+
+				if (!sendTestRun(testRun)) {
+					break;
+				}
+
+				outbox.remove(entry, clazz);
+				sent++;
+			}
+		}
+		catch (IOException ioe) {
+			LOGGER.log(Level.SEVERE, "Unable to replay the outbox.", ioe);
+		}
+
+		if (sent > 0) {
+			LOGGER.info(sent + " test run(s) from the outbox successfully sent to Probe Dock.");
+		}
+
+		return sent;
+	}
+
+	/**
+	 * @return The outbox of the server configured
+	 */
+	private Outbox getOutbox() {
+		return new Outbox(configuration, configuration.getServerConfiguration());
 	}
 
 	/**
@@ -79,36 +198,76 @@ public class Connector {
 
 		HttpURLConnection conn = null;
 
+		PayloadCompression compression = PayloadCompression.fromName(configuration.getPayloadCompression());
+
+		int attempt = 1;
+
 		try {
-			try {
-				conn = uploadTestRun(testRun);
-			}
-			catch (SocketTimeoutException ste) {
-				LOGGER.log(Level.SEVERE, "Unable to send the results to the server due to a timeout exception", ste);
-				throw ste;
-			}
+			while (true) {
+				try {
+					conn = uploadTestRun(testRun, compression);
+				}
+				catch (SocketTimeoutException | ConnectException ce) {
+					// The connection could not be established, nothing was received by the server
+					if (waitBeforeRetry(attempt, null)) {
+						LOGGER.warning("Unable to connect to Probe Dock (" + ce.getMessage() + "), attempt " + attempt + " failed.");
+						attempt++;
+						continue;
+					}
 
-			try {
-				if (conn.getResponseCode() == 202) {
+					LOGGER.log(Level.SEVERE, "Unable to send the results to the server due to a connection failure", ce);
+					throw ce;
+				}
+
+				int responseCode;
+
+				try {
+					responseCode = conn.getResponseCode();
+				}
+				catch (SocketTimeoutException ste) {
+					// The server may have received the test run, retrying could publish it twice
+					LOGGER.log(Level.SEVERE, "Unable to read the response from the server du to a timeout exception", ste);
+					throw ste;
+				}
+
+				if (responseCode == 202) {
 					LOGGER.info("The test run was successfully sent to Probe Dock.");
+					retryPolicy.onSuccess();
 					return true;
-				} else {
-					LOGGER.severe("Unable to send the test run to Probe Dock. Return code: " + conn.getResponseCode() + ", content: " + readInputStream(conn.getInputStream()));
 				}
-			}
-			catch (SocketTimeoutException ste) {
-				LOGGER.log(Level.SEVERE, "Unable to read the response from the server du to a timeout exception", ste);
-				throw ste;
+				else if (compression != PayloadCompression.NONE && responseCode == 415) {
+					// The server does not accept the compressed payload, fallback on an uncompressed one
+					LOGGER.warning("Probe Dock rejected the " + compression.getContentEncoding() + " payload, the test run will be sent uncompressed.");
+					conn.disconnect();
+					compression = PayloadCompression.NONE;
+				}
+				else if (retryPolicy.isRetryable(responseCode) && waitBeforeRetry(attempt, conn.getHeaderField("Retry-After"))) {
+					LOGGER.warning("Probe Dock is not able to process the test run (return code: " + responseCode + "), attempt " + attempt + " failed.");
+					conn.disconnect();
+					attempt++;
+				}
+				else {
+					LOGGER.severe("Unable to send the test run to Probe Dock. Return code: " + responseCode + ", content: " + readInputStream(conn.getInputStream()));
+					break;
+				}
 			}
 		}
 		catch (IOException ioe) {
 			if (!configuration.isPayloadPrint()) {
-				try (OutputStreamWriter baos = new OutputStreamWriter(new ByteArrayOutputStream(), Charset.forName(Constants.ENCODING).newEncoder())) {
-					serializer.serializePayload(baos, testRun, true);
+				// No need to dump the payload when it is kept in the outbox
+				if (!configuration.isPayloadOutbox()) {
+					ByteArrayOutputStream baos = new ByteArrayOutputStream();
 
-					LOGGER.severe("The test run in error: " + baos.toString());
+					try {
+						serializer.serializePayload(baos, testRun, true);
+					}
+					catch (IOException baosIoe) {}
+
+					try {
+						LOGGER.severe("The test run in error: " + baos.toString(Constants.ENCODING));
+					}
+					catch (UnsupportedEncodingException uee) {}
 				}
-				catch (IOException baosIoe) {}
 
 				if (conn != null) {
 					try {
@@ -129,21 +288,63 @@ public class Connector {
 		return false;
 	}
 
-	private HttpURLConnection uploadTestRun(final ProbeTestRun testRun) throws IOException {
+	/**
+	 * Wait before the next attempt to send the test run if the retry policy allows it
+	 *
+	 * @param attempt The number of the attempt that failed
+	 * @param retryAfter The Retry-After header sent by the server, null if none
+	 * @return True if the test run must be sent again
+	 */
+	private boolean waitBeforeRetry(int attempt, String retryAfter) {
+		long delay = retryPolicy.getRetryDelay(attempt, retryAfter);
+
+		if (delay < 0) {
+			return false;
+		}
+
+		try {
+			Thread.sleep(delay);
+			return true;
+		}
+		catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * Upload the test run to Probe Dock
+	 *
+	 * @param testRun The test run to upload
+	 * @param compression The compression to apply to the payload
+	 * @return The connection to read the response from
+	 * @throws IOException In case of error when sending the payload
+	 */
+	private HttpURLConnection uploadTestRun(final ProbeTestRun testRun, final PayloadCompression compression) throws IOException {
 		final HttpURLConnection conn = openConnection(configuration.getServerConfiguration(), getTestRunUrl());
 
 		conn.setRequestMethod("POST");
 		conn.setRequestProperty("Content-Type", CONTENT_TYPE + "; charset=" + Constants.ENCODING);
 		conn.setRequestProperty("Authorization", "Bearer " + configuration.getServerConfiguration().getApiToken());
 
+		if (compression.getContentEncoding() != null) {
+			conn.setRequestProperty("Content-Encoding", compression.getContentEncoding());
+		}
+
 		conn.setConnectTimeout(CONNECTION_TIMEOUT);
 		conn.setReadTimeout(CONNECTION_READ_TIMEOUT);
 		conn.setDoOutput(true);
 		conn.setDoInput(true);
 
-		// Create an output stream writer in specific encoding
-		final OutputStreamWriter osw = new OutputStreamWriter(conn.getOutputStream(), Charset.forName(Constants.ENCODING).newEncoder());
-		serializer.serializePayload(osw, testRun, false);
+		// Stream the payload instead of letting the connection buffer it entirely to compute the content length
+		if (configuration.isPayloadChunked()) {
+			conn.setChunkedStreamingMode(CHUNK_SIZE);
+		}
+
+		// The serializer writes the payload in UTF-8 directly
+		try (OutputStream os = compression.wrap(conn.getOutputStream())) {
+			serializer.serializePayload(os, testRun, false);
+		}
 
 		return conn;
 	}
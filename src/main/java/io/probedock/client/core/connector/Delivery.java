@@ -0,0 +1,23 @@
+package io.probedock.client.core.connector;
+
+/**
+ * Outcome of the delivery of a test run to Probe Dock
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public enum Delivery {
+	/**
+	 * The test run was sent to Probe Dock
+	 */
+	SENT,
+
+	/**
+	 * The test run could not be sent and was stored in the outbox to be sent later
+	 */
+	STORED,
+
+	/**
+	 * The test run could not be sent
+	 */
+	FAILED
+}
@@ -0,0 +1,107 @@
+package io.probedock.client.core.connector;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.logging.Logger;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compression applied on the fly to the payload sent to Probe Dock
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public enum PayloadCompression {
+	/**
+	 * The payload is sent as is
+	 */
+	NONE(null) {
+		@Override
+		public OutputStream wrap(OutputStream os) {
+			return os;
+		}
+	},
+
+	/**
+	 * The payload is compressed with gzip
+	 */
+	GZIP("gzip") {
+		@Override
+		public OutputStream wrap(OutputStream os) throws IOException {
+			return new GZIPOutputStream(os, BUFFER_SIZE);
+		}
+	},
+
+	/**
+	 * The payload is compressed with deflate (zlib format)
+	 */
+	DEFLATE("deflate") {
+		@Override
+		public OutputStream wrap(OutputStream os) {
+			final Deflater deflater = new Deflater();
+
+			// The deflater given to the stream is not released by the stream itself
+			return new DeflaterOutputStream(os, deflater, BUFFER_SIZE) {
+				@Override
+				public void close() throws IOException {
+					try {
+						super.close();
+					}
+					finally {
+						deflater.end();
+					}
+				}
+			};
+		}
+	};
+
+	private static final Logger LOGGER = Logger.getLogger(PayloadCompression.class.getCanonicalName());
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private final String contentEncoding;
+
+	PayloadCompression(String contentEncoding) {
+		this.contentEncoding = contentEncoding;
+	}
+
+	/**
+	 * @return The value of the Content-Encoding header, null when the payload is not compressed
+	 */
+	public String getContentEncoding() {
+		return contentEncoding;
+	}
+
+	/**
+	 * Wrap the output stream to compress the data written to it. Closing the stream returned
+	 * finishes the compression and closes the wrapped stream.
+	 *
+	 * @param os The output stream to wrap
+	 * @return The output stream to write the payload
+	 * @throws IOException When the compression stream cannot be created
+	 */
+	public abstract OutputStream wrap(OutputStream os) throws IOException;
+
+	/**
+	 * Retrieve the compression from its name
+	 *
+	 * @param name The name of the compression (none, gzip or deflate), case insensitive
+	 * @return The compression found, {@link #NONE} when the name is empty or unknown
+	 */
+	public static PayloadCompression fromName(String name) {
+		if (name == null || name.isEmpty()) {
+			return NONE;
+		}
+
+		for (PayloadCompression compression : values()) {
+			if (compression.name().equalsIgnoreCase(name)) {
+				return compression;
+			}
+		}
+
+		LOGGER.warning("The payload compression " + name + " is unknown, the payload will not be compressed.");
+
+		return NONE;
+	}
+}
@@ -0,0 +1,99 @@
+package io.probedock.client.core.connector;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Budget shared by the publications of the JVM to the same server to limit the number of retries. Each retry
+ * consumes a token and each successful publication gives back a fraction of a token. After an outage, the budget
+ * is quickly exhausted so the clients stop hammering the server, and it refills as the publications succeed again.
+ * <p/>
+ * The budget only coordinates the connectors of a JVM. The JVMs of different CI jobs do not share any budget,
+ * their retries are only spread by the jitter of the {@link RetryPolicy}.
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class RetryBudget {
+	/**
+	 * Fraction of token given back for each successful publication
+	 */
+	private static final double DEFAULT_TOKEN_RATIO = 0.1;
+
+	/**
+	 * Budgets shared by the connectors, by server and maximum number of tokens. The budgets are never removed,
+	 * the map holds one small budget per server and budget configured in the JVM, a handful at most.
+	 */
+	private static final ConcurrentMap<String, RetryBudget> INSTANCES = new ConcurrentHashMap<>();
+
+	private final double maxTokens;
+
+	private final double tokenRatio;
+
+	private double tokens;
+
+	/**
+	 * Constructor
+	 *
+	 * @param maxTokens The maximum number of retries available at once
+	 * @param tokenRatio The fraction of token given back for each successful publication
+	 */
+	public RetryBudget(int maxTokens, double tokenRatio) {
+		if (maxTokens < 0) {
+			throw new IllegalArgumentException("The maximum number of tokens cannot be negative.");
+		}
+
+		this.maxTokens = maxTokens;
+		this.tokenRatio = tokenRatio;
+		this.tokens = maxTokens;
+	}
+
+	/**
+	 * @param server The server where the test runs are published
+	 * @param maxTokens The maximum number of retries available at once
+	 * @return The budget shared by the connectors of the JVM configured with the same server and budget
+	 */
+	public static RetryBudget getInstance(String server, int maxTokens) {
+		String key = server + "#" + maxTokens;
+
+		RetryBudget budget = INSTANCES.get(key);
+
+		if (budget == null) {
+			RetryBudget created = new RetryBudget(maxTokens, DEFAULT_TOKEN_RATIO);
+			budget = INSTANCES.putIfAbsent(key, created);
+
+			if (budget == null) {
+				budget = created;
+			}
+		}
+
+		return budget;
+	}
+
+	/**
+	 * Try to consume a token to retry a publication
+	 *
+	 * @return True if a retry is allowed
+	 */
+	public synchronized boolean tryAcquire() {
+		if (tokens >= 1) {
+			tokens--;
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Give back a fraction of token after a successful publication
+	 */
+	public synchronized void onSuccess() {
+		tokens = Math.min(maxTokens, tokens + tokenRatio);
+	}
+
+	/**
+	 * @return The number of retries currently available
+	 */
+	public synchronized int getAvailable() {
+		return (int) tokens;
+	}
+}
@@ -0,0 +1,137 @@
+package io.probedock.client.core.connector;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.logging.Logger;
+
+/**
+ * Policy to decide if and when a failed publication must be retried. Only the connection failures and the
+ * responses 429 and 5xx are retried. The delay between two attempts grows exponentially up to a maximum and
+ * is randomized (full jitter) to spread the retries of the clients. The Retry-After header sent by the server
+ * takes precedence over the computed delay, capped to the maximum delay.
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class RetryPolicy {
+	private static final Logger LOGGER = Logger.getLogger(RetryPolicy.class.getCanonicalName());
+
+	/**
+	 * HTTP date format used in the Retry-After header
+	 */
+	private static final String HTTP_DATE_FORMAT = "EEE, dd MMM yyyy HH:mm:ss zzz";
+
+	private final int maxAttempts;
+
+	private final long initialDelay;
+
+	private final long maxDelay;
+
+	private final RetryBudget budget;
+
+	private final Random random = new Random();
+
+	/**
+	 * Constructor
+	 *
+	 * @param maxAttempts The maximum number of attempts, including the first one
+	 * @param initialDelay The maximum delay in milliseconds before the first retry
+	 * @param maxDelay The maximum delay in milliseconds between two attempts
+	 * @param budget The budget that limits the retries
+	 */
+	public RetryPolicy(int maxAttempts, long initialDelay, long maxDelay, RetryBudget budget) {
+		if (maxAttempts < 1) {
+			throw new IllegalArgumentException("The maximum number of attempts must be at least 1.");
+		}
+
+		this.maxAttempts = maxAttempts;
+		this.initialDelay = initialDelay;
+		this.maxDelay = maxDelay;
+		this.budget = budget;
+	}
+
+	/**
+	 * Check if a response code denotes a transient failure
+	 *
+	 * @param responseCode The HTTP response code
+	 * @return True for 429 Too Many Requests and the server errors, false otherwise
+	 */
+	public boolean isRetryable(int responseCode) {
+		return responseCode == 429 || responseCode >= 500;
+	}
+
+	/**
+	 * Compute the delay to wait before the next attempt
+	 *
+	 * @param attempt The number of the attempt that just failed, starting at 1
+	 * @param retryAfter The value of the Retry-After header, null if none
+	 * @return The delay in milliseconds, -1 if the publication must not be retried
+	 */
+	public long getRetryDelay(int attempt, String retryAfter) {
+		if (attempt >= maxAttempts) {
+			return -1;
+		}
+
+		Long serverDelay = parseRetryAfter(retryAfter);
+
+		// The tests must not wait longer than the maximum delay, even when the server asks for more
+		if (serverDelay != null && serverDelay > maxDelay) {
+			LOGGER.warning("Probe Dock asked to retry in " + serverDelay + "ms which is above the maximum delay of " + maxDelay + "ms, the maximum delay is used.");
+			serverDelay = maxDelay;
+		}
+
+		if (!budget.tryAcquire()) {
+			LOGGER.warning("The retry budget is exhausted, the publication will not be retried.");
+			return -1;
+		}
+
+		if (serverDelay != null) {
+			return serverDelay;
+		}
+
+		// Capped exponential backoff with full jitter
+		long ceiling = initialDelay << Math.min(attempt - 1, 30);
+		if (ceiling <= 0 || ceiling > maxDelay) {
+			ceiling = maxDelay;
+		}
+
+		return (long) (random.nextDouble() * ceiling);
+	}
+
+	/**
+	 * Notify the policy that a publication succeeded
+	 */
+	public void onSuccess() {
+		budget.onSuccess();
+	}
+
+	/**
+	 * Parse the Retry-After header which can be either a number of seconds or an HTTP date
+	 *
+	 * @param retryAfter The header value
+	 * @return The delay in milliseconds, null if the header is missing or invalid
+	 */
+	static Long parseRetryAfter(String retryAfter) {
+		if (retryAfter == null || retryAfter.trim().isEmpty()) {
+			return null;
+		}
+
+		try {
+			return Math.max(0, Long.parseLong(retryAfter.trim())) * 1000;
+		}
+		catch (NumberFormatException nfe) {
+			SimpleDateFormat format = new SimpleDateFormat(HTTP_DATE_FORMAT, Locale.US);
+			format.setTimeZone(TimeZone.getTimeZone("GMT"));
+
+			try {
+				return Math.max(0, format.parse(retryAfter.trim()).getTime() - System.currentTimeMillis());
+			}
+			catch (ParseException pe) {
+				LOGGER.warning("Unable to parse the Retry-After header: " + retryAfter);
+				return null;
+			}
+		}
+	}
+}
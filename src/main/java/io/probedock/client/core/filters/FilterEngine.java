@@ -0,0 +1,200 @@
+package io.probedock.client.core.filters;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Filters compiled once to be applied on many tests. The types of the filters are resolved when the engine
+ * is compiled, the tags and tickets are matched exactly through sets and the texts to look for in the keys,
+ * fingerprints and names are matched in a single pass whatever the number of filters.
+ * <p/>
+ * A test is runnable when there is no filter or when at least one of the filters matches it.
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class FilterEngine {
+    private static final Logger LOGGER = Logger.getLogger(FilterEngine.class.getCanonicalName());
+
+    /**
+     * Types and texts of the filters compiled
+     */
+    private final List<String[]> definitions;
+
+    /**
+     * The list and the filters compiled, to recognize them without comparing their texts
+     */
+    private final List<FilterDefinition> source;
+    private final FilterDefinition[] sourceFilters;
+
+    private final boolean empty;
+
+    private final Set<String> tags = new HashSet<>();
+    private final Set<String> tickets = new HashSet<>();
+
+    private final SubstringMatcher keyMatcher;
+    private final SubstringMatcher fingerprintMatcher;
+    private final SubstringMatcher nameMatcher;
+
+    /**
+     * Constructor
+     *
+     * @param filters The filters to compile
+     */
+    private FilterEngine(List<FilterDefinition> filters) {
+        definitions = new ArrayList<>();
+        source = filters;
+        sourceFilters = filters != null ? filters.toArray(new FilterDefinition[filters.size()]) : new FilterDefinition[0];
+
+        Set<String> keys = new HashSet<>();
+        Set<String> fingerprints = new HashSet<>();
+        Set<String> names = new HashSet<>();
+
+        if (filters != null) {
+            for (FilterDefinition filterDefinition : filters) {
+                String type = filterDefinition.getType();
+                String text = filterDefinition.getText();
+
+                definitions.add(new String[] { type, text });
+
+                if (text == null) {
+                    continue;
+                }
+
+                if (type == null || type.isEmpty() || "*".equals(type)) {
+                    keys.add(text);
+                    fingerprints.add(text);
+                    names.add(text);
+                    tags.add(text);
+                    tickets.add(text);
+                }
+                else if ("key".equalsIgnoreCase(type)) {
+                    keys.add(text);
+                }
+                else if ("fp".equalsIgnoreCase(type)) {
+                    fingerprints.add(text);
+                }
+                else if ("name".equalsIgnoreCase(type)) {
+                    names.add(text);
+                }
+                else if ("tag".equalsIgnoreCase(type)) {
+                    tags.add(text);
+                }
+                else if ("ticket".equalsIgnoreCase(type)) {
+                    tickets.add(text);
+                }
+                else {
+                    LOGGER.warning("Unknown filter type " + type + ", the filter " + filterDefinition + " is ignored.");
+                }
+            }
+        }
+
+        empty = definitions.isEmpty();
+
+        keyMatcher = new SubstringMatcher(keys);
+        fingerprintMatcher = new SubstringMatcher(fingerprints);
+        nameMatcher = new SubstringMatcher(names);
+    }
+
+    /**
+     * Compile the filters
+     *
+     * @param filters The filters to compile, null or empty to let every test run
+     * @return The engine to apply the filters
+     */
+    public static FilterEngine compile(List<FilterDefinition> filters) {
+        return new FilterEngine(filters);
+    }
+
+    /**
+     * Define if a test is runnable based on the object that represents the test meta data
+     *
+     * @param targetData The meta data
+     * @return True if the test can be run
+     */
+    public boolean isRunnable(FilterTargetData targetData) {
+        return isRunnable(
+            targetData.getFingerprint(),
+            targetData.getTechnicalName(),
+            targetData.getName(),
+            targetData.getKey(),
+            targetData.getTags(),
+            targetData.getTickets()
+        );
+    }
+
+    /**
+     * Define if a test is runnable based on its data
+     *
+     * @param fingerprint The fingerprint
+     * @param technicalName The technical name
+     * @param name The name
+     * @param key The key, null or empty if none
+     * @param tags The tags
+     * @param tickets The tickets
+     * @return True if the test can be run
+     */
+    public boolean isRunnable(String fingerprint, String technicalName, String name, String key, Set<String> tags, Set<String> tickets) {
+        if (empty) {
+            return true;
+        }
+
+        return
+            keyMatcher.matches(key == null || key.isEmpty() ? technicalName : key) ||
+            fingerprintMatcher.matches(fingerprint) ||
+            nameMatcher.matches(name) ||
+            nameMatcher.matches(technicalName) ||
+            (tags != null && !Collections.disjoint(this.tags, tags)) ||
+            (tickets != null && !Collections.disjoint(this.tickets, tickets));
+    }
+
+    /**
+     * @param filters The filters to compare
+     * @return True if the engine was compiled from the same filters
+     */
+    boolean isCompiledFrom(List<FilterDefinition> filters) {
+        if (filters == null || filters.isEmpty()) {
+            return empty;
+        }
+
+        if (filters.size() != definitions.size()) {
+            return false;
+        }
+
+        // The same filters are usually given again, only their references are compared
+        if (filters == source && isSameFilters(filters)) {
+            return true;
+        }
+
+        for (int i = 0; i < definitions.size(); i++) {
+            FilterDefinition filterDefinition = filters.get(i);
+
+            if (!equals(definitions.get(i)[0], filterDefinition.getType()) || !equals(definitions.get(i)[1], filterDefinition.getText())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @param filters The list the engine was compiled from
+     * @return True if the list still holds the same filter instances
+     */
+    private boolean isSameFilters(List<FilterDefinition> filters) {
+        for (int i = 0; i < sourceFilters.length; i++) {
+            if (filters.get(i) != sourceFilters[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean equals(String left, String right) {
+        return left == null ? right == null : left.equals(right);
+    }
+}
@@ -3,11 +3,13 @@ package io.probedock.client.core.filters;
 import io.probedock.client.annotations.ProbeTest;
 import io.probedock.client.annotations.ProbeTestClass;
 import io.probedock.client.common.utils.Inflector;
+import io.probedock.client.common.utils.TestDescriptor;
 
 import java.lang.reflect.Method;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * Data structure to apply the filtering
@@ -15,8 +17,8 @@ import java.util.List;
  * @author Laurent Prevost laurent.prevost@probedock.io
  */
 public class FilterTargetData {
-    private final String tags;
-    private final String tickets;
+    private final Set<String> tags;
+    private final Set<String> tickets;
     private final String name;
     private final String technicalName;
     private final String key;
@@ -35,14 +37,42 @@ public class FilterTargetData {
      * @param cAnnotation Class annotation
      */
     public FilterTargetData(String fingerprint, Method m, ProbeTest mAnnotation, ProbeTestClass cAnnotation) {
-        this.tags = mergeTags(mAnnotation, cAnnotation);
-        this.tickets = mergeTickets(mAnnotation, cAnnotation);
+        this.tags = merge(mAnnotation != null ? mAnnotation.tags() : null, cAnnotation != null ? cAnnotation.tags() : null);
+        this.tickets = merge(mAnnotation != null ? mAnnotation.tickets() : null, cAnnotation != null ? cAnnotation.tickets() : null);
         this.name = Inflector.forgeName(m.getDeclaringClass(), m.getName(), mAnnotation);
         this.technicalName = m.getDeclaringClass().getCanonicalName() + "." + m.getName();
         this.key = mAnnotation != null ? mAnnotation.key() : "";
         this.fingerprint = fingerprint;
     }
 
+    /**
+     * Constructor
+     *
+     * @param descriptor The descriptor of the test
+     */
+    public FilterTargetData(TestDescriptor descriptor) {
+        this.tags = descriptor.getTags();
+        this.tickets = descriptor.getTickets();
+        this.name = descriptor.getName();
+        this.technicalName = descriptor.getTechnicalName();
+        this.key = descriptor.getKey() != null ? descriptor.getKey() : "";
+        this.fingerprint = descriptor.getFingerprint();
+    }
+
+    /**
+     * Constructor
+     *
+     * @param indexed The data of the test indexed at compile time
+     */
+    public FilterTargetData(TestDescriptor.IndexedTest indexed) {
+        this.tags = indexed.getTags();
+        this.tickets = indexed.getTickets();
+        this.name = indexed.getName();
+        this.technicalName = indexed.getTechnicalName();
+        this.key = indexed.getKey() != null ? indexed.getKey() : "";
+        this.fingerprint = indexed.getFingerprint();
+    }
+
     /**
      * Constructor for cases where tags, tickets, key are not present (no annotations)
      *
@@ -50,8 +80,8 @@ public class FilterTargetData {
      * @param m The method
      */
     public FilterTargetData(String fingerprint, Method m) {
-        this.tags = "[]";
-        this.tickets = "[]";
+        this.tags = Collections.emptySet();
+        this.tickets = Collections.emptySet();
         this.name = Inflector.forgeName(m.getDeclaringClass(), m.getName(), null);
         this.technicalName = m.getDeclaringClass().getCanonicalName() + "." + m.getName();
         this.key = "";
@@ -62,88 +92,39 @@ public class FilterTargetData {
      * Constructor
      *
      * @param fingerprint The fingerprint of the test
-     * @param tags Tags
-     * @param tickets Tickets
+     * @param tags Tags, either a single tag or a list like "[a, b]"
+     * @param tickets Tickets, either a single ticket or a list like "[a, b]"
      * @param technicalName Technical name
      * @param name Name
      * @param key Key
      */
     public FilterTargetData(String fingerprint, String tags, String tickets, String technicalName, String name, String key) {
-        this.tags = tags;
-        this.tickets = tickets;
+        this.tags = parse(tags);
+        this.tickets = parse(tickets);
         this.name = name;
         this.technicalName = technicalName;
-        this.key = key;
+        this.key = key != null ? key : "";
         this.fingerprint = fingerprint;
     }
 
-    /**
-     * Match any condition
-     *
-     * @param lookupAny Filter text
-     * @return True if match, false otherwise
-     */
-    boolean anyMatch(String lookupAny) {
-        return
-            keyMatch(lookupAny) ||
-            fingerpringMatch(lookupAny) ||
-            nameMatch(lookupAny) ||
-            tagMatch(lookupAny) ||
-            ticketMatch(lookupAny);
-    }
-
-    /**
-     * Match key condition
-     *
-     * @param lookupKey Filter text
-     * @return True if match, false otherwise
-     */
-    boolean keyMatch(String lookupKey) {
-        if (key.isEmpty()) {
-            return technicalName.contains(lookupKey);
-        } else {
-            return key.contains(lookupKey);
-        }
+    public Set<String> getTags() {
+        return tags;
     }
 
-    /**
-     * Match fingerprint condition
-     *
-     * @param fingerprint The fingerprint to match
-     * @return True if match, false otherwise
-     */
-    boolean fingerpringMatch(String fingerprint) {
-        return this.fingerprint.contains(fingerprint);
+    public Set<String> getTickets() {
+        return tickets;
     }
 
-    /**
-     * Match name condition
-     *
-     * @param lookupName Filter text
-     * @return True if match, false otherwise
-     */
-    boolean nameMatch(String lookupName) {
-        return name.contains(lookupName) || technicalName.contains(lookupName);
+    public String getName() {
+        return name;
     }
 
-    /**
-     * Match tag condition
-     *
-     * @param lookupTag Filter text
-     * @return True if match, false otherwise
-     */
-    boolean tagMatch(String lookupTag) {
-        return tags.contains(lookupTag);
+    public String getTechnicalName() {
+        return technicalName;
     }
 
-    /**
-     * Match ticket condition
-     *
-     * @param lookupTicket Filter text
-     * @return True if match, false otherwise
-     */
-    boolean ticketMatch(String lookupTicket) {
-        return tickets.contains(lookupTicket);
+    public String getFingerprint() {
+        return fingerprint;
     }
 
     @Override
@@ -158,44 +139,50 @@ public class FilterTargetData {
     }
 
     /**
-     * Create a string containing all the tags from method and class annotations
+     * Merge the values from method and class annotations
      *
-     * @param mAnnotation Method annotation
-     * @param cAnnotation Class annotation
-     * @return The string of tags
+     * @param methodValues Values of the method annotation
+     * @param classValues Values of the class annotation
+     * @return The values merged
      */
-    private static String mergeTags(ProbeTest mAnnotation, ProbeTestClass cAnnotation) {
-        List<String> tags = new ArrayList<>();
+    private static Set<String> merge(String[] methodValues, String[] classValues) {
+        Set<String> values = new HashSet<>();
 
-        if (mAnnotation != null) {
-            tags.addAll(Arrays.asList(mAnnotation.tags()));
+        if (methodValues != null) {
+            values.addAll(Arrays.asList(methodValues));
         }
 
-        if (cAnnotation != null) {
-            tags.addAll(Arrays.asList(cAnnotation.tags()));
+        if (classValues != null) {
+            values.addAll(Arrays.asList(classValues));
         }
 
-        return Arrays.toString(tags.toArray(new String[tags.size()]));
+        return values;
     }
 
     /**
-     * Create a string containing all the tickets from method and class annotations
+     * Parse a list of values rendered like {@link Arrays#toString(Object[])}
      *
-     * @param mAnnotation Method annotation
-     * @param cAnnotation Class annotation
-     * @return The string of tickets
+     * @param values The values to parse
+     * @return The values parsed
      */
-    private static String mergeTickets(ProbeTest mAnnotation, ProbeTestClass cAnnotation) {
-        List<String> tickets = new ArrayList<>();
+    private static Set<String> parse(String values) {
+        Set<String> result = new HashSet<>();
+
+        if (values == null) {
+            return result;
+        }
 
-        if (mAnnotation != null) {
-            tickets.addAll(Arrays.asList(mAnnotation.tickets()));
+        String trimmed = values.trim();
+        if (trimmed.startsWith("[") && trimmed.endsWith("]")) {
+            trimmed = trimmed.substring(1, trimmed.length() - 1);
         }
 
-        if (cAnnotation != null) {
-            tickets.addAll(Arrays.asList(cAnnotation.tickets()));
+        for (String value : trimmed.split(",")) {
+            if (!value.trim().isEmpty()) {
+                result.add(value.trim());
+            }
         }
 
-        return Arrays.toString(tickets.toArray(new String[tickets.size()]));
+        return result;
     }
-}
\ No newline at end of file
+}
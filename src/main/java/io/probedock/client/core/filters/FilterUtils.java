@@ -1,12 +1,9 @@
 package io.probedock.client.core.filters;
 
-import io.probedock.client.annotations.ProbeTest;
-import io.probedock.client.annotations.ProbeTestClass;
-import io.probedock.client.common.utils.FingerprintGenerator;
+import io.probedock.client.common.utils.TestDescriptor;
 
 import java.lang.reflect.Method;
 import java.util.List;
-import java.util.logging.Filter;
 
 /**
  * Filter utility
@@ -14,6 +11,11 @@ import java.util.logging.Filter;
  * @author Laurent Prevost laurent.prevost@probedock.io
  */
 public class FilterUtils {
+    /**
+     * Engine compiled for the last filters applied
+     */
+    private static volatile FilterEngine lastEngine;
+
     /**
      * Define if a test is runnable or not based on a method name and class
      *
@@ -22,8 +24,18 @@ public class FilterUtils {
      * @param filters The filters to apply
      * @return True if the test can be run
      */
-    @SuppressWarnings("unchecked")
-    public static boolean isRunnable(Class cl, String methodName, List<FilterDefinition> filters) {
+    public static boolean isRunnable(Class<?> cl, String methodName, List<FilterDefinition> filters) {
+        if (filters == null || filters.isEmpty()) {
+            return true;
+        }
+
+        // The indexed tests are filtered without reflection
+        TestDescriptor.IndexedTest indexed = findIndexed(cl, methodName);
+
+        if (indexed != null) {
+            return isRunnable(new FilterTargetData(indexed), filters);
+        }
+
         try {
             Method method = cl.getMethod(methodName);
 
@@ -41,19 +53,29 @@ public class FilterUtils {
      * @param filters The filters to apply
      * @return True if the test can be run
      */
-    @SuppressWarnings("unchecked")
-    public static boolean isRunnable(Class cl, Method method, List<FilterDefinition> filters) {
-        // Get the ROX annotations
-        ProbeTest mAnnotation = method.getAnnotation(ProbeTest.class);
-        ProbeTestClass cAnnotation = method.getDeclaringClass().getAnnotation(ProbeTestClass.class);
-
-        String fingerprint = FingerprintGenerator.fingerprint(cl, method);
-
-        if (mAnnotation != null || cAnnotation != null) {
-            return isRunnable(new FilterTargetData(fingerprint, method, mAnnotation, cAnnotation), filters);
-        } else {
-            return isRunnable(new FilterTargetData(fingerprint, method), filters);
+    public static boolean isRunnable(Class<?> cl, Method method, List<FilterDefinition> filters) {
+        if (filters == null || filters.isEmpty()) {
+            return true;
+        }
+
+        TestDescriptor.IndexedTest indexed = method.getDeclaringClass() == cl ? findIndexed(cl, method.getName()) : null;
+
+        if (indexed != null) {
+            return isRunnable(new FilterTargetData(indexed), filters);
         }
+
+        return isRunnable(TestDescriptor.of(cl, method), filters);
+    }
+
+    /**
+     * Define if a test is runnable or not based on its descriptor
+     *
+     * @param descriptor The test descriptor
+     * @param filters The filters to apply
+     * @return True if the test can be run
+     */
+    public static boolean isRunnable(TestDescriptor descriptor, List<FilterDefinition> filters) {
+        return isRunnable(new FilterTargetData(descriptor), filters);
     }
 
     /**
@@ -84,27 +106,37 @@ public class FilterUtils {
             return true;
         }
 
-        for (FilterDefinition filterDefinition : filters) {
-            String type = filterDefinition.getType();
-            String text = filterDefinition.getText();
-
-            if (type == null || type.isEmpty()) {
-                type = "*";
-            }
-
-            // We must evaluate all the filters and return only when there is a valid match
-            if (
-                (type.equalsIgnoreCase("*") && targetData.anyMatch(text)) || // Any filter
-                    ("key".equalsIgnoreCase(type) && targetData.keyMatch(text)) || // Key filter
-                    ("fp".equalsIgnoreCase(type) && targetData.fingerpringMatch(text)) || // Fingerprint filter
-                    ("name".equalsIgnoreCase(type) && targetData.nameMatch(text)) || // Name filter
-                    ("tag".equalsIgnoreCase(type) && targetData.tagMatch(text)) || // Tag filter
-                    ("ticket".equalsIgnoreCase(type) && targetData.ticketMatch(text)) // Ticket filter
-                ) {
-                return true;
-            }
+        return getEngine(filters).isRunnable(targetData);
+    }
+
+    /**
+     * Find the data of a test method in the index installed by the probe with {@code TestIndex.install}
+     *
+     * @param cl The class declaring the method
+     * @param methodName The method name
+     * @return The data of the method, null if no index is installed or if the method is not indexed
+     */
+    private static TestDescriptor.IndexedTest findIndexed(Class<?> cl, String methodName) {
+        TestDescriptor.Index index = TestDescriptor.getIndex();
+
+        return index != null ? index.find(cl.getName(), methodName) : null;
+    }
+
+    /**
+     * Retrieve the engine compiled for the filters. The same filters are usually applied to all the tests,
+     * the engine is compiled again only when they change.
+     *
+     * @param filters The filters
+     * @return The engine compiled for the filters
+     */
+    private static FilterEngine getEngine(List<FilterDefinition> filters) {
+        FilterEngine engine = lastEngine;
+
+        if (engine == null || !engine.isCompiledFrom(filters)) {
+            engine = FilterEngine.compile(filters);
+            lastEngine = engine;
         }
 
-        return false;
+        return engine;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,173 @@
+package io.probedock.client.core.filters;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * Aho-Corasick automaton to check if a text contains at least one of many patterns in a single pass
+ * over the text, whatever the number of patterns.
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+class SubstringMatcher {
+    private final Node root;
+
+    /**
+     * True if there is no pattern to match
+     */
+    private final boolean empty;
+
+    /**
+     * Constructor
+     *
+     * @param patterns The patterns to look for
+     */
+    SubstringMatcher(Collection<String> patterns) {
+        root = new Node();
+        empty = patterns.isEmpty();
+
+        for (String pattern : patterns) {
+            Node node = root;
+
+            for (int i = 0; i < pattern.length(); i++) {
+                node = node.getOrCreateChild(pattern.charAt(i));
+            }
+
+            node.output = true;
+        }
+
+        link();
+    }
+
+    /**
+     * @param text The text to search in
+     * @return True if the text contains at least one of the patterns
+     */
+    boolean matches(String text) {
+        if (empty || text == null) {
+            return false;
+        }
+
+        // The empty pattern matches any text
+        if (root.output) {
+            return true;
+        }
+
+        Node node = root;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+
+            Node next = node.getChild(c);
+            while (next == null && node != root) {
+                node = node.fail;
+                next = node.getChild(c);
+            }
+
+            node = next != null ? next : root;
+
+            if (node.output) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Compute the failure links breadth first and freeze the transitions
+     */
+    private void link() {
+        Queue<Node> queue = new LinkedList<>();
+
+        root.fail = root;
+        for (Node child : root.freeze()) {
+            child.fail = root;
+            child.freeze();
+            queue.add(child);
+        }
+
+        while (!queue.isEmpty()) {
+            Node node = queue.remove();
+
+            for (int i = 0; i < node.keys.length; i++) {
+                char c = node.keys[i];
+                Node child = node.children[i];
+
+                Node fail = node.fail;
+                while (fail != root && fail.getChild(c) == null) {
+                    fail = fail.fail;
+                }
+
+                Node failChild = fail.getChild(c);
+                child.fail = failChild != null && failChild != child ? failChild : root;
+                child.output |= child.fail.output;
+
+                child.freeze();
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * State of the automaton
+     */
+    private static class Node {
+        private Map<Character, Node> building = new TreeMap<>();
+
+        private char[] keys;
+
+        private Node[] children;
+
+        private Node fail;
+
+        private boolean output;
+
+        private Node getOrCreateChild(char c) {
+            Node child = building.get(c);
+
+            if (child == null) {
+                child = new Node();
+                building.put(c, child);
+            }
+
+            return child;
+        }
+
+        private Node getChild(char c) {
+            if (keys == null) {
+                return building.get(c);
+            }
+
+            int index = Arrays.binarySearch(keys, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        /**
+         * Replace the map used to build the automaton by sorted arrays
+         *
+         * @return The children
+         */
+        private List<Node> freeze() {
+            keys = new char[building.size()];
+            children = new Node[building.size()];
+
+            int i = 0;
+            for (Map.Entry<Character, Node> e : building.entrySet()) {
+                keys[i] = e.getKey();
+                children[i++] = e.getValue();
+            }
+
+            List<Node> result = new ArrayList<>(building.values());
+            building = null;
+
+            return result;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package io.probedock.client.core.index;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal reader of the class file format to get the runtime visible annotations of a class and its
+ * methods without loading the class. Everything else (code, fields, debug information) is skipped.
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+class ClassFileReader {
+	private static final int MAGIC = 0xCAFEBABE;
+
+	private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+
+	private static final int ACC_INTERFACE = 0x0200;
+	private static final int ACC_ABSTRACT = 0x0400;
+	private static final int ACC_ANNOTATION = 0x2000;
+
+	private final DataInputStream in;
+
+	private Object[] constants;
+
+	/**
+	 * Constructor
+	 *
+	 * @param is The stream of the class file
+	 */
+	ClassFileReader(InputStream is) {
+		this.in = new DataInputStream(is);
+	}
+
+	/**
+	 * Read the class file
+	 *
+	 * @return The class read
+	 * @throws IOException When the class file cannot be read or is invalid
+	 */
+	ClassFile read() throws IOException {
+		if (in.readInt() != MAGIC) {
+			throw new IOException("Invalid class file.");
+		}
+
+		// Minor and major versions
+		in.skipBytes(4);
+
+		readConstantPool();
+
+		ClassFile classFile = new ClassFile();
+
+		int access = in.readUnsignedShort();
+		classFile.concrete = (access & (ACC_INTERFACE | ACC_ABSTRACT | ACC_ANNOTATION)) == 0;
+		classFile.name = getClassName(in.readUnsignedShort());
+
+		// Super class
+		in.skipBytes(2);
+
+		// Interfaces
+		in.skipBytes(2 * in.readUnsignedShort());
+
+		// Fields
+		int fieldCount = in.readUnsignedShort();
+		for (int i = 0; i < fieldCount; i++) {
+			in.skipBytes(6);
+			readAnnotations();
+		}
+
+		int methodCount = in.readUnsignedShort();
+		for (int i = 0; i < methodCount; i++) {
+			MethodInfo method = new MethodInfo();
+			method.access = in.readUnsignedShort();
+			method.name = getUtf8(in.readUnsignedShort());
+			method.descriptor = getUtf8(in.readUnsignedShort());
+			method.annotations = readAnnotations();
+			classFile.methods.add(method);
+		}
+
+		classFile.annotations = readAnnotations();
+
+		return classFile;
+	}
+
+	private void readConstantPool() throws IOException {
+		int count = in.readUnsignedShort();
+		constants = new Object[count];
+
+		for (int i = 1; i < count; i++) {
+			int tag = in.readUnsignedByte();
+
+			switch (tag) {
+				case 1: // Utf8
+					constants[i] = in.readUTF();
+					break;
+				case 3: // Integer
+					constants[i] = in.readInt();
+					break;
+				case 4: // Float
+					constants[i] = in.readFloat();
+					break;
+				case 5: // Long
+					constants[i] = in.readLong();
+					i++;
+					break;
+				case 6: // Double
+					constants[i] = in.readDouble();
+					i++;
+					break;
+				case 7: // Class
+					constants[i] = new ClassRef(in.readUnsignedShort());
+					break;
+				case 8: // String
+				case 16: // MethodType
+				case 19: // Module
+				case 20: // Package
+					in.skipBytes(2);
+					break;
+				case 15: // MethodHandle
+					in.skipBytes(3);
+					break;
+				case 9: // Fieldref
+				case 10: // Methodref
+				case 11: // InterfaceMethodref
+				case 12: // NameAndType
+				case 17: // Dynamic
+				case 18: // InvokeDynamic
+					in.skipBytes(4);
+					break;
+				default:
+					throw new IOException("Unknown constant pool tag " + tag + ".");
+			}
+		}
+	}
+
+	/**
+	 * Read the attributes of a member and keep the runtime visible annotations
+	 *
+	 * @return The annotations by type descriptor
+	 * @throws IOException I/O Errors
+	 */
+	private Map<String, Map<String, Object>> readAnnotations() throws IOException {
+		Map<String, Map<String, Object>> annotations = Collections.emptyMap();
+
+		int attributeCount = in.readUnsignedShort();
+		for (int i = 0; i < attributeCount; i++) {
+			String name = getUtf8(in.readUnsignedShort());
+			int length = in.readInt();
+
+			if (RUNTIME_VISIBLE_ANNOTATIONS.equals(name)) {
+				int annotationCount = in.readUnsignedShort();
+				annotations = new HashMap<>();
+
+				for (int j = 0; j < annotationCount; j++) {
+					String type = getUtf8(in.readUnsignedShort());
+					annotations.put(type, readAnnotationValues());
+				}
+			}
+			else {
+				skipFully(length);
+			}
+		}
+
+		return annotations;
+	}
+
+	private Map<String, Object> readAnnotationValues() throws IOException {
+		Map<String, Object> values = new HashMap<>();
+
+		int pairCount = in.readUnsignedShort();
+		for (int i = 0; i < pairCount; i++) {
+			String name = getUtf8(in.readUnsignedShort());
+			values.put(name, readElementValue());
+		}
+
+		return values;
+	}
+
+	private Object readElementValue() throws IOException {
+		int tag = in.readUnsignedByte();
+
+		switch (tag) {
+			case 'Z':
+				return ((Integer) constants[in.readUnsignedShort()]) != 0;
+			case 'B':
+			case 'C':
+			case 'D':
+			case 'F':
+			case 'I':
+			case 'J':
+			case 'S':
+			case 's':
+				return constants[in.readUnsignedShort()];
+			case 'e':
+				// Enum type then constant name
+				in.skipBytes(2);
+				return getUtf8(in.readUnsignedShort());
+			case 'c':
+				return getUtf8(in.readUnsignedShort());
+			case '@':
+				in.skipBytes(2);
+				return readAnnotationValues();
+			case '[':
+				int count = in.readUnsignedShort();
+				List<Object> values = new ArrayList<>(count);
+				for (int i = 0; i < count; i++) {
+					values.add(readElementValue());
+				}
+				return values;
+			default:
+				throw new IOException("Unknown annotation element tag " + (char) tag + ".");
+		}
+	}
+
+	private void skipFully(int length) throws IOException {
+		int remaining = length;
+
+		while (remaining > 0) {
+			int skipped = in.skipBytes(remaining);
+
+			if (skipped <= 0) {
+				throw new IOException("Unexpected end of class file.");
+			}
+
+			remaining -= skipped;
+		}
+	}
+
+	private String getUtf8(int index) {
+		return (String) constants[index];
+	}
+
+	private String getClassName(int index) {
+		return getUtf8(((ClassRef) constants[index]).nameIndex).replace('/', '.');
+	}
+
+	/**
+	 * Class constant, resolved once the whole constant pool is read
+	 */
+	private static class ClassRef {
+		private final int nameIndex;
+
+		private ClassRef(int nameIndex) {
+			this.nameIndex = nameIndex;
+		}
+	}
+
+	/**
+	 * Class read from a class file
+	 */
+	static class ClassFile {
+		/**
+		 * Binary name of the class (i.e. a.b.Outer$Inner)
+		 */
+		String name;
+
+		/**
+		 * False for the interfaces, abstract classes and annotations
+		 */
+		boolean concrete;
+
+		Map<String, Map<String, Object>> annotations;
+
+		List<MethodInfo> methods = new ArrayList<>();
+	}
+
+	/**
+	 * Method read from a class file
+	 */
+	static class MethodInfo {
+		int access;
+
+		String name;
+
+		String descriptor;
+
+		Map<String, Map<String, Object>> annotations;
+	}
+}
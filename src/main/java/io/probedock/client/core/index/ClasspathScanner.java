@@ -0,0 +1,351 @@
+package io.probedock.client.core.index;
+
+import io.probedock.client.annotations.ProbeTest;
+import io.probedock.client.annotations.ProbeTestClass;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Scan the directories and jars of a classpath in parallel to build the {@link TestIndex}. The class files
+ * are read directly, no class is loaded or initialized during the scan. {@link TestIndex} falls back to the
+ * scan of the test directories when no index was generated at compile time.
+ * <p/>
+ * A method is indexed when it is annotated with {@link ProbeTest} or when it is annotated with a JUnit
+ * or TestNG {@code Test} annotation in a class annotated with {@link ProbeTestClass}. Only the methods
+ * declared by concrete classes are indexed, the test methods inherited from a super class are not.
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class ClasspathScanner {
+	private static final Logger LOGGER = Logger.getLogger(ClasspathScanner.class.getCanonicalName());
+
+	private static final String CLASS_EXTENSION = ".class";
+
+	private static final String PROBE_TEST = descriptor(ProbeTest.class.getName());
+	private static final String PROBE_TEST_CLASS = descriptor(ProbeTestClass.class.getName());
+
+	/**
+	 * Test annotations of the test frameworks supported
+	 */
+	private static final Set<String> TEST_ANNOTATIONS = new LinkedHashSet<>(Arrays.asList(
+		descriptor("org.junit.Test"),
+		descriptor("org.junit.jupiter.api.Test"),
+		descriptor("org.testng.annotations.Test")
+	));
+
+	private final int parallelism;
+
+	/**
+	 * Constructor
+	 */
+	public ClasspathScanner() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param parallelism The number of threads to use for the scan
+	 */
+	public ClasspathScanner(int parallelism) {
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	/**
+	 * Scan the classpath of the current JVM (java.class.path)
+	 *
+	 * @return The index built
+	 */
+	public TestIndex scanClasspath() {
+		List<File> roots = new ArrayList<>();
+
+		String classpath = System.getProperty("java.class.path");
+		if (classpath != null) {
+			for (String path : classpath.split(File.pathSeparator)) {
+				if (!path.isEmpty()) {
+					roots.add(new File(path));
+				}
+			}
+		}
+
+		return scan(roots);
+	}
+
+	/**
+	 * Scan the directories of a class loader, i.e. the directories of the compiled tests. The jars are not
+	 * scanned, their tests are described from their annotations.
+	 *
+	 * @param classLoader The class loader
+	 * @return The index built
+	 * @throws IOException When the directories of the class loader cannot be listed
+	 */
+	public TestIndex scanDirectories(ClassLoader classLoader) throws IOException {
+		List<File> roots = new ArrayList<>();
+
+		Enumeration<URL> resources = classLoader.getResources("");
+		while (resources.hasMoreElements()) {
+			URL url = resources.nextElement();
+
+			if ("file".equals(url.getProtocol())) {
+				try {
+					roots.add(new File(url.toURI()));
+				}
+				catch (URISyntaxException | IllegalArgumentException e) {
+					LOGGER.log(Level.FINE, "Unable to scan the directory " + url + ", it is not indexed.", e);
+				}
+			}
+		}
+
+		return scan(roots);
+	}
+
+	/**
+	 * Scan directories of class files and jars
+	 *
+	 * @param roots The directories and jars to scan
+	 * @return The index built
+	 */
+	public TestIndex scan(Collection<File> roots) {
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+		try {
+			return new TestIndex(pool.invoke(new RootsTask(new ArrayList<>(roots))));
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Read a class file and create the entries of its test methods
+	 *
+	 * @param is The stream of the class file
+	 * @param location The location of the class file for the logs
+	 * @return The entries created, empty if the class has no test method
+	 */
+	static List<TestIndexEntry> index(InputStream is, String location) {
+		ClassFileReader.ClassFile classFile;
+
+		try {
+			classFile = new ClassFileReader(is).read();
+		}
+		catch (IOException | RuntimeException e) {
+			LOGGER.log(Level.FINE, "Unable to read the class file " + location + ", it is not indexed.", e);
+			return Collections.emptyList();
+		}
+
+		if (!classFile.concrete) {
+			return Collections.emptyList();
+		}
+
+		Map<String, Object> classAnnotation = classFile.annotations.get(PROBE_TEST_CLASS);
+
+		List<TestIndexEntry> entries = new ArrayList<>();
+		for (ClassFileReader.MethodInfo method : classFile.methods) {
+			Map<String, Object> methodAnnotation = method.annotations.get(PROBE_TEST);
+
+			if (methodAnnotation != null || (classAnnotation != null && isTest(method))) {
+				entries.add(createEntry(classFile.name, method.name, methodAnnotation, classAnnotation));
+			}
+		}
+
+		return entries;
+	}
+
+	private static boolean isTest(ClassFileReader.MethodInfo method) {
+		for (String annotation : method.annotations.keySet()) {
+			if (TEST_ANNOTATIONS.contains(annotation)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static TestIndexEntry createEntry(String className, String methodName, Map<String, Object> methodAnnotation, Map<String, Object> classAnnotation) {
+		String category = getString(methodAnnotation, "category");
+		if (category == null || category.isEmpty()) {
+			category = getString(classAnnotation, "category");
+		}
+
+		Boolean active = null;
+		if (methodAnnotation != null) {
+			active = methodAnnotation.containsKey("active") ? (Boolean) methodAnnotation.get("active") : Boolean.TRUE;
+		}
+
+		return new TestIndexEntry(
+			className,
+			methodName,
+			null,
+			getString(methodAnnotation, "name"),
+			getString(methodAnnotation, "key"),
+			category,
+			active,
+			merge(methodAnnotation, classAnnotation, "tags"),
+			merge(methodAnnotation, classAnnotation, "tickets"),
+			merge(methodAnnotation, classAnnotation, "contributors")
+		);
+	}
+
+	private static String getString(Map<String, Object> annotation, String name) {
+		return annotation != null ? (String) annotation.get(name) : null;
+	}
+
+	private static Set<String> merge(Map<String, Object> methodAnnotation, Map<String, Object> classAnnotation, String name) {
+		Set<String> values = new LinkedHashSet<>();
+		addAll(values, methodAnnotation, name);
+		addAll(values, classAnnotation, name);
+		return values;
+	}
+
+	private static void addAll(Set<String> values, Map<String, Object> annotation, String name) {
+		if (annotation != null && annotation.get(name) instanceof List) {
+			for (Object value : (List<?>) annotation.get(name)) {
+				values.add((String) value);
+			}
+		}
+	}
+
+	private static String descriptor(String className) {
+		return "L" + className.replace('.', '/') + ";";
+	}
+
+	/**
+	 * Fork one task for each root of the classpath
+	 */
+	private static class RootsTask extends RecursiveTask<List<TestIndexEntry>> {
+		private final List<File> roots;
+
+		private RootsTask(List<File> roots) {
+			this.roots = roots;
+		}
+
+		@Override
+		protected List<TestIndexEntry> compute() {
+			List<RecursiveTask<List<TestIndexEntry>>> tasks = new ArrayList<>();
+
+			for (File root : roots) {
+				if (root.isDirectory()) {
+					tasks.add(new DirectoryTask(root));
+				}
+				else if (root.isFile() && root.getName().endsWith(".jar")) {
+					tasks.add(new JarTask(root));
+				}
+			}
+
+			return collect(tasks, new ArrayList<TestIndexEntry>());
+		}
+	}
+
+	/**
+	 * Index the class files of a directory and fork one task for each sub directory
+	 */
+	private static class DirectoryTask extends RecursiveTask<List<TestIndexEntry>> {
+		private final File directory;
+
+		private DirectoryTask(File directory) {
+			this.directory = directory;
+		}
+
+		@Override
+		protected List<TestIndexEntry> compute() {
+			File[] files = directory.listFiles();
+
+			if (files == null) {
+				return Collections.emptyList();
+			}
+
+			List<RecursiveTask<List<TestIndexEntry>>> tasks = new ArrayList<>();
+			List<TestIndexEntry> entries = new ArrayList<>();
+
+			for (File file : files) {
+				if (file.isDirectory()) {
+					tasks.add(new DirectoryTask(file));
+				}
+				else if (file.getName().endsWith(CLASS_EXTENSION)) {
+					try (InputStream is = new BufferedInputStream(new FileInputStream(file))) {
+						entries.addAll(index(is, file.getPath()));
+					}
+					catch (IOException ioe) {
+						LOGGER.log(Level.FINE, "Unable to read the class file " + file + ", it is not indexed.", ioe);
+					}
+				}
+			}
+
+			return collect(tasks, entries);
+		}
+	}
+
+	/**
+	 * Index the class files of a jar
+	 */
+	private static class JarTask extends RecursiveTask<List<TestIndexEntry>> {
+		private final File jar;
+
+		private JarTask(File jar) {
+			this.jar = jar;
+		}
+
+		@Override
+		protected List<TestIndexEntry> compute() {
+			List<TestIndexEntry> entries = new ArrayList<>();
+
+			try (JarFile jarFile = new JarFile(jar)) {
+				Enumeration<JarEntry> jarEntries = jarFile.entries();
+
+				while (jarEntries.hasMoreElements()) {
+					JarEntry jarEntry = jarEntries.nextElement();
+
+					// Multi-release and meta data entries are not test classes
+					if (jarEntry.getName().endsWith(CLASS_EXTENSION) && !jarEntry.getName().startsWith("META-INF/")) {
+						// An unreadable entry does not prevent the other ones from being indexed
+						try (InputStream is = new BufferedInputStream(jarFile.getInputStream(jarEntry))) {
+							entries.addAll(index(is, jar + "!" + jarEntry.getName()));
+						}
+						catch (IOException | RuntimeException e) {
+							LOGGER.log(Level.FINE, "Unable to read the class file " + jar + "!" + jarEntry.getName() + ", it is not indexed.", e);
+						}
+					}
+				}
+			}
+			catch (IOException ioe) {
+				LOGGER.log(Level.WARNING, "Unable to read the jar " + jar + ", it is not indexed.", ioe);
+			}
+
+			return entries;
+		}
+	}
+
+	private static List<TestIndexEntry> collect(List<RecursiveTask<List<TestIndexEntry>>> tasks, List<TestIndexEntry> entries) {
+		for (RecursiveTask<List<TestIndexEntry>> task : tasks) {
+			task.fork();
+		}
+
+		for (RecursiveTask<List<TestIndexEntry>> task : tasks) {
+			entries.addAll(task.join());
+		}
+
+		return entries;
+	}
+}
@@ -0,0 +1,253 @@
+package io.probedock.client.core.index;
+
+import io.probedock.client.annotations.ProbeTest;
+import io.probedock.client.annotations.ProbeTestClass;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Annotation processor that generates the {@link TestIndex} of the compiled tests in the resource
+ * {@link TestIndex#RESOURCE}. The probes load it with {@link TestIndex#load(ClassLoader)} to know the
+ * fingerprints, names, tags and tickets of the tests without reflection nor hashing at test time.
+ * <p/>
+ * The same methods as {@link ClasspathScanner} are indexed. When only some classes are compiled again,
+ * the entries of the other classes are kept from the previous index as long as their class files are still
+ * in the output directory.
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class ProbeTestProcessor extends AbstractProcessor {
+	/**
+	 * Test annotations of the test frameworks supported
+	 */
+	private static final Set<String> TEST_ANNOTATIONS = new HashSet<>(Arrays.asList(
+		"org.junit.Test",
+		"org.junit.jupiter.api.Test",
+		"org.testng.annotations.Test"
+	));
+
+	/**
+	 * Entries by class name then method name, collected over all the rounds
+	 */
+	private final Map<String, Map<String, TestIndexEntry>> entries = new LinkedHashMap<>();
+
+	/**
+	 * Classes compiled, their entries of the previous index are replaced
+	 */
+	private final Set<String> compiledClassNames = new HashSet<>();
+
+	@Override
+	public Set<String> getSupportedAnnotationTypes() {
+		return new HashSet<>(Arrays.asList(ProbeTest.class.getName(), ProbeTestClass.class.getName()));
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+			collectClassNames(type);
+		}
+
+		for (Element element : roundEnv.getElementsAnnotatedWith(ProbeTest.class)) {
+			if (element.getKind() == ElementKind.METHOD) {
+				index((TypeElement) element.getEnclosingElement(), (ExecutableElement) element);
+			}
+		}
+
+		for (TypeElement type : ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(ProbeTestClass.class))) {
+			for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+				if (isTest(method)) {
+					index(type, method);
+				}
+			}
+		}
+
+		if (roundEnv.processingOver()) {
+			write();
+		}
+
+		// The annotations are not claimed to let the other processors see them
+		return false;
+	}
+
+	private void collectClassNames(TypeElement type) {
+		compiledClassNames.add(getClassName(type));
+
+		for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+			collectClassNames(nested);
+		}
+	}
+
+	private void index(TypeElement type, ExecutableElement method) {
+		if (type.getKind() != ElementKind.CLASS || type.getModifiers().contains(Modifier.ABSTRACT)) {
+			return;
+		}
+
+		String className = getClassName(type);
+		String methodName = method.getSimpleName().toString();
+
+		ProbeTest mAnnotation = method.getAnnotation(ProbeTest.class);
+		ProbeTestClass cAnnotation = type.getAnnotation(ProbeTestClass.class);
+
+		String category = mAnnotation != null ? mAnnotation.category() : null;
+		if ((category == null || category.isEmpty()) && cAnnotation != null) {
+			category = cAnnotation.category();
+		}
+
+		add(new TestIndexEntry(
+			className,
+			methodName,
+			null,
+			mAnnotation != null ? mAnnotation.name() : null,
+			mAnnotation != null ? mAnnotation.key() : null,
+			category,
+			mAnnotation != null ? mAnnotation.active() : null,
+			merge(mAnnotation != null ? mAnnotation.tags() : null, cAnnotation != null ? cAnnotation.tags() : null),
+			merge(mAnnotation != null ? mAnnotation.tickets() : null, cAnnotation != null ? cAnnotation.tickets() : null),
+			merge(mAnnotation != null ? mAnnotation.contributors() : null, cAnnotation != null ? cAnnotation.contributors() : null)
+		));
+	}
+
+	private void add(TestIndexEntry entry) {
+		Map<String, TestIndexEntry> methods = entries.get(entry.getClassName());
+
+		if (methods == null) {
+			methods = new LinkedHashMap<>();
+			entries.put(entry.getClassName(), methods);
+		}
+
+		methods.put(entry.getMethodName(), entry);
+	}
+
+	/**
+	 * Write the index with the entries of the classes not compiled again from the previous index
+	 */
+	private void write() {
+		boolean previousIndex = false;
+
+		try {
+			FileObject previous = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", TestIndex.RESOURCE);
+
+			try (InputStream is = previous.openInputStream()) {
+				previousIndex = true;
+
+				Map<String, Boolean> classFiles = new HashMap<>();
+
+				for (TestIndexEntry entry : TestIndex.read(is).getEntries()) {
+					if (!compiledClassNames.contains(entry.getClassName()) && !entries.containsKey(entry.getClassName()) && hasClassFile(classFiles, entry.getClassName())) {
+						add(entry);
+					}
+				}
+			}
+		}
+		catch (IOException | IllegalArgumentException e) {
+			// No previous index
+		}
+
+		if (entries.isEmpty() && !previousIndex) {
+			return;
+		}
+
+		Set<TestIndexEntry> allEntries = new LinkedHashSet<>();
+		for (Map<String, TestIndexEntry> methods : entries.values()) {
+			allEntries.addAll(methods.values());
+		}
+
+		try {
+			FileObject resource = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", TestIndex.RESOURCE);
+
+			try (OutputStream os = resource.openOutputStream()) {
+				new TestIndex(allEntries).write(os);
+			}
+		}
+		catch (IOException ioe) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Unable to write the Probe Dock test index: " + ioe.getMessage());
+		}
+	}
+
+	/**
+	 * Check if the class file of a class not compiled again is still in the output directory. The classes
+	 * deleted or renamed since the previous index have no class file anymore, unless the output directory
+	 * is not cleaned.
+	 *
+	 * @param classFiles The classes already checked
+	 * @param className The binary name of the class
+	 * @return True if the class file exists
+	 */
+	private boolean hasClassFile(Map<String, Boolean> classFiles, String className) {
+		Boolean exists = classFiles.get(className);
+
+		if (exists == null) {
+			int lastDot = className.lastIndexOf('.');
+
+			try {
+				FileObject classFile = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT,
+					lastDot > 0 ? className.substring(0, lastDot) : "", className.substring(lastDot + 1) + ".class");
+
+				classFile.openInputStream().close();
+				exists = true;
+			}
+			catch (IOException | IllegalArgumentException e) {
+				exists = false;
+			}
+
+			classFiles.put(className, exists);
+		}
+
+		return exists;
+	}
+
+	private boolean isTest(ExecutableElement method) {
+		for (AnnotationMirror annotation : method.getAnnotationMirrors()) {
+			if (TEST_ANNOTATIONS.contains(((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString())) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private String getClassName(TypeElement type) {
+		return processingEnv.getElementUtils().getBinaryName(type).toString();
+	}
+
+	private static Set<String> merge(String[] methodValues, String[] classValues) {
+		Set<String> values = new LinkedHashSet<>();
+
+		if (methodValues != null) {
+			values.addAll(Arrays.asList(methodValues));
+		}
+
+		if (classValues != null) {
+			values.addAll(Arrays.asList(classValues));
+		}
+
+		return values;
+	}
+}
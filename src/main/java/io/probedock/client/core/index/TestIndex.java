@@ -0,0 +1,329 @@
+package io.probedock.client.core.index;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.probedock.client.common.config.Configuration;
+import io.probedock.client.common.utils.TestDescriptor;
+import io.probedock.client.core.filters.FilterDefinition;
+import io.probedock.client.core.filters.FilterEngine;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * In-memory index of the test methods annotated with {@code ProbeTest} or declared in a class annotated
+ * with {@code ProbeTestClass}. It answers the filtering queries before any test class is loaded.
+ * <p/>
+ * Once installed, the {@link TestDescriptor}s of the methods indexed are built from the index instead of
+ * computing their fingerprints and names from the annotations. The probes install it at startup when the
+ * configuration enables it ({@link #install(Configuration, ClassLoader)}).
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class TestIndex implements TestDescriptor.Index {
+	private static final Logger LOGGER = Logger.getLogger(TestIndex.class.getCanonicalName());
+
+	/**
+	 * Resource of the index generated at compile time by {@link ProbeTestProcessor}
+	 */
+	public static final String RESOURCE = "META-INF/probedock/test-index.json";
+
+	private static final int VERSION = 1;
+
+	private static final ObjectMapper MAPPER = new ObjectMapper().configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+
+	/**
+	 * Entries by class name then method name
+	 */
+	private final Map<String, Map<String, TestIndexEntry>> entries = new LinkedHashMap<>();
+
+	private final List<TestIndexEntry> allEntries;
+
+	/**
+	 * Constructor
+	 *
+	 * @param entries The entries of the index
+	 */
+	public TestIndex(Collection<TestIndexEntry> entries) {
+		List<TestIndexEntry> sorted = new ArrayList<>(entries);
+
+		Collections.sort(sorted, new Comparator<TestIndexEntry>() {
+			@Override
+			public int compare(TestIndexEntry left, TestIndexEntry right) {
+				int result = left.getClassName().compareTo(right.getClassName());
+				return result != 0 ? result : left.getMethodName().compareTo(right.getMethodName());
+			}
+		});
+
+		for (TestIndexEntry entry : sorted) {
+			Map<String, TestIndexEntry> methods = this.entries.get(entry.getClassName());
+
+			if (methods == null) {
+				methods = new LinkedHashMap<>();
+				this.entries.put(entry.getClassName(), methods);
+			}
+
+			methods.put(entry.getMethodName(), entry);
+		}
+
+		this.allEntries = Collections.unmodifiableList(sorted);
+	}
+
+	/**
+	 * @return All the entries sorted by class and method names
+	 */
+	public List<TestIndexEntry> getEntries() {
+		return allEntries;
+	}
+
+	/**
+	 * @param className The binary name of the class
+	 * @return The entries of the class, empty if the class is not indexed
+	 */
+	public Collection<TestIndexEntry> getEntries(String className) {
+		Map<String, TestIndexEntry> methods = entries.get(className);
+		return methods != null ? Collections.unmodifiableCollection(methods.values()) : Collections.<TestIndexEntry>emptyList();
+	}
+
+	/**
+	 * @param className The binary name of the class
+	 * @param methodName The method name
+	 * @return The entry, null if the method is not indexed
+	 */
+	public TestIndexEntry getEntry(String className, String methodName) {
+		Map<String, TestIndexEntry> methods = entries.get(className);
+		return methods != null ? methods.get(methodName) : null;
+	}
+
+	@Override
+	public TestIndexEntry find(String className, String methodName) {
+		return getEntry(className, methodName);
+	}
+
+	/**
+	 * @return The number of test methods indexed
+	 */
+	public int size() {
+		return allEntries.size();
+	}
+
+	/**
+	 * Find the entries runnable regarding the filters
+	 *
+	 * @param filters The filters
+	 * @return The entries runnable
+	 */
+	public List<TestIndexEntry> filter(List<FilterDefinition> filters) {
+		if (filters == null || filters.isEmpty()) {
+			return allEntries;
+		}
+
+		FilterEngine engine = FilterEngine.compile(filters);
+
+		List<TestIndexEntry> result = new ArrayList<>();
+		for (TestIndexEntry entry : allEntries) {
+			if (isRunnable(engine, entry)) {
+				result.add(entry);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Find the classes which have at least one entry runnable regarding the filters. The other indexed classes
+	 * do not need to be loaded.
+	 *
+	 * @param filters The filters
+	 * @return The binary names of the classes
+	 */
+	public Set<String> getRunnableClassNames(List<FilterDefinition> filters) {
+		Set<String> classNames = new LinkedHashSet<>();
+
+		for (TestIndexEntry entry : filter(filters)) {
+			classNames.add(entry.getClassName());
+		}
+
+		return classNames;
+	}
+
+	/**
+	 * Load the indexes generated at compile time. The indexes of all the directories and jars of the class
+	 * loader are merged. The entries of the classes which cannot be found by the class loader anymore (i.e.
+	 * deleted or renamed without generating the index again) are dropped.
+	 *
+	 * @param classLoader The class loader to look for the index resources
+	 * @return The index loaded, null if no index was generated
+	 * @throws IOException When an index cannot be read
+	 */
+	public static TestIndex load(ClassLoader classLoader) throws IOException {
+		Enumeration<URL> resources = classLoader.getResources(RESOURCE);
+
+		if (!resources.hasMoreElements()) {
+			return null;
+		}
+
+		List<TestIndexEntry> entries = new ArrayList<>();
+		while (resources.hasMoreElements()) {
+			try (InputStream is = resources.nextElement().openStream()) {
+				for (Map.Entry<String, Map<String, TestIndexEntry>> classEntries : read(is).entries.entrySet()) {
+					if (classLoader.getResource(classEntries.getKey().replace('.', '/') + ".class") != null) {
+						entries.addAll(classEntries.getValue().values());
+					}
+					else {
+						LOGGER.fine("The class " + classEntries.getKey() + " of the test index is not found, its tests are not indexed.");
+					}
+				}
+			}
+		}
+
+		return new TestIndex(entries);
+	}
+
+	/**
+	 * Load the indexes generated at compile time and install them for the {@link TestDescriptor}s when the
+	 * configuration enables the test index. When no index was generated (i.e. the tests were compiled without
+	 * the annotation processor), the directories of the class loader are scanned by {@link ClasspathScanner}.
+	 *
+	 * @param configuration The configuration
+	 * @param classLoader The class loader to look for the index resources
+	 * @return The index installed, null if the test index is not enabled
+	 * @throws IOException When an index cannot be read
+	 */
+	public static TestIndex install(Configuration configuration, ClassLoader classLoader) throws IOException {
+		if (!configuration.isTestIndexEnabled()) {
+			return null;
+		}
+
+		TestIndex index = load(classLoader);
+
+		if (index == null) {
+			LOGGER.info("No test index was generated, the directories of the tests are scanned.");
+			index = new ClasspathScanner().scanDirectories(classLoader);
+		}
+
+		TestDescriptor.setIndex(index);
+
+		return index;
+	}
+
+	/**
+	 * Load the indexes generated at compile time and install them for the {@link TestDescriptor}s
+	 *
+	 * @param classLoader The class loader to look for the index resources
+	 * @return The index installed, null if no index was generated
+	 * @throws IOException When an index cannot be read
+	 */
+	public static TestIndex install(ClassLoader classLoader) throws IOException {
+		TestIndex index = load(classLoader);
+
+		if (index != null) {
+			TestDescriptor.setIndex(index);
+		}
+
+		return index;
+	}
+
+	/**
+	 * Read an index written by {@link #write(OutputStream)}
+	 *
+	 * @param is The input stream to read
+	 * @return The index read
+	 * @throws IOException When the index cannot be read
+	 */
+	public static TestIndex read(InputStream is) throws IOException {
+		JsonNode root = MAPPER.readTree(is);
+
+		if (root == null || root.path("version").asInt() != VERSION) {
+			throw new IOException("Unsupported version of the test index.");
+		}
+
+		List<TestIndexEntry> entries = new ArrayList<>();
+		for (JsonNode test : root.path("tests")) {
+			entries.add(new TestIndexEntry(
+				test.path("className").asText(),
+				test.path("methodName").asText(),
+				getText(test, "fingerprint"),
+				getText(test, "name"),
+				getText(test, "key"),
+				getText(test, "category"),
+				test.hasNonNull("active") ? test.get("active").asBoolean() : null,
+				getTexts(test, "tags"),
+				getTexts(test, "tickets"),
+				getTexts(test, "contributors")
+			));
+		}
+
+		return new TestIndex(entries);
+	}
+
+	/**
+	 * Write the index in JSON
+	 *
+	 * @param os The output stream to write, not closed
+	 * @throws IOException When the index cannot be written
+	 */
+	public void write(OutputStream os) throws IOException {
+		ObjectNode root = MAPPER.createObjectNode();
+		root.put("version", VERSION);
+
+		ArrayNode tests = root.putArray("tests");
+		for (TestIndexEntry entry : allEntries) {
+			ObjectNode test = tests.addObject();
+			test.put("className", entry.getClassName());
+			test.put("methodName", entry.getMethodName());
+			test.put("fingerprint", entry.getFingerprint());
+			test.put("name", entry.getName());
+			test.put("key", entry.getKey());
+			test.put("category", entry.getCategory());
+			test.put("active", entry.isActive());
+			putTexts(test, "tags", entry.getTags());
+			putTexts(test, "tickets", entry.getTickets());
+			putTexts(test, "contributors", entry.getContributors());
+		}
+
+		MAPPER.writeValue(os, root);
+	}
+
+	private static String getText(JsonNode node, String field) {
+		return node.hasNonNull(field) ? node.get(field).asText() : null;
+	}
+
+	private static Set<String> getTexts(JsonNode node, String field) {
+		Set<String> texts = new LinkedHashSet<>();
+
+		for (JsonNode text : node.path(field)) {
+			texts.add(text.asText());
+		}
+
+		return texts;
+	}
+
+	private static void putTexts(ObjectNode node, String field, Set<String> texts) {
+		ArrayNode array = node.putArray(field);
+
+		for (String text : texts) {
+			array.add(text);
+		}
+	}
+
+	private static boolean isRunnable(FilterEngine engine, TestIndexEntry entry) {
+		return engine.isRunnable(entry.getFingerprint(), entry.getTechnicalName(), entry.getName(), entry.getKey(), entry.getTags(), entry.getTickets());
+	}
+}
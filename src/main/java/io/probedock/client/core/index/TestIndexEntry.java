@@ -0,0 +1,130 @@
+package io.probedock.client.core.index;
+
+import io.probedock.client.common.utils.FingerprintGenerator;
+import io.probedock.client.common.utils.Inflector;
+import io.probedock.client.common.utils.TestDescriptor;
+import io.probedock.client.utils.CollectionHelper;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Data of a test method known without loading its class. The data come from the {@code ProbeTest} and
+ * {@code ProbeTestClass} annotations only, they are not merged with the configuration. The tags and the
+ * contributors are checked like the ones read from the annotations, the invalid ones are ignored.
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class TestIndexEntry implements TestDescriptor.IndexedTest {
+	private final String className;
+	private final String methodName;
+	private final String packageName;
+	private final String fingerprint;
+	private final String name;
+	private final String technicalName;
+	private final String key;
+	private final String category;
+	private final Boolean active;
+	private final Set<String> tags;
+	private final Set<String> tickets;
+	private final Set<String> contributors;
+
+	/**
+	 * Constructor
+	 *
+	 * @param className The binary name of the class (i.e. a.b.Outer$Inner)
+	 * @param methodName The method name
+	 * @param fingerprint The fingerprint, computed when null
+	 * @param name The name of the annotation, the human name is forged when null or empty
+	 * @param key The key, null if none
+	 * @param category The category of the annotations, null if none
+	 * @param active The active flag of the annotation, null if none
+	 * @param tags The tags of the annotations, the invalid ones are ignored
+	 * @param tickets The tickets of the annotations
+	 * @param contributors The contributors of the annotations, the invalid ones are ignored
+	 */
+	public TestIndexEntry(String className, String methodName, String fingerprint, String name, String key, String category,
+						  Boolean active, Set<String> tags, Set<String> tickets, Set<String> contributors) {
+		String canonicalName = className.replace('$', '.');
+		int lastDot = className.lastIndexOf('.');
+		String simpleName = className.substring(Math.max(lastDot, className.lastIndexOf('$')) + 1);
+
+		this.className = className;
+		this.methodName = methodName;
+		this.packageName = lastDot > 0 ? className.substring(0, lastDot) : null;
+		this.technicalName = canonicalName + "." + methodName;
+		this.fingerprint = fingerprint != null ? fingerprint : FingerprintGenerator.fingerprint(technicalName);
+		this.name = name != null && !name.isEmpty() ? name : Inflector.getHumanName(simpleName + ": " + methodName);
+		this.key = key != null && !key.isEmpty() ? key : null;
+		this.category = category != null && !category.isEmpty() ? category : null;
+		this.active = active;
+		this.tags = Collections.unmodifiableSet(CollectionHelper.filterTags(tags));
+		this.tickets = Collections.unmodifiableSet(tickets);
+		this.contributors = Collections.unmodifiableSet(CollectionHelper.filterContributors(contributors));
+	}
+
+	/**
+	 * @return The binary name of the class, usable with {@link Class#forName(String)}
+	 */
+	public String getClassName() {
+		return className;
+	}
+
+	public String getMethodName() {
+		return methodName;
+	}
+
+	public String getPackageName() {
+		return packageName;
+	}
+
+	public String getFingerprint() {
+		return fingerprint;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getTechnicalName() {
+		return technicalName;
+	}
+
+	/**
+	 * @return The key or null if there is no key
+	 */
+	public String getKey() {
+		return key;
+	}
+
+	/**
+	 * @return The category of the method or class annotation, null if none
+	 */
+	public String getCategory() {
+		return category;
+	}
+
+	/**
+	 * @return True/false if the the status is specified, otherwise null
+	 */
+	public Boolean isActive() {
+		return active;
+	}
+
+	public Set<String> getTags() {
+		return tags;
+	}
+
+	public Set<String> getTickets() {
+		return tickets;
+	}
+
+	public Set<String> getContributors() {
+		return contributors;
+	}
+
+	@Override
+	public String toString() {
+		return "technicalName: " + technicalName + ", fingerprint: " + fingerprint + ", key: " + key + ", tags: " + tags + ", tickets: " + tickets;
+	}
+}
@@ -0,0 +1,111 @@
+package io.probedock.client.core.serializer;
+
+import io.probedock.client.common.model.ProbeTestRun;
+import io.probedock.client.common.utils.Constants;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.util.logging.Logger;
+
+/**
+ * Base class of the serializers that only implement the character stream methods. The byte stream methods
+ * are adapted to the character stream ones with the UTF-8 encoding.
+ * <p/>
+ * The serializers compiled against the previous versions of {@link ProbeSerializer} do not implement the byte
+ * stream methods at all. They must be wrapped with {@link #compatible(ProbeSerializer)} before they are used.
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public abstract class AbstractProbeSerializer implements ProbeSerializer {
+	private static final Logger LOGGER = Logger.getLogger(AbstractProbeSerializer.class.getCanonicalName());
+
+	@Override
+	@SuppressWarnings("deprecation")
+	public void serializePayload(OutputStream os, ProbeTestRun payload, boolean pretty) throws IOException {
+		try (OutputStreamWriter writer = new OutputStreamWriter(os, Constants.ENCODING)) {
+			serializePayload(writer, payload, pretty);
+		}
+	}
+
+	@Override
+	@SuppressWarnings("deprecation")
+	public <T extends ProbeTestRun> T deserializePayload(InputStream is, Class<T> clazz) throws IOException {
+		try (InputStreamReader reader = new InputStreamReader(is, Constants.ENCODING)) {
+			return deserializePayload(reader, clazz);
+		}
+	}
+
+	/**
+	 * Make sure a serializer can be used through the byte stream methods
+	 *
+	 * @param serializer The serializer
+	 * @return The serializer itself when it extends this class, otherwise a serializer that falls back on the
+	 * character stream methods when the byte stream ones are not implemented
+	 */
+	public static ProbeSerializer compatible(ProbeSerializer serializer) {
+		return serializer instanceof AbstractProbeSerializer ? serializer : new CompatibleSerializer(serializer);
+	}
+
+	/**
+	 * Serializer that calls the character stream methods of the serializers compiled against the previous
+	 * versions of {@link ProbeSerializer}, the missing methods are detected on their first call
+	 */
+	private static class CompatibleSerializer extends AbstractProbeSerializer {
+		private final ProbeSerializer serializer;
+
+		private volatile boolean legacy;
+
+		private CompatibleSerializer(ProbeSerializer serializer) {
+			this.serializer = serializer;
+		}
+
+		@Override
+		@Deprecated
+		public void serializePayload(OutputStreamWriter osw, ProbeTestRun payload, boolean pretty) throws IOException {
+			serializer.serializePayload(osw, payload, pretty);
+		}
+
+		@Override
+		public void serializePayload(OutputStream os, ProbeTestRun payload, boolean pretty) throws IOException {
+			if (!legacy) {
+				try {
+					serializer.serializePayload(os, payload, pretty);
+					return;
+				}
+				catch (AbstractMethodError ame) {
+					setLegacy();
+				}
+			}
+
+			super.serializePayload(os, payload, pretty);
+		}
+
+		@Override
+		@Deprecated
+		public <T extends ProbeTestRun> T deserializePayload(InputStreamReader isr, Class<T> clazz) throws IOException {
+			return serializer.deserializePayload(isr, clazz);
+		}
+
+		@Override
+		public <T extends ProbeTestRun> T deserializePayload(InputStream is, Class<T> clazz) throws IOException {
+			if (!legacy) {
+				try {
+					return serializer.deserializePayload(is, clazz);
+				}
+				catch (AbstractMethodError ame) {
+					setLegacy();
+				}
+			}
+
+			return super.deserializePayload(is, clazz);
+		}
+
+		private void setLegacy() {
+			legacy = true;
+			LOGGER.warning("The serializer " + serializer.getClass().getName() + " does not implement the byte stream methods, its character stream methods are used.");
+		}
+	}
+}
@@ -3,11 +3,16 @@ package io.probedock.client.core.serializer;
 import io.probedock.client.common.model.ProbeTestRun;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 
 /**
  * Serializer interface
+ * <p/>
+ * The byte stream methods must be preferred. The character stream methods are kept for compatibility. The
+ * serializers that only implement the character stream methods extend {@link AbstractProbeSerializer}.
  *
  * @author Laurent Prevost laurent.prevost@probedock.io
  */
@@ -20,9 +25,21 @@ public interface ProbeSerializer {
 	 * @param payload The payload to serialize
 	 * @param pretty Whether to indent the output
 	 * @exception IOException
+	 * @deprecated Use {@link #serializePayload(OutputStream, ProbeTestRun, boolean)} to avoid the character encoding
 	 */
+	@Deprecated
 	void serializePayload(OutputStreamWriter osw, ProbeTestRun payload, boolean pretty) throws IOException;
 
+	/**
+	 * Serialize a payload
+	 *
+	 * @param os Output stream
+	 * @param payload The payload to serialize
+	 * @param pretty Whether to indent the output, ignored by the binary formats
+	 * @exception IOException
+	 */
+	void serializePayload(OutputStream os, ProbeTestRun payload, boolean pretty) throws IOException;
+
 	/**
 	 * Deserialize a payload
 	 *
@@ -31,6 +48,19 @@ public interface ProbeSerializer {
 	 * @param clazz The type to deserialize
 	 * @return Payload The payload deserialized
 	 * @throws IOException I/O Errors
+	 * @deprecated Use {@link #deserializePayload(InputStream, Class)} to avoid the character decoding
 	 */
+	@Deprecated
 	<T extends ProbeTestRun> T deserializePayload(InputStreamReader isr, Class<T> clazz) throws IOException;
+
+	/**
+	 * Deserialize a payload
+	 *
+	 * @param <T> The type of payload to deserialize
+	 * @param is Input stream
+	 * @param clazz The type to deserialize
+	 * @return Payload The payload deserialized
+	 * @throws IOException I/O Errors
+	 */
+	<T extends ProbeTestRun> T deserializePayload(InputStream is, Class<T> clazz) throws IOException;
 }
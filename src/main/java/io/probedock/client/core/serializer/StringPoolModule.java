@@ -0,0 +1,55 @@
+package io.probedock.client.core.serializer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.KeyDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import io.probedock.client.common.utils.StringPool;
+
+import java.io.IOException;
+
+/**
+ * Jackson module that shares the strings read from the payloads through a {@link StringPool}. The payloads
+ * replayed from the workspace repeat the same categories, tags, tickets and meta data in each test result,
+ * a single instance of each is kept in memory.
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class StringPoolModule extends SimpleModule {
+	/**
+	 * Constructor with the default pool
+	 */
+	public StringPoolModule() {
+		this(StringPool.DEFAULT);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param pool The pool of strings
+	 */
+	public StringPoolModule(final StringPool pool) {
+		super("StringPoolModule");
+
+		addDeserializer(String.class, new StdScalarDeserializer<String>(String.class) {
+			@Override
+			public String deserialize(JsonParser jp, DeserializationContext ctxt) throws IOException {
+				if (jp.getCurrentToken() == JsonToken.VALUE_STRING) {
+					return pool.pool(jp.getText());
+				}
+
+				return pool.pool(StringDeserializer.instance.deserialize(jp, ctxt));
+			}
+		});
+
+		addKeyDeserializer(String.class, new KeyDeserializer() {
+			@Override
+			public Object deserializeKey(String key, DeserializationContext ctxt) throws IOException {
+				return pool.pool(key);
+			}
+		});
+	}
+}
@@ -2,38 +2,88 @@ package io.probedock.client.core.serializer.json;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import io.probedock.client.common.model.ProbeTestRun;
 import io.probedock.client.core.serializer.ProbeSerializer;
+import io.probedock.client.core.serializer.StringPoolModule;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Json Serializer implementation of {@link ProbeSerializer}
+ * <p/>
+ * The object mapper, writers and readers are thread safe once configured. They are shared by all the
+ * serializer instances to keep the serializers and deserializers cached by Jackson between the calls.
  *
  * @author Laurent Prevost laurent.prevost@probedock.io
  */
 public class JsonSerializer implements ProbeSerializer {
+	private static final ObjectMapper MAPPER = new ObjectMapper()
+		.setSerializationInclusion(JsonInclude.Include.NON_NULL)
+		.configure(SerializationFeature.WRAP_ROOT_VALUE, false)
+		// The strings repeated in the test results are shared once deserialized
+		.registerModule(new StringPoolModule());
 
-	@Override
-	public void serializePayload(OutputStreamWriter osw, ProbeTestRun probeTestRun, boolean pretty) throws IOException {
-		ObjectMapper mapper = new ObjectMapper();
+	private static final ObjectWriter COMPACT_WRITER = MAPPER.writer();
 
-		mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
-		mapper.configure(SerializationFeature.WRAP_ROOT_VALUE, false);
+	private static final ObjectWriter PRETTY_WRITER = MAPPER.writer().with(SerializationFeature.INDENT_OUTPUT);
 
-		if (pretty) {
-			mapper.configure(SerializationFeature.INDENT_OUTPUT, true);
-		}
+	private static final ConcurrentMap<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<>();
+
+	@Override
+	@Deprecated
+	public void serializePayload(OutputStreamWriter osw, ProbeTestRun probeTestRun, boolean pretty) throws IOException {
+		getWriter(pretty).writeValue(osw, probeTestRun);
+	}
 
-		mapper.writeValue(osw, probeTestRun);
+	@Override
+	public void serializePayload(OutputStream os, ProbeTestRun probeTestRun, boolean pretty) throws IOException {
+		getWriter(pretty).writeValue(os, probeTestRun);
 	}
 
 	@Override
+	@Deprecated
 	public <T extends ProbeTestRun> T deserializePayload(InputStreamReader isr, Class<T> clazz) throws IOException {
-		ObjectMapper mapper = new ObjectMapper();
-		return mapper.readValue(isr, clazz);
+		return getReader(clazz).readValue(isr);
+	}
+
+	@Override
+	public <T extends ProbeTestRun> T deserializePayload(InputStream is, Class<T> clazz) throws IOException {
+		return getReader(clazz).readValue(is);
+	}
+
+	/**
+	 * @param pretty Whether to indent the output
+	 * @return The shared writer
+	 */
+	private static ObjectWriter getWriter(boolean pretty) {
+		return pretty ? PRETTY_WRITER : COMPACT_WRITER;
+	}
+
+	/**
+	 * @param clazz The type to deserialize
+	 * @return The shared reader for the type
+	 */
+	private static ObjectReader getReader(Class<?> clazz) {
+		ObjectReader reader = READERS.get(clazz);
+
+		if (reader == null) {
+			reader = MAPPER.reader(clazz);
+			ObjectReader previous = READERS.putIfAbsent(clazz, reader);
+
+			if (previous != null) {
+				reader = previous;
+			}
+		}
+
+		return reader;
 	}
 }
@@ -0,0 +1,110 @@
+package io.probedock.client.core.serializer.smile;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.Base64Variants;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import io.probedock.client.common.model.ProbeTestRun;
+import io.probedock.client.core.serializer.ProbeSerializer;
+import io.probedock.client.core.serializer.StringPoolModule;
+import org.apache.commons.io.IOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Smile (binary JSON) Serializer implementation of {@link ProbeSerializer}. The payloads are smaller and
+ * faster to parse than their JSON counterpart, which makes this serializer a good fit to store payloads
+ * locally. It can be selected for the {@link io.probedock.client.core.storage.FileStore} with the
+ * <code>java.serializerClass</code> configuration.
+ * <p/>
+ * The format being binary, the payloads written to the character streams are encoded in Base64. The byte
+ * stream methods must be preferred.
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class SmileSerializer implements ProbeSerializer {
+	private static final ObjectMapper MAPPER = new ObjectMapper(
+		new SmileFactory()
+			// Back references to the repeated keys and values (tags, categories, ...) shrink the payloads
+			.enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+	)
+		.setSerializationInclusion(JsonInclude.Include.NON_NULL)
+		.configure(SerializationFeature.WRAP_ROOT_VALUE, false)
+		// The strings repeated in the test results are shared once deserialized
+		.registerModule(new StringPoolModule());
+
+	private static final ObjectWriter WRITER = MAPPER.writer();
+
+	/**
+	 * Encoding of the binary payloads written to the character streams
+	 */
+	private static final Base64Variant BASE64 = Base64Variants.MIME_NO_LINEFEEDS;
+
+	private static final ConcurrentMap<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<>();
+
+	@Override
+	@Deprecated
+	public void serializePayload(OutputStreamWriter osw, ProbeTestRun payload, boolean pretty) throws IOException {
+		// The binary payload is written as Base64 text, the characters survive any encoding of the writer
+		try (OutputStreamWriter writer = osw) {
+			writer.write(BASE64.encode(WRITER.writeValueAsBytes(payload)));
+		}
+	}
+
+	@Override
+	public void serializePayload(OutputStream os, ProbeTestRun payload, boolean pretty) throws IOException {
+		WRITER.writeValue(os, payload);
+	}
+
+	@Override
+	@Deprecated
+	public <T extends ProbeTestRun> T deserializePayload(InputStreamReader isr, Class<T> clazz) throws IOException {
+		String text;
+
+		try (InputStreamReader reader = isr) {
+			text = IOUtils.toString(reader);
+		}
+
+		try {
+			return getReader(clazz).readValue(BASE64.decode(text.trim()));
+		}
+		catch (IllegalArgumentException iae) {
+			throw new IOException("The payload is not a Base64 encoded Smile payload.", iae);
+		}
+	}
+
+	@Override
+	public <T extends ProbeTestRun> T deserializePayload(InputStream is, Class<T> clazz) throws IOException {
+		return getReader(clazz).readValue(is);
+	}
+
+	/**
+	 * @param clazz The type to deserialize
+	 * @return The shared reader for the type
+	 */
+	private static ObjectReader getReader(Class<?> clazz) {
+		ObjectReader reader = READERS.get(clazz);
+
+		if (reader == null) {
+			reader = MAPPER.reader(clazz);
+			ObjectReader previous = READERS.putIfAbsent(clazz, reader);
+
+			if (previous != null) {
+				reader = previous;
+			}
+		}
+
+		return reader;
+	}
+}
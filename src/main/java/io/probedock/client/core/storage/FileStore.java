@@ -2,21 +2,23 @@ package io.probedock.client.core.storage;
 
 import io.probedock.client.common.config.Configuration;
 import io.probedock.client.common.model.ProbeTestRun;
-import io.probedock.client.common.utils.Constants;
+import io.probedock.client.core.serializer.AbstractProbeSerializer;
 import io.probedock.client.core.serializer.ProbeSerializer;
 import io.probedock.client.core.serializer.json.JsonSerializer;
-import org.apache.commons.io.FileUtils;
 
 import java.io.*;
-import java.nio.charset.Charset;
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.UUID;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * File store to keep the result between runs
+ * File store to keep the result between runs. The payloads of a directory are appended to a
+ * {@link SegmentLog}, the payload files of the previous versions are imported in the log.
  * 
  * @author Laurent Prevost laurent.prevost@probedock.io
  */
@@ -26,6 +28,11 @@ public class FileStore {
 	private Configuration configuration;
 	
 	private ProbeSerializer serializer;
+
+	/**
+	 * Directory relative to the workspace where the payloads are stored, null to store them by project version
+	 */
+	private String directory;
 	
 	/**
 	 * Constructor
@@ -33,7 +40,19 @@ public class FileStore {
 	 * @param configuration The configuration
 	 */
 	public FileStore(Configuration configuration) {
+		this(configuration, null);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param configuration The configuration
+	 * @param directory The directory relative to the workspace where the payloads are stored,
+	 *                  null to store them in a temporary directory per project version
+	 */
+	public FileStore(Configuration configuration, String directory) {
 		this.configuration = configuration;
+		this.directory = directory;
 		
 		if (configuration.getSerializer() == null) {
 			LOGGER.info("Default serializer " + JsonSerializer.class.getName() + " will be used.");
@@ -41,48 +60,64 @@ public class FileStore {
 		}
 		else {
 			try {
-				serializer = (ProbeSerializer) getClass().getClassLoader().loadClass(configuration.getSerializer()).newInstance();
+				// The serializers compiled against the previous versions only implement the character stream methods
+				serializer = AbstractProbeSerializer.compatible(
+					(ProbeSerializer) getClass().getClassLoader().loadClass(configuration.getSerializer()).newInstance()
+				);
 			}
-			catch (ClassNotFoundException | InstantiationException | IllegalAccessException e) {
+			catch (ClassNotFoundException | InstantiationException | IllegalAccessException | ClassCastException e) {
 				LOGGER.log(Level.WARNING, "Unable to create the serializer " + configuration.getSerializer() + ", default one will be used.", e);
-			}
-			finally {
 				serializer = new JsonSerializer();
 			}
 		}
 	}
 	
+	/**
+	 * Close the logs of the payloads opened by the stores. They are closed when the JVM exits, the stores
+	 * can still be used and open them again.
+	 */
+	public static void closeLogs() {
+		SegmentLog.closeAll();
+	}
+
 	/**
 	 * Save a payload
 	 * 
 	 * @param probeTestRun The payload to save
+	 * @return The name of the payload saved
 	 * @throws IOException I/O Errors
 	 */
-	public void save(ProbeTestRun probeTestRun) throws IOException {
-		OutputStreamWriter osw = new OutputStreamWriter(
-			new FileOutputStream(new File(getTmpDir(probeTestRun), UUID.randomUUID().toString())),
-			Charset.forName(Constants.ENCODING).newEncoder()
-		);
-		
-		serializer.serializePayload(osw, probeTestRun, true);
+	public String save(final ProbeTestRun probeTestRun) throws IOException {
+		String name = UUID.randomUUID().toString();
+
+		getLog(getTmpDir(probeTestRun)).append(name, PayloadHeader.of(probeTestRun), new SegmentLog.PayloadWriter() {
+			@Override
+			public void write(OutputStream os) throws IOException {
+				serializer.serializePayload(os, probeTestRun, true);
+			}
+		});
+
+		return name;
 	}
 	
 	/**
 	 * Load a payload
 	 * 
 	 * @param <T> The payload type
-	 * @param name The name of the payload file to load
+	 * @param name The name of the payload to load
 	 * @param clazz The class of the payload
 	 * @return The payload loaded
+	 * @throws FileNotFoundException When there is no payload with this name
 	 * @throws IOException I/O Errors
 	 */
 	public <T extends ProbeTestRun> T load(String name, Class<T> clazz) throws IOException {
-		InputStreamReader isr = new InputStreamReader(
-			new FileInputStream(new File(getTmpDir(clazz), name)),
-			Charset.forName(Constants.ENCODING).newDecoder()
-		);
-		
-		return serializer.deserializePayload(isr, clazz);
+		T payload = getLog(getTmpDir(clazz)).read(name, getReader(clazz));
+
+		if (payload == null) {
+			throw new FileNotFoundException("The payload " + name + " does not exist.");
+		}
+
+		return payload;
 	}
 	
 	/**
@@ -90,36 +125,197 @@ public class FileStore {
 	 * 
 	 * @param <T> The payload type
 	 * @param clazz The class of the payload
-	 * @return The list of payloads loaded
+	 * @return The list of payloads loaded, the oldest first
 	 * @throws IOException 
 	 */
 	public <T extends ProbeTestRun> List<T> load(Class<T> clazz) throws IOException {
-		List<T> payloads = new ArrayList<>();
-		
-		for (File f : getTmpDir(clazz).listFiles()) {
-			if (f.isFile()) {
-				InputStreamReader isr = new InputStreamReader(
-					new FileInputStream(f),
-					Charset.forName(Constants.ENCODING).newDecoder()
-				);
+		return getLog(getTmpDir(clazz)).readAll(getReader(clazz));
+	}
 
-				payloads.add(serializer.deserializePayload(isr, clazz));
+	/**
+	 * Iterate over the payloads, the oldest first. The payloads are read one at a time while iterating, so
+	 * the iteration can be stopped at any time and the payloads already read can be released.
+	 *
+	 * @param <T> The payload type
+	 * @param clazz The class of the payload
+	 * @return The payloads, the ones removed or not readable while iterating are skipped
+	 * @throws IOException I/O Errors
+	 */
+	public <T extends ProbeTestRun> Iterable<T> iterate(Class<T> clazz) throws IOException {
+		return iterate(clazz, null);
+	}
+
+	/**
+	 * Iterate over the payloads accepted by a filter, the oldest first. The filter is applied on the headers
+	 * kept with the payloads, the payloads rejected are never read. The payloads stored by the previous
+	 * versions have no header, they are read to be filtered.
+	 *
+	 * @param <T> The payload type
+	 * @param clazz The class of the payload
+	 * @param filter The filter, null to iterate over all the payloads
+	 * @return The payloads, the ones removed or not readable while iterating are skipped
+	 * @throws IOException I/O Errors
+	 */
+	public <T extends ProbeTestRun> Iterable<T> iterate(final Class<T> clazz, final PayloadFilter filter) throws IOException {
+		final SegmentLog log = getLog(getTmpDir(clazz));
+		final Map<String, PayloadHeader> headers = log.getHeaders();
+
+		return new Iterable<T>() {
+			@Override
+			public Iterator<T> iterator() {
+				return new PayloadIterator<>(log, headers, clazz, filter);
 			}
+		};
+	}
+
+	/**
+	 * Load a payload and remove it at once. When the store is shared, only one of the concurrent callers
+	 * gets the payload.
+	 *
+	 * @param <T> The payload type
+	 * @param name The name of the payload to take
+	 * @param clazz The class of the payload
+	 * @return The payload, null if the payload does not exist anymore
+	 * @throws IOException I/O Errors
+	 */
+	public <T extends ProbeTestRun> T take(String name, Class<T> clazz) throws IOException {
+		return getLog(getTmpDir(clazz)).take(name, getReader(clazz));
+	}
+
+	/**
+	 * Retrieve the names of the payloads stored, the oldest first
+	 *
+	 * @param clazz The class of the payload
+	 * @return The names of the payloads
+	 */
+	public List<String> getNames(Class<? extends ProbeTestRun> clazz) {
+		try {
+			return getLog(getTmpDir(clazz)).getNames();
+		}
+		catch (IOException ioe) {
+			LOGGER.log(Level.WARNING, "Unable to read the payloads stored.", ioe);
+			return Collections.emptyList();
+		}
+	}
+
+	/**
+	 * Remove a payload
+	 *
+	 * @param name The name of the payload to remove
+	 * @param clazz The class of the payload
+	 * @return True if the payload was removed, false if it does not exist anymore
+	 */
+	public boolean remove(String name, Class<? extends ProbeTestRun> clazz) {
+		try {
+			return getLog(getTmpDir(clazz)).remove(name);
+		}
+		catch (IOException ioe) {
+			LOGGER.log(Level.WARNING, "Unable to remove the payload " + name + ".", ioe);
+			return false;
 		}
-		
-		return payloads;
 	}
 	
 	/**
-	 * Clear the directory where payloads are stored
+	 * Clear the payloads stored
 	 * 
 	 * @param clazz The class of the payload
 	 * @throws IOException I/O Errors
 	 */
 	public void clear(Class<? extends ProbeTestRun> clazz) throws IOException {
-		FileUtils.cleanDirectory(getTmpDir(clazz));
+		getLog(getTmpDir(clazz)).clear();
 	}
 	
+	/**
+	 * @param <T> The payload type
+	 * @param clazz The class of the payload
+	 * @return The reader of the payloads stored, the errors of the serializer are raised as {@link InvalidPayloadException}
+	 */
+	private <T extends ProbeTestRun> SegmentLog.PayloadReader<T> getReader(final Class<T> clazz) {
+		return new SegmentLog.PayloadReader<T>() {
+			@Override
+			public T read(InputStream is) throws IOException {
+				try {
+					return serializer.deserializePayload(is, clazz);
+				}
+				catch (IOException | RuntimeException e) {
+					throw new InvalidPayloadException("Unable to deserialize the payload with " + serializer.getClass().getName() + ".", e);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Iterator which reads the payloads when they are reached
+	 *
+	 * @param <T> The payload type
+	 */
+	private class PayloadIterator<T extends ProbeTestRun> implements Iterator<T> {
+		private final SegmentLog log;
+		private final Iterator<Map.Entry<String, PayloadHeader>> headers;
+		private final Class<T> clazz;
+		private final PayloadFilter filter;
+
+		private T next;
+
+		private PayloadIterator(SegmentLog log, Map<String, PayloadHeader> headers, Class<T> clazz, PayloadFilter filter) {
+			this.log = log;
+			this.headers = headers.entrySet().iterator();
+			this.clazz = clazz;
+			this.filter = filter;
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (next == null && headers.hasNext()) {
+				Map.Entry<String, PayloadHeader> e = headers.next();
+
+				if (filter != null && e.getValue() != null && !filter.accept(e.getValue())) {
+					continue;
+				}
+
+				try {
+					T payload = log.read(e.getKey(), getReader(clazz));
+
+					if (payload != null && (filter == null || e.getValue() != null || filter.accept(PayloadHeader.of(payload)))) {
+						next = payload;
+					}
+				}
+				catch (IOException ioe) {
+					LOGGER.log(Level.WARNING, "Unable to read the payload " + e.getKey() + ", it is skipped.", ioe);
+				}
+			}
+
+			return next != null;
+		}
+
+		@Override
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			T payload = next;
+			next = null;
+			return payload;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	/**
+	 * Retrieve the log where the payloads of a directory are stored
+	 *
+	 * @param dir The directory
+	 * @return The log of the directory
+	 * @throws IOException I/O Errors
+	 */
+	private SegmentLog getLog(File dir) throws IOException {
+		return SegmentLog.open(dir);
+	}
+
 	/**
 	 * Retrieve the temporary directory where to store/load payloads
 	 * 
@@ -127,13 +323,7 @@ public class FileStore {
 	 * @return The temp directory, new one if the directory does not exist
 	 */
 	private File getTmpDir(ProbeTestRun testRun) {
-		File tmpDir = new File(configuration.getWorkspace() + "/tmp/" + testRun.getVersion());
-		
-		if (!tmpDir.exists()) {
-			tmpDir.mkdirs();
-		}
-		
-		return tmpDir;
+		return getTmpDir(directory != null ? directory : "tmp/" + testRun.getVersion());
 	}
 	
 	/**
@@ -143,6 +333,10 @@ public class FileStore {
 	 * @return The temp directory, null if not able to create a new instance of the payload class
 	 */
 	private File getTmpDir(Class<? extends ProbeTestRun> clazz) {
+		if (directory != null) {
+			return getTmpDir(directory);
+		}
+
 		try {
 			return getTmpDir(clazz.newInstance());
 		}
@@ -150,4 +344,20 @@ public class FileStore {
 			return null;
 		}
 	}
+
+	/**
+	 * Retrieve a directory in the workspace where to store/load payloads
+	 *
+	 * @param path The path of the directory relative to the workspace
+	 * @return The directory, new one if the directory does not exist
+	 */
+	private File getTmpDir(String path) {
+		File tmpDir = new File(configuration.getWorkspace() + "/" + path);
+
+		if (!tmpDir.exists()) {
+			tmpDir.mkdirs();
+		}
+
+		return tmpDir;
+	}
 }
@@ -0,0 +1,21 @@
+package io.probedock.client.core.storage;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a payload stored cannot be deserialized. Reading it again gives the same error, unlike the
+ * other I/O errors that can be transient.
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class InvalidPayloadException extends IOException {
+	/**
+	 * Constructor
+	 *
+	 * @param message The message
+	 * @param cause The error raised by the serializer
+	 */
+	public InvalidPayloadException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
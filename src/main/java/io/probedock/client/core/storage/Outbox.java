@@ -0,0 +1,181 @@
+package io.probedock.client.core.storage;
+
+import io.probedock.client.common.config.Configuration;
+import io.probedock.client.common.config.ServerConfiguration;
+import io.probedock.client.common.model.ProbeTestRun;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Outbox where the test runs that could not be sent to a Probe Dock server are kept until they are
+ * replayed. Each server has its own outbox directory in the workspace.
+ * <p/>
+ * The replay reads an entry with {@link #peek(String, Class)} and removes it once Probe Dock accepted it, so the
+ * entries keep their order and are not lost when the replay is interrupted. A single replay runs at a time for
+ * an outbox ({@link #lockReplay()}). An entry that cannot be deserialized is removed with an error message instead
+ * of being retried forever.
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class Outbox {
+	private static final Logger LOGGER = Logger.getLogger(Outbox.class.getCanonicalName());
+
+	private static final String OUTBOX_DIR = "outbox/";
+
+	private static final String REPLAY_LOCK_FILE = "replay.lock";
+
+	private FileStore store;
+
+	private File directory;
+
+	/**
+	 * Constructor
+	 *
+	 * @param configuration The configuration
+	 * @param serverConfiguration The server where the test runs of the outbox must be sent
+	 */
+	public Outbox(Configuration configuration, ServerConfiguration serverConfiguration) {
+		this.store = new FileStore(configuration, OUTBOX_DIR + serverConfiguration.getName());
+		this.directory = new File(configuration.getWorkspace() + "/" + OUTBOX_DIR + serverConfiguration.getName());
+	}
+
+	/**
+	 * Add a test run to the outbox
+	 *
+	 * @param testRun The test run to keep
+	 * @return The name of the entry created
+	 * @throws IOException I/O Errors
+	 */
+	public String add(ProbeTestRun testRun) throws IOException {
+		return store.save(testRun);
+	}
+
+	/**
+	 * @param clazz The class of the test runs
+	 * @return The names of the entries in the outbox, the oldest first
+	 */
+	public List<String> getEntries(Class<? extends ProbeTestRun> clazz) {
+		return store.getNames(clazz);
+	}
+
+	/**
+	 * Read an entry of the outbox without removing it
+	 *
+	 * @param <T> The type of test run
+	 * @param name The name of the entry
+	 * @param clazz The class of the test run
+	 * @return The test run, null if the entry was already removed or cannot be read
+	 */
+	public <T extends ProbeTestRun> T peek(String name, Class<T> clazz) {
+		try {
+			return store.load(name, clazz);
+		}
+		catch (FileNotFoundException fnfe) {
+			return null;
+		}
+		catch (InvalidPayloadException ipe) {
+			discard(name, clazz, ipe);
+			return null;
+		}
+		catch (IOException ioe) {
+			LOGGER.log(Level.WARNING, "Unable to read the entry " + name + " from the outbox.", ioe);
+			return null;
+		}
+	}
+
+	/**
+	 * Remove an entry of the outbox, once its test run is sent
+	 *
+	 * @param name The name of the entry
+	 * @param clazz The class of the test run
+	 * @return True if the entry was removed, false if it was already removed
+	 */
+	public boolean remove(String name, Class<? extends ProbeTestRun> clazz) {
+		return store.remove(name, clazz);
+	}
+
+	/**
+	 * Claim an entry of the outbox. Once claimed, the entry is not part of the outbox anymore and must be
+	 * added again if the test run cannot be sent.
+	 *
+	 * @param <T> The type of test run
+	 * @param name The name of the entry
+	 * @param clazz The class of the test run
+	 * @return The test run claimed, null if the entry was already claimed or cannot be read
+	 */
+	public <T extends ProbeTestRun> T claim(String name, Class<T> clazz) {
+		try {
+			// Only the one that removes the entry is allowed to send it
+			return store.take(name, clazz);
+		}
+		catch (InvalidPayloadException ipe) {
+			discard(name, clazz, ipe);
+			return null;
+		}
+		catch (IOException ioe) {
+			LOGGER.log(Level.WARNING, "Unable to read the entry " + name + " from the outbox.", ioe);
+			return null;
+		}
+	}
+
+	/**
+	 * Prevent the other replays of the outbox, in this JVM or in other processes, until the lock is closed
+	 *
+	 * @return The lock, null if another replay holds it
+	 * @throws IOException I/O Errors
+	 */
+	public Closeable lockReplay() throws IOException {
+		directory.mkdirs();
+
+		final FileChannel channel = FileChannel.open(new File(directory, REPLAY_LOCK_FILE).toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		final FileLock lock;
+
+		try {
+			lock = channel.tryLock();
+		}
+		catch (OverlappingFileLockException ofle) {
+			// Another replay of this JVM holds the lock
+			channel.close();
+			return null;
+		}
+		catch (IOException ioe) {
+			channel.close();
+			throw ioe;
+		}
+
+		if (lock == null) {
+			channel.close();
+			return null;
+		}
+
+		return new Closeable() {
+			@Override
+			public void close() throws IOException {
+				try {
+					lock.release();
+				}
+				finally {
+					channel.close();
+				}
+			}
+		};
+	}
+
+	/**
+	 * Remove an entry that cannot be deserialized, it would fail every replay
+	 */
+	private void discard(String name, Class<? extends ProbeTestRun> clazz, InvalidPayloadException ipe) {
+		LOGGER.log(Level.SEVERE, "The entry " + name + " of the outbox cannot be deserialized, it is removed.", ipe);
+		store.remove(name, clazz);
+	}
+}
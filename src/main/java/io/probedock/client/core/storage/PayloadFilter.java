@@ -0,0 +1,14 @@
+package io.probedock.client.core.storage;
+
+/**
+ * Filter of the stored payloads applied on their header
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public interface PayloadFilter {
+	/**
+	 * @param header The header of the payload
+	 * @return True if the payload must be read
+	 */
+	boolean accept(PayloadHeader header);
+}
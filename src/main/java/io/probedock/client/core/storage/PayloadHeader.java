@@ -0,0 +1,74 @@
+package io.probedock.client.core.storage;
+
+import io.probedock.client.common.model.ProbeTestRun;
+
+/**
+ * Data of a stored payload kept next to it, so the payloads can be selected without being read
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class PayloadHeader {
+	private final String projectId;
+	private final String version;
+	private final String pipeline;
+	private final String stage;
+	private final String reportUid;
+
+	/**
+	 * Constructor
+	 *
+	 * @param projectId The project identifier
+	 * @param version The project version
+	 * @param pipeline The pipeline
+	 * @param stage The stage
+	 * @param reportUid The report UID
+	 */
+	public PayloadHeader(String projectId, String version, String pipeline, String stage, String reportUid) {
+		this.projectId = projectId;
+		this.version = version;
+		this.pipeline = pipeline;
+		this.stage = stage;
+		this.reportUid = reportUid;
+	}
+
+	/**
+	 * Create the header of a test run
+	 *
+	 * @param testRun The test run
+	 * @return The header
+	 */
+	public static PayloadHeader of(ProbeTestRun testRun) {
+		return new PayloadHeader(
+			testRun.getProjectId(),
+			testRun.getVersion(),
+			testRun.getPipeline(),
+			testRun.getStage(),
+			testRun.getData() != null ? testRun.getData().get(ProbeTestRun.PROBEDOCK_REPORT_UID) : null
+		);
+	}
+
+	public String getProjectId() {
+		return projectId;
+	}
+
+	public String getVersion() {
+		return version;
+	}
+
+	public String getPipeline() {
+		return pipeline;
+	}
+
+	public String getStage() {
+		return stage;
+	}
+
+	public String getReportUid() {
+		return reportUid;
+	}
+
+	@Override
+	public String toString() {
+		return "projectId: " + projectId + ", version: " + version + ", pipeline: " + pipeline + ", stage: " + stage + ", reportUid: " + reportUid;
+	}
+}
@@ -0,0 +1,74 @@
+package io.probedock.client.core.storage;
+
+/**
+ * Filter of the stored payloads which accepts the payloads with the given header values. The values left
+ * null accept any payload.
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class PayloadHeaderFilter implements PayloadFilter {
+	private String projectId;
+	private String version;
+	private String pipeline;
+	private String stage;
+	private String reportUid;
+
+	/**
+	 * @param projectId The project identifier to accept
+	 * @return This
+	 */
+	public PayloadHeaderFilter projectId(String projectId) {
+		this.projectId = projectId;
+		return this;
+	}
+
+	/**
+	 * @param version The project version to accept
+	 * @return This
+	 */
+	public PayloadHeaderFilter version(String version) {
+		this.version = version;
+		return this;
+	}
+
+	/**
+	 * @param pipeline The pipeline to accept
+	 * @return This
+	 */
+	public PayloadHeaderFilter pipeline(String pipeline) {
+		this.pipeline = pipeline;
+		return this;
+	}
+
+	/**
+	 * @param stage The stage to accept
+	 * @return This
+	 */
+	public PayloadHeaderFilter stage(String stage) {
+		this.stage = stage;
+		return this;
+	}
+
+	/**
+	 * @param reportUid The report UID to accept
+	 * @return This
+	 */
+	public PayloadHeaderFilter reportUid(String reportUid) {
+		this.reportUid = reportUid;
+		return this;
+	}
+
+	@Override
+	public boolean accept(PayloadHeader header) {
+		return
+			matches(projectId, header.getProjectId()) &&
+			matches(version, header.getVersion()) &&
+			matches(pipeline, header.getPipeline()) &&
+			matches(stage, header.getStage()) &&
+			matches(reportUid, header.getReportUid());
+	}
+
+	private static boolean matches(String expected, String actual) {
+		return expected == null || expected.equals(actual);
+	}
+}
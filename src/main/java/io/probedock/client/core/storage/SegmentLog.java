@@ -0,0 +1,1161 @@
+package io.probedock.client.core.storage;
+
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UTFDataFormatException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Append-only log of payloads stored in segment files. Each payload is a record prefixed by its length and
+ * its checksum, and a removal appends a tombstone record. The location and the header of the live records
+ * are kept in memory and written periodically in an index file, so only the records appended after the
+ * index are read again when the log is opened.
+ * <p/>
+ * A record with a wrong checksum is skipped, the records after it are still read. Only a record which
+ * goes beyond the end of the last segment, i.e. not written completely, is overwritten by the next record.
+ * The records are appended to a new segment when the last one has corrupted records.
+ * <p/>
+ * A new segment is started once the active one reaches the segment size. When the removed records take more
+ * than half of the log, the live records are copied in a new segment and the old segments are deleted. When
+ * no record is live anymore, all the segments are deleted.
+ * <p/>
+ * The log can be shared by several JVMs, each operation takes a lock on the directory and reads the records
+ * appended by the others first. The logs are closed when the JVM exits or with {@link #closeAll()}.
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+class SegmentLog {
+	private static final Logger LOGGER = Logger.getLogger(SegmentLog.class.getCanonicalName());
+
+	/**
+	 * Version of the format of the segments and the index. The segments of the version 1 are still read, their
+	 * payloads have no header.
+	 */
+	static final int FORMAT_VERSION = 2;
+
+	private static final int FIRST_FORMAT_VERSION = 1;
+
+	static final long DEFAULT_SEGMENT_SIZE = 16L * 1024 * 1024;
+	static final long DEFAULT_COMPACTION_THRESHOLD = 4L * 1024 * 1024;
+
+	private static final int SEGMENT_MAGIC = 0x50445347;
+	private static final int INDEX_MAGIC = 0x50444958;
+
+	/**
+	 * Magic number and format version
+	 */
+	private static final int SEGMENT_HEADER_SIZE = 8;
+
+	/**
+	 * Length and checksum of the record
+	 */
+	private static final int RECORD_HEADER_SIZE = 8;
+
+	private static final byte PAYLOAD = 1;
+	private static final byte TOMBSTONE = 2;
+	private static final byte PAYLOAD_WITH_HEADER = 3;
+
+	/**
+	 * Number of changes after which the index is written again
+	 */
+	private static final int INDEX_INTERVAL = 64;
+
+	private static final String SEGMENT_EXTENSION = ".log";
+	private static final String INDEX_FILE = "index";
+	private static final String LOCK_FILE = "lock";
+
+	/**
+	 * Name of the payload files of the previous versions of the store
+	 */
+	private static final Pattern LEGACY_PAYLOAD = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+
+	/**
+	 * Logs by directory, the operations on a log are serialized in the JVM before the directory is locked
+	 */
+	private static final ConcurrentMap<File, SegmentLog> LOGS = new ConcurrentHashMap<>();
+
+	static {
+		// The lock files are released before the JVM exits
+		Runtime.getRuntime().addShutdownHook(new Thread("probedock-segment-logs") {
+			@Override
+			public void run() {
+				closeAll();
+			}
+		});
+	}
+
+	private final File directory;
+	private final long segmentSize;
+	private final long compactionThreshold;
+
+	private FileChannel lockChannel;
+
+	private boolean closed;
+
+	/**
+	 * Live records by name, in the order they were appended
+	 */
+	private final Map<String, Record> records = new LinkedHashMap<>();
+
+	/**
+	 * Segments read
+	 */
+	private final SortedSet<Long> segments = new TreeSet<>();
+
+	/**
+	 * Segments with an unknown format, they are left untouched
+	 */
+	private final SortedSet<Long> ignoredSegments = new TreeSet<>();
+
+	private boolean loaded;
+
+	/**
+	 * Last segment read, its format version and the position after its last valid record
+	 */
+	private long scanSegment;
+	private int scanVersion;
+	private long scanPosition;
+
+	/**
+	 * Whether corrupted records were skipped in the last segment read, it is never written again
+	 */
+	private boolean scanCorrupted;
+
+	private long totalBytes;
+	private long liveBytes;
+
+	private int changes;
+
+	/**
+	 * Constructor
+	 *
+	 * @param directory The directory of the segments
+	 * @param segmentSize The size from which a new segment is started
+	 * @param compactionThreshold The size of the log from which the compaction is considered
+	 */
+	SegmentLog(File directory, long segmentSize, long compactionThreshold) {
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.compactionThreshold = compactionThreshold;
+	}
+
+	/**
+	 * Open the log of a directory. The payload files of the previous versions of the store found in the
+	 * directory are imported in the log.
+	 *
+	 * @param directory The directory
+	 * @return The log of the directory, shared in the JVM
+	 * @throws IOException I/O Errors
+	 */
+	static SegmentLog open(File directory) throws IOException {
+		File key = directory.getCanonicalFile();
+
+		SegmentLog log = LOGS.get(key);
+
+		if (log == null) {
+			log = new SegmentLog(key, DEFAULT_SEGMENT_SIZE, DEFAULT_COMPACTION_THRESHOLD);
+
+			// The log is locked before it is published, the other threads wait until the legacy payloads are imported
+			synchronized (log) {
+				SegmentLog existing = LOGS.putIfAbsent(key, log);
+				if (existing != null) {
+					return existing;
+				}
+
+				try {
+					log.importLegacyPayloads();
+				}
+				catch (IOException | RuntimeException e) {
+					log.close();
+					throw e;
+				}
+			}
+		}
+
+		return log;
+	}
+
+	/**
+	 * Close the logs opened in the JVM
+	 */
+	static void closeAll() {
+		for (SegmentLog log : LOGS.values()) {
+			try {
+				log.close();
+			}
+			catch (IOException ioe) {
+				LOGGER.log(Level.WARNING, "Unable to close the log of " + log.directory + ".", ioe);
+			}
+		}
+	}
+
+	/**
+	 * Close the lock file of the log. The log cannot be used anymore once closed, the next call to
+	 * {@link #open(File)} opens it again.
+	 *
+	 * @throws IOException I/O Errors
+	 */
+	synchronized void close() throws IOException {
+		closed = true;
+		LOGS.remove(directory, this);
+
+		if (lockChannel != null) {
+			try {
+				lockChannel.close();
+			}
+			finally {
+				lockChannel = null;
+			}
+		}
+	}
+
+	/**
+	 * Append a payload
+	 *
+	 * @param name The name of the payload
+	 * @param header The header of the payload, null if none
+	 * @param writer The writer of the payload content
+	 * @throws IOException I/O Errors
+	 */
+	synchronized void append(String name, PayloadHeader header, PayloadWriter writer) throws IOException {
+		FileLock lock = lock();
+
+		try {
+			put(name, header, writer);
+		}
+		finally {
+			lock.release();
+		}
+	}
+
+	/**
+	 * Read a payload
+	 *
+	 * @param <T> The type of payload
+	 * @param name The name of the payload
+	 * @param reader The reader of the payload content
+	 * @return The payload, null if there is no payload with this name
+	 * @throws IOException I/O Errors
+	 */
+	synchronized <T> T read(String name, PayloadReader<T> reader) throws IOException {
+		FileLock lock = lock();
+
+		try {
+			Record record = records.get(name);
+			return record != null ? read(record, reader) : null;
+		}
+		finally {
+			lock.release();
+		}
+	}
+
+	/**
+	 * Read all the payloads, the oldest first
+	 *
+	 * @param <T> The type of payload
+	 * @param reader The reader of the payload content
+	 * @return The payloads
+	 * @throws IOException I/O Errors
+	 */
+	synchronized <T> List<T> readAll(PayloadReader<T> reader) throws IOException {
+		FileLock lock = lock();
+
+		try {
+			List<T> payloads = new ArrayList<>(records.size());
+
+			// Each segment is mapped once for all its records and unmapped once they are read
+			long mappedId = -1;
+			ByteBuffer mapped = null;
+
+			try {
+				for (Record record : records.values()) {
+					if (record.segment != mappedId) {
+						unmap(mapped);
+						mapped = map(record.segment);
+						mappedId = record.segment;
+					}
+
+					payloads.add(mapped != null ? read(mapped, record, reader) : read(record, reader));
+				}
+			}
+			finally {
+				unmap(mapped);
+			}
+
+			return payloads;
+		}
+		finally {
+			lock.release();
+		}
+	}
+
+	/**
+	 * Read and remove a payload at once. Only one of the concurrent callers gets the payload.
+	 *
+	 * @param <T> The type of payload
+	 * @param name The name of the payload
+	 * @param reader The reader of the payload content
+	 * @return The payload, null if there is no payload with this name
+	 * @throws IOException I/O Errors
+	 */
+	synchronized <T> T take(String name, PayloadReader<T> reader) throws IOException {
+		FileLock lock = lock();
+
+		try {
+			Record record = records.get(name);
+
+			if (record == null) {
+				return null;
+			}
+
+			T payload = read(record, reader);
+			delete(name);
+			return payload;
+		}
+		finally {
+			lock.release();
+		}
+	}
+
+	/**
+	 * Remove a payload
+	 *
+	 * @param name The name of the payload
+	 * @return True if the payload was removed, false if it does not exist anymore
+	 * @throws IOException I/O Errors
+	 */
+	synchronized boolean remove(String name) throws IOException {
+		FileLock lock = lock();
+
+		try {
+			return records.containsKey(name) && delete(name);
+		}
+		finally {
+			lock.release();
+		}
+	}
+
+	/**
+	 * @return The headers of the payloads by name, the oldest first. The header is null for the payloads
+	 * stored without header.
+	 * @throws IOException I/O Errors
+	 */
+	synchronized Map<String, PayloadHeader> getHeaders() throws IOException {
+		FileLock lock = lock();
+
+		try {
+			Map<String, PayloadHeader> headers = new LinkedHashMap<>();
+
+			for (Map.Entry<String, Record> e : records.entrySet()) {
+				headers.put(e.getKey(), e.getValue().header);
+			}
+
+			return headers;
+		}
+		finally {
+			lock.release();
+		}
+	}
+
+	/**
+	 * @return The names of the payloads, the oldest first
+	 * @throws IOException I/O Errors
+	 */
+	synchronized List<String> getNames() throws IOException {
+		FileLock lock = lock();
+
+		try {
+			return new ArrayList<>(records.keySet());
+		}
+		finally {
+			lock.release();
+		}
+	}
+
+	/**
+	 * Remove all the payloads by deleting the segments
+	 *
+	 * @throws IOException I/O Errors
+	 */
+	synchronized void clear() throws IOException {
+		FileLock lock = lock();
+
+		try {
+			deleteAll();
+		}
+		finally {
+			lock.release();
+		}
+	}
+
+	/**
+	 * Lock the directory and read the records appended by the other JVMs
+	 *
+	 * @return The lock to release
+	 * @throws IOException I/O Errors
+	 */
+	private FileLock lock() throws IOException {
+		if (closed) {
+			throw new IOException("The log of " + directory + " is closed.");
+		}
+
+		File lockFile = new File(directory, LOCK_FILE);
+
+		// The directory can be deleted by anyone between two operations
+		if (lockChannel == null || !lockFile.exists()) {
+			if (lockChannel != null) {
+				lockChannel.close();
+			}
+
+			if (!directory.exists() && !directory.mkdirs() && !directory.exists()) {
+				throw new IOException("Unable to create the directory " + directory + ".");
+			}
+
+			lockChannel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		}
+
+		FileLock lock = lockChannel.lock();
+
+		try {
+			refresh();
+		}
+		catch (IOException | RuntimeException e) {
+			lock.release();
+			throw e;
+		}
+
+		return lock;
+	}
+
+	/**
+	 * Read the records appended since the last operation. Everything is read again when a known segment
+	 * was deleted by a compaction.
+	 *
+	 * @throws IOException I/O Errors
+	 */
+	private void refresh() throws IOException {
+		SortedSet<Long> existing = listSegments();
+
+		if (!loaded || !existing.containsAll(segments)) {
+			reset();
+			readIndex(existing);
+			loaded = true;
+		}
+
+		for (long id : existing.tailSet(scanSegment)) {
+			if (!ignoredSegments.contains(id)) {
+				scan(id, id == scanSegment ? scanPosition : 0);
+			}
+		}
+	}
+
+	private void reset() {
+		records.clear();
+		segments.clear();
+		ignoredSegments.clear();
+		scanSegment = 0;
+		scanVersion = 0;
+		scanPosition = 0;
+		scanCorrupted = false;
+		totalBytes = 0;
+		liveBytes = 0;
+		changes = 0;
+	}
+
+	/**
+	 * Read the records of a segment
+	 *
+	 * @param id The segment
+	 * @param from The position of the first record to read, 0 to read the whole segment
+	 * @throws IOException I/O Errors
+	 */
+	private void scan(long id, long from) throws IOException {
+		File file = getSegmentFile(id);
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			int version = readVersion(channel);
+
+			if (version < FIRST_FORMAT_VERSION || version > FORMAT_VERSION) {
+				LOGGER.warning("The segment " + file + " has an unknown format, its payloads are ignored.");
+				ignoredSegments.add(id);
+				return;
+			}
+
+			if (id != scanSegment) {
+				scanCorrupted = false;
+			}
+
+			if (from == 0) {
+				from = SEGMENT_HEADER_SIZE;
+				totalBytes += SEGMENT_HEADER_SIZE;
+			}
+
+			segments.add(id);
+			scanSegment = id;
+			scanVersion = version;
+			scanPosition = from;
+
+			DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(scanPosition))));
+
+			while (size - scanPosition >= RECORD_HEADER_SIZE) {
+				int length = in.readInt();
+				int checksum = in.readInt();
+
+				// The end of the segment was not written completely
+				if (length <= 0 || length > size - scanPosition - RECORD_HEADER_SIZE) {
+					break;
+				}
+
+				CRC32 crc = new CRC32();
+				CountingInputStream counter = new CountingInputStream(new BoundedInputStream(in, length));
+				DataInputStream body = new DataInputStream(new CheckedInputStream(counter, crc));
+
+				byte type;
+				String name;
+				PayloadHeader header;
+				long payloadOffset;
+
+				try {
+					type = body.readByte();
+					name = body.readUTF();
+					header = type == PAYLOAD_WITH_HEADER ? readHeader(body) : null;
+					payloadOffset = scanPosition + RECORD_HEADER_SIZE + counter.getByteCount();
+				}
+				catch (EOFException | UTFDataFormatException e) {
+					// The content does not fit in the length of the record, the checksum cannot match
+					type = 0;
+					name = null;
+					header = null;
+					payloadOffset = 0;
+				}
+
+				consume(body);
+
+				// The length is trusted to skip a corrupted record, the next ones are still read
+				if (name == null || (int) crc.getValue() != checksum) {
+					LOGGER.warning("The record at the position " + scanPosition + " of the segment " + file + " is corrupted, its payload is ignored.");
+					scanCorrupted = true;
+					scanPosition += RECORD_HEADER_SIZE + length;
+					totalBytes += RECORD_HEADER_SIZE + length;
+					continue;
+				}
+
+				Record record = new Record(id, scanPosition, RECORD_HEADER_SIZE + length, payloadOffset, (int) (scanPosition + RECORD_HEADER_SIZE + length - payloadOffset), header);
+
+				if (type == PAYLOAD || type == PAYLOAD_WITH_HEADER) {
+					Record previous = records.put(name, record);
+					if (previous != null) {
+						liveBytes -= previous.length;
+					}
+					liveBytes += record.length;
+				}
+				else {
+					Record removed = records.remove(name);
+					if (removed != null) {
+						liveBytes -= removed.length;
+					}
+				}
+
+				scanPosition += record.length;
+				totalBytes += record.length;
+			}
+		}
+		catch (EOFException | UTFDataFormatException e) {
+			LOGGER.log(Level.FINE, "The segment " + file + " ends with an invalid record at the position " + scanPosition + ".", e);
+		}
+	}
+
+	/**
+	 * Write a record at the end of the active segment
+	 *
+	 * @param type The type of record
+	 * @param name The name of the payload
+	 * @param header The header of the payload, null if none
+	 * @param writer The writer of the payload content, null for a tombstone
+	 * @return The record written
+	 * @throws IOException I/O Errors
+	 */
+	private Record write(byte type, String name, PayloadHeader header, PayloadWriter writer) throws IOException {
+		// The records of the current format are never appended to a segment of a previous format or to a corrupted one
+		if (segments.isEmpty() || scanPosition >= segmentSize || scanVersion != FORMAT_VERSION || scanCorrupted) {
+			roll();
+		}
+
+		long id = scanSegment;
+
+		try (FileChannel channel = FileChannel.open(getSegmentFile(id).toPath(), StandardOpenOption.WRITE)) {
+			// Remove what remains of a record that was not written completely
+			if (channel.size() > scanPosition) {
+				channel.truncate(scanPosition);
+			}
+
+			CRC32 crc = new CRC32();
+			DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+				new BufferedOutputStream(Channels.newOutputStream(channel.position(scanPosition + RECORD_HEADER_SIZE))), crc
+			));
+
+			out.writeByte(type);
+			out.writeUTF(name);
+			if (header != null) {
+				writeHeader(out, header);
+			}
+			int payloadStart = out.size();
+
+			if (writer != null) {
+				writer.write(new CloseShieldOutputStream(out));
+			}
+
+			out.flush();
+
+			int length = out.size();
+
+			ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+			recordHeader.putInt(length).putInt((int) crc.getValue()).flip();
+			while (recordHeader.hasRemaining()) {
+				channel.write(recordHeader, scanPosition + recordHeader.position());
+			}
+
+			Record record = new Record(id, scanPosition, RECORD_HEADER_SIZE + length, scanPosition + RECORD_HEADER_SIZE + payloadStart, length - payloadStart, header);
+
+			scanPosition += record.length;
+			totalBytes += record.length;
+
+			return record;
+		}
+	}
+
+	/**
+	 * Start a new segment
+	 *
+	 * @throws IOException I/O Errors
+	 */
+	private void roll() throws IOException {
+		boolean rolled = !segments.isEmpty();
+
+		long id = createSegment();
+
+		segments.add(id);
+		scanSegment = id;
+		scanVersion = FORMAT_VERSION;
+		scanPosition = SEGMENT_HEADER_SIZE;
+		scanCorrupted = false;
+		totalBytes += SEGMENT_HEADER_SIZE;
+
+		if (rolled) {
+			writeIndex();
+		}
+	}
+
+	private long createSegment() throws IOException {
+		// The identifiers are never reused, the other JVMs know that the segments they read were deleted
+		long id = Math.max(segments.isEmpty() ? 0 : segments.last() + 1, System.currentTimeMillis());
+
+		SortedSet<Long> existing = listSegments();
+		if (!existing.isEmpty() && existing.last() >= id) {
+			id = existing.last() + 1;
+		}
+
+		try (DataOutputStream out = new DataOutputStream(new FileOutputStream(getSegmentFile(id)))) {
+			out.writeInt(SEGMENT_MAGIC);
+			out.writeInt(FORMAT_VERSION);
+		}
+
+		return id;
+	}
+
+	private boolean delete(String name) throws IOException {
+		write(TOMBSTONE, name, null, null);
+		liveBytes -= records.remove(name).length;
+		changed();
+		return true;
+	}
+
+	/**
+	 * Drop or compact the segments when the payloads were removed, write the index periodically otherwise
+	 *
+	 * @throws IOException I/O Errors
+	 */
+	private void changed() throws IOException {
+		if (records.isEmpty()) {
+			deleteAll();
+		}
+		else if (totalBytes >= compactionThreshold && liveBytes * 2 < totalBytes) {
+			compact();
+		}
+		else if (++changes >= INDEX_INTERVAL) {
+			writeIndex();
+		}
+	}
+
+	/**
+	 * Copy the live records in a new segment and delete the others. The old segments are deleted from the
+	 * oldest, so a tombstone is never deleted before the record it removes.
+	 *
+	 * @throws IOException I/O Errors
+	 */
+	private void compact() throws IOException {
+		long id = createSegment();
+		long position = SEGMENT_HEADER_SIZE;
+
+		Map<String, Record> compacted = new LinkedHashMap<>();
+
+		try (FileChannel target = FileChannel.open(getSegmentFile(id).toPath(), StandardOpenOption.WRITE)) {
+			FileChannel source = null;
+			long sourceId = -1;
+
+			try {
+				for (Map.Entry<String, Record> e : records.entrySet()) {
+					Record record = e.getValue();
+
+					if (record.segment != sourceId) {
+						if (source != null) {
+							source.close();
+						}
+
+						source = FileChannel.open(getSegmentFile(record.segment).toPath(), StandardOpenOption.READ);
+						sourceId = record.segment;
+					}
+
+					long copied = 0;
+					while (copied < record.length) {
+						copied += source.transferTo(record.offset + copied, record.length - copied, target.position(position + copied));
+					}
+
+					compacted.put(e.getKey(), new Record(id, position, record.length, position + record.payloadOffset - record.offset, record.payloadLength, record.header));
+					position += record.length;
+				}
+			}
+			finally {
+				if (source != null) {
+					source.close();
+				}
+			}
+
+			target.force(false);
+		}
+
+		for (long segment : segments) {
+			Files.deleteIfExists(getSegmentFile(segment).toPath());
+		}
+
+		records.clear();
+		records.putAll(compacted);
+
+		segments.clear();
+		segments.add(id);
+		scanSegment = id;
+		scanVersion = FORMAT_VERSION;
+		scanPosition = position;
+		scanCorrupted = false;
+		totalBytes = position;
+		liveBytes = position - SEGMENT_HEADER_SIZE;
+
+		writeIndex();
+	}
+
+	private void deleteAll() throws IOException {
+		for (long id : listSegments()) {
+			if (!ignoredSegments.contains(id)) {
+				Files.deleteIfExists(getSegmentFile(id).toPath());
+			}
+		}
+
+		Files.deleteIfExists(new File(directory, INDEX_FILE).toPath());
+
+		reset();
+	}
+
+	/**
+	 * Write the index of the live records. It is written in a temporary file first to never leave a partial
+	 * index.
+	 *
+	 * @throws IOException I/O Errors
+	 */
+	private void writeIndex() throws IOException {
+		File tmpFile = new File(directory, INDEX_FILE + ".tmp");
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+			out.writeInt(INDEX_MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeLong(scanSegment);
+			out.writeLong(scanPosition);
+			out.writeLong(totalBytes);
+			out.writeInt(records.size());
+
+			for (Map.Entry<String, Record> e : records.entrySet()) {
+				Record record = e.getValue();
+				out.writeUTF(e.getKey());
+				out.writeLong(record.segment);
+				out.writeLong(record.offset);
+				out.writeInt(record.length);
+				out.writeLong(record.payloadOffset);
+				out.writeInt(record.payloadLength);
+				out.writeBoolean(record.header != null);
+				if (record.header != null) {
+					writeHeader(out, record.header);
+				}
+			}
+		}
+
+		Files.move(tmpFile.toPath(), new File(directory, INDEX_FILE).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		changes = 0;
+	}
+
+	/**
+	 * Read the index if it is still valid for the existing segments
+	 *
+	 * @param existing The existing segments
+	 */
+	private void readIndex(SortedSet<Long> existing) {
+		File indexFile = new File(directory, INDEX_FILE);
+
+		if (!indexFile.exists()) {
+			return;
+		}
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+			if (in.readInt() != INDEX_MAGIC || in.readInt() != FORMAT_VERSION) {
+				return;
+			}
+
+			long indexSegment = in.readLong();
+			long indexPosition = in.readLong();
+			long indexBytes = in.readLong();
+
+			if (!existing.contains(indexSegment) || getSegmentFile(indexSegment).length() < indexPosition) {
+				return;
+			}
+
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				String name = in.readUTF();
+				Record record = new Record(in.readLong(), in.readLong(), in.readInt(), in.readLong(), in.readInt(), in.readBoolean() ? readHeader(in) : null);
+
+				if (!existing.contains(record.segment)) {
+					reset();
+					return;
+				}
+
+				records.put(name, record);
+				liveBytes += record.length;
+			}
+
+			segments.addAll(existing.headSet(indexSegment + 1));
+			scanSegment = indexSegment;
+			scanPosition = indexPosition;
+			totalBytes = indexBytes;
+		}
+		catch (IOException ioe) {
+			LOGGER.log(Level.FINE, "Unable to read the index " + indexFile + ", the segments are read.", ioe);
+			reset();
+		}
+	}
+
+	/**
+	 * Import the payload files of the previous versions of the store
+	 *
+	 * @throws IOException I/O Errors
+	 */
+	private synchronized void importLegacyPayloads() throws IOException {
+		File[] files = directory.listFiles();
+
+		if (files == null) {
+			return;
+		}
+
+		int imported = 0;
+		FileLock lock = null;
+
+		try {
+			for (final File file : files) {
+				if (file.isFile() && LEGACY_PAYLOAD.matcher(file.getName()).matches()) {
+					// The directory is locked once for the whole import, the other JVMs see all the payloads at once
+					if (lock == null) {
+						lock = lock();
+					}
+
+					// Imported by another JVM meanwhile
+					if (!file.exists()) {
+						continue;
+					}
+
+					put(file.getName(), null, new PayloadWriter() {
+						@Override
+						public void write(OutputStream os) throws IOException {
+							Files.copy(file.toPath(), os);
+						}
+					});
+
+					Files.delete(file.toPath());
+					imported++;
+				}
+			}
+		}
+		finally {
+			if (lock != null) {
+				lock.release();
+			}
+		}
+
+		if (imported > 0) {
+			LOGGER.info(imported + " payload(s) imported from the files of " + directory + ".");
+		}
+	}
+
+	/**
+	 * Append a payload, the caller must hold the lock
+	 *
+	 * @param name The name of the payload
+	 * @param header The header of the payload, null if none
+	 * @param writer The writer of the payload content
+	 * @throws IOException I/O Errors
+	 */
+	private void put(String name, PayloadHeader header, PayloadWriter writer) throws IOException {
+		Record record = write(header != null ? PAYLOAD_WITH_HEADER : PAYLOAD, name, header, writer);
+
+		Record previous = records.put(name, record);
+		if (previous != null) {
+			liveBytes -= previous.length;
+		}
+		liveBytes += record.length;
+
+		changed();
+	}
+
+	/**
+	 * Read a payload from the memory mapped region of its record
+	 *
+	 * @param <T> The type of payload
+	 * @param record The record
+	 * @param reader The reader of the payload content
+	 * @return The payload read
+	 * @throws IOException I/O Errors
+	 */
+	private <T> T read(Record record, PayloadReader<T> reader) throws IOException {
+		ByteBuffer mapped = null;
+
+		try (FileChannel channel = FileChannel.open(getSegmentFile(record.segment).toPath(), StandardOpenOption.READ)) {
+			mapped = channel.map(FileChannel.MapMode.READ_ONLY, record.payloadOffset, record.payloadLength);
+			return reader.read(new ByteBufferBackedInputStream(mapped));
+		}
+		finally {
+			unmap(mapped);
+		}
+	}
+
+	/**
+	 * Read a payload from the mapped segment of its record
+	 *
+	 * @param <T> The type of payload
+	 * @param segment The mapped segment
+	 * @param record The record
+	 * @param reader The reader of the payload content
+	 * @return The payload read
+	 * @throws IOException I/O Errors
+	 */
+	private static <T> T read(ByteBuffer segment, Record record, PayloadReader<T> reader) throws IOException {
+		ByteBuffer payload = segment.duplicate();
+		payload.limit((int) (record.payloadOffset + record.payloadLength)).position((int) record.payloadOffset);
+		return reader.read(new ByteBufferBackedInputStream(payload.slice()));
+	}
+
+	/**
+	 * Map a whole segment in memory. The mapping must be released with {@link #unmap(ByteBuffer)} once the
+	 * payloads are read, the pages are kept in the page cache of the system between the reads.
+	 *
+	 * @param id The segment
+	 * @return The mapped segment, null when the segment is too big to be mapped at once
+	 * @throws IOException I/O Errors
+	 */
+	private ByteBuffer map(long id) throws IOException {
+		try (FileChannel channel = FileChannel.open(getSegmentFile(id).toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			return size <= Integer.MAX_VALUE ? channel.map(FileChannel.MapMode.READ_ONLY, 0, size) : null;
+		}
+	}
+
+	/**
+	 * Release a mapping without waiting for the garbage collector. A mapped segment cannot be deleted on
+	 * Windows, the compaction would fail to remove it. The mapping is left to the garbage collector when
+	 * the runtime does not allow to release it.
+	 *
+	 * @param buffer The mapped buffer, can be null
+	 */
+	private static void unmap(ByteBuffer buffer) {
+		if (buffer == null || !buffer.isDirect()) {
+			return;
+		}
+
+		try {
+			Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+			cleanerMethod.setAccessible(true);
+
+			Object cleaner = cleanerMethod.invoke(buffer);
+
+			if (cleaner != null) {
+				Method clean = cleaner.getClass().getMethod("clean");
+				clean.setAccessible(true);
+				clean.invoke(cleaner);
+			}
+		}
+		catch (ReflectiveOperationException | RuntimeException e) {
+			LOGGER.log(Level.FINEST, "Unable to release a mapped segment.", e);
+		}
+	}
+
+	/**
+	 * @param channel The channel of a segment
+	 * @return The format version of the segment, 0 if the file is not a segment
+	 * @throws IOException I/O Errors
+	 */
+	private static int readVersion(FileChannel channel) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_SIZE);
+
+		while (header.hasRemaining()) {
+			if (channel.read(header, header.position()) < 0) {
+				return 0;
+			}
+		}
+
+		header.flip();
+		return header.getInt() == SEGMENT_MAGIC ? header.getInt() : 0;
+	}
+
+	private SortedSet<Long> listSegments() {
+		SortedSet<Long> ids = new TreeSet<>();
+
+		String[] names = directory.list();
+		if (names != null) {
+			for (String name : names) {
+				if (name.endsWith(SEGMENT_EXTENSION)) {
+					try {
+						ids.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_EXTENSION.length())));
+					}
+					catch (NumberFormatException nfe) {
+						// Not a segment
+					}
+				}
+			}
+		}
+
+		return ids;
+	}
+
+	private File getSegmentFile(long id) {
+		return new File(directory, String.format("%020d%s", id, SEGMENT_EXTENSION));
+	}
+
+	private static void consume(InputStream is) throws IOException {
+		byte[] buffer = new byte[8192];
+
+		while (is.read(buffer) >= 0) {
+			// The content is only read for the checksum
+		}
+	}
+
+	private static void writeHeader(DataOutputStream out, PayloadHeader header) throws IOException {
+		writeNullableUTF(out, header.getProjectId());
+		writeNullableUTF(out, header.getVersion());
+		writeNullableUTF(out, header.getPipeline());
+		writeNullableUTF(out, header.getStage());
+		writeNullableUTF(out, header.getReportUid());
+	}
+
+	private static PayloadHeader readHeader(DataInputStream in) throws IOException {
+		return new PayloadHeader(readNullableUTF(in), readNullableUTF(in), readNullableUTF(in), readNullableUTF(in), readNullableUTF(in));
+	}
+
+	private static void writeNullableUTF(DataOutputStream out, String str) throws IOException {
+		out.writeBoolean(str != null);
+		if (str != null) {
+			out.writeUTF(str);
+		}
+	}
+
+	private static String readNullableUTF(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	/**
+	 * Location of a record
+	 */
+	private static class Record {
+		private final long segment;
+		private final long offset;
+		private final int length;
+		private final long payloadOffset;
+		private final int payloadLength;
+		private final PayloadHeader header;
+
+		private Record(long segment, long offset, int length, long payloadOffset, int payloadLength, PayloadHeader header) {
+			this.segment = segment;
+			this.offset = offset;
+			this.length = length;
+			this.payloadOffset = payloadOffset;
+			this.payloadLength = payloadLength;
+			this.header = header;
+		}
+	}
+
+	/**
+	 * Writer of the content of a payload
+	 */
+	interface PayloadWriter {
+		/**
+		 * @param os The output stream to write the payload, closing it has no effect
+		 * @throws IOException I/O Errors
+		 */
+		void write(OutputStream os) throws IOException;
+	}
+
+	/**
+	 * Reader of the content of a payload
+	 *
+	 * @param <T> The type of payload
+	 */
+	interface PayloadReader<T> {
+		/**
+		 * @param is The input stream of the payload content only, closing it has no effect
+		 * @return The payload read
+		 * @throws IOException I/O Errors
+		 */
+		T read(InputStream is) throws IOException;
+	}
+}
@@ -5,6 +5,7 @@ import io.probedock.client.annotations.ProbeTestClass;
 
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
@@ -52,6 +53,17 @@ public class CollectionHelper {
 		return contributors;
 	}
 
+	/**
+	 * Keep the contributors which match the pattern rules for the contributors, i.e. the contributors read from
+	 * an index instead of the annotations
+	 *
+	 * @param contributors The contributors to check
+	 * @return The valid contributors in the same order
+	 */
+	public static Set<String> filterContributors(Set<String> contributors) {
+		return populateContributors(contributors, new LinkedHashSet<String>());
+	}
+
 	/**
 	 * Populate the source with the destination contributors only if they match the pattern rules for the contributors
 	 *
@@ -102,6 +114,17 @@ public class CollectionHelper {
 		return tags;		
 	}
 
+	/**
+	 * Keep the tags which match the pattern rules for the tags, i.e. the tags read from an index instead of
+	 * the annotations
+	 *
+	 * @param tags The tags to check
+	 * @return The valid tags in the same order
+	 */
+	public static Set<String> filterTags(Set<String> tags) {
+		return populateTags(tags, new LinkedHashSet<String>());
+	}
+
 	/**
 	 * Populate the source with the destination tags only if they
 	 * match the pattern rules for the tags
@@ -3,7 +3,10 @@ package io.probedock.client.common.model.v1;
 import io.probedock.client.common.config.Configuration;
 import io.probedock.client.common.config.ScmInfo;
 import io.probedock.client.common.config.ScmRemoteInfo;
+import io.probedock.client.common.utils.ArraySet;
+import io.probedock.client.common.utils.MessageTruncator;
 import io.probedock.client.common.utils.MetaDataBuilder;
+import io.probedock.client.common.utils.TestDescriptor;
 import org.apache.commons.lang.StringUtils;
 import org.junit.Before;
 import org.junit.Test;
@@ -720,6 +723,23 @@ public class ModelFactoryTest {
 		assertEquals(StringUtils.leftPad("...", 50000, '*'), testResult.getMessage());
 	}
 
+	@Test
+	public void testResultCreationShouldTruncateTheMessageAsConfigured() {
+		when(configuration.getMessageTruncator()).thenReturn(new MessageTruncator(13, MessageTruncator.Mode.HEAD_TAIL));
+
+		TestResult testResult = ModelFactory.createTestResult(
+			configuration,
+			TestDescriptor.of(ModelFactoryTest.class, "testResultCreationShouldTruncateTheMessageAsConfigured"),
+			"default",
+			0L,
+			"head of the message, Caused by: root",
+			false,
+			null
+		);
+
+		assertEquals("head ... root", testResult.getMessage());
+	}
+
 	@Test
 	public void testResultCreationShouldSetTheCategoryOnlyIfNotNullOrNotEmpty() {
 		TestResult testResult = ModelFactory.createTestResult(
@@ -886,6 +906,48 @@ public class ModelFactoryTest {
 		assertEquals("base/path/to/test/files/io/probedock/client/common/model/v1/ModelFactoryTest.java", testResult.getData().get("file.path"));
 	}
 
+	@Test
+	public void immutableSetsShouldBeSharedUntilAValueIsAdded() {
+		Set<String> tags = ArraySet.immutableOf(Arrays.asList("a", "b"));
+
+		TestResult first = ModelFactory.createTestResult("key", "fingerprint", "name", "category", 10L, "message", true, true, null, tags, null, null);
+		TestResult second = ModelFactory.createTestResult("key", "fingerprint", "name", "category", 10L, "message", true, true, null, tags, null, null);
+
+		assertSame(first.getCategory(), second.getCategory());
+
+		first.addTag("c");
+
+		assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), first.getTags());
+		assertEquals(new HashSet<>(Arrays.asList("a", "b")), tags);
+		assertEquals(new HashSet<>(Arrays.asList("a", "b")), second.getTags());
+	}
+
+	@Test
+	public void sharedSetsShouldBeCopiedOnceWhenTheyAreRetrieved() {
+		Set<String> tags = ArraySet.immutableOf(Arrays.asList("a", "b"));
+
+		TestResult first = ModelFactory.createTestResult("key", "fingerprint", "name", "category", 10L, "message", true, true, null, tags, null, null);
+		TestResult second = ModelFactory.createTestResult("key", "fingerprint", "name", "category", 10L, "message", true, true, null, tags, null, null);
+
+		first.getTags().add("c");
+
+		assertNotSame(tags, first.getTags());
+		assertSame(first.getTags(), first.getTags());
+		assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), first.getTags());
+		assertEquals(new HashSet<>(Arrays.asList("a", "b")), tags);
+		assertEquals(new HashSet<>(Arrays.asList("a", "b")), second.getTags());
+	}
+
+	@Test
+	public void mutableSetsShouldBeCopied() {
+		Set<String> tags = new HashSet<>(Arrays.asList("a"));
+
+		TestResult testResult = ModelFactory.createTestResult("key", "fingerprint", "name", "category", 10L, "message", true, true, null, tags, null, null);
+		tags.add("b");
+
+		assertEquals(Collections.singleton("a"), testResult.getTags());
+	}
+
 	@Test
 	public void createTestReportShouldBePossible() {
 		TestReport testReport = ModelFactory.createTestReport("uid");
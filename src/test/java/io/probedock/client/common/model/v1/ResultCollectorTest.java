@@ -0,0 +1,194 @@
+package io.probedock.client.common.model.v1;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for class {@link ResultCollector}
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class ResultCollectorTest {
+	@Test
+	public void resultsAddedByParallelThreadsShouldAllBeFlushed() throws Exception {
+		final int threads = 8;
+		final int results = 1000;
+
+		final TestRun testRun = new TestRun();
+		final CountDownLatch start = new CountDownLatch(1);
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<?>> futures = new ArrayList<>();
+
+		try {
+			for (int t = 0; t < threads; t++) {
+				final String thread = "t" + t;
+
+				futures.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						start.await();
+
+						for (int i = 0; i < results; i++) {
+							testRun.getResultCollector().add(new TestResult(null, thread, Integer.toString(i), 1L, true, null, null));
+						}
+
+						return null;
+					}
+				}));
+			}
+
+			start.countDown();
+
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+
+		assertEquals(threads * results, testRun.getResultCollector().getPendingCount());
+		assertEquals(threads * results, testRun.getTestResults().size());
+		assertEquals(0, testRun.getResultCollector().getPendingCount());
+
+		// The results of each thread are kept in the order they were added
+		Map<String, Integer> lastByThread = new HashMap<>();
+		for (TestResult result : testRun.getTestResults()) {
+			Integer last = lastByThread.get(result.getFingerprint());
+			int current = Integer.parseInt(result.getName());
+
+			assertEquals(last == null ? 0 : last + 1, current);
+			lastByThread.put(result.getFingerprint(), current);
+		}
+	}
+
+	@Test
+	public void resultsShouldBeFlushedOnlyOnce() throws Exception {
+		ResultCollector collector = new ResultCollector();
+
+		collector.add(new TestResult(null, "a", "a", 1L, true, null, null));
+		collector.add(new TestResult(null, "b", "b", 1L, true, null, null));
+
+		List<TestResult> target = new ArrayList<>();
+
+		assertEquals(2, collector.flush(target));
+		assertEquals(0, collector.flush(target));
+		assertEquals(2, target.size());
+	}
+
+	@Test
+	public void resultsOfTerminatedThreadsShouldBeFlushed() throws Exception {
+		final ResultCollector collector = new ResultCollector();
+
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				collector.add(new TestResult(null, "a", "a", 1L, true, null, null));
+			}
+		});
+
+		thread.start();
+		thread.join();
+
+		collector.add(new TestResult(null, "b", "b", 1L, true, null, null));
+
+		List<TestResult> target = new ArrayList<>();
+
+		assertEquals(2, collector.flush(target));
+		assertEquals("a", target.get(0).getName());
+		assertEquals("b", target.get(1).getName());
+	}
+
+	@Test
+	public void collectedResultsShouldBeAddedBeforeTheNewOnes() throws Exception {
+		TestRun testRun = new TestRun();
+
+		testRun.getResultCollector().add(new TestResult(null, "a", "a", 1L, true, null, null));
+
+		List<TestResult> added = new ArrayList<>();
+		added.add(new TestResult(null, "b", "b", 1L, true, null, null));
+		testRun.addTestResults(added);
+
+		assertEquals(2, testRun.getTestResults().size());
+		assertEquals("a", testRun.getTestResults().get(0).getName());
+		assertEquals("b", testRun.getTestResults().get(1).getName());
+	}
+
+	@Test
+	public void resultsShouldBeRetrievedWhileOtherThreadsAddResults() throws Exception {
+		final int threads = 4;
+		final int results = 1000;
+
+		final TestRun testRun = new TestRun();
+		final CountDownLatch start = new CountDownLatch(1);
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads * 2);
+		List<Future<?>> futures = new ArrayList<>();
+
+		try {
+			for (int t = 0; t < threads; t++) {
+				final String thread = "t" + t;
+
+				// Half of the threads add their results through the collector, the other half directly
+				futures.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						start.await();
+
+						for (int i = 0; i < results; i++) {
+							testRun.getResultCollector().add(new TestResult(null, thread, Integer.toString(i), 1L, true, null, null));
+						}
+
+						return null;
+					}
+				}));
+
+				futures.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						start.await();
+
+						for (int i = 0; i < results; i++) {
+							List<TestResult> added = new ArrayList<>();
+							added.add(new TestResult(null, thread + "-added", Integer.toString(i), 1L, true, null, null));
+							testRun.addTestResults(added);
+
+							List<TestResult> current = testRun.getTestResults();
+							synchronized (current) {
+								for (TestResult result : current) {
+									assertNotNull(result);
+								}
+							}
+						}
+
+						return null;
+					}
+				}));
+			}
+
+			start.countDown();
+
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+
+		assertEquals(threads * results * 2, testRun.getTestResults().size());
+		assertEquals(0, testRun.getResultCollector().getPendingCount());
+	}
+}
@@ -0,0 +1,96 @@
+package io.probedock.client.common.model.v1;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for class {@link TestRun}
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class TestRunTest {
+	private static final String TRACE = "java.sql.SQLException: Connection refused\n\tat io.probedock.Dao.find(Dao.java:%d)";
+
+	@Test
+	public void failuresSharedBySeveralResultsShouldBeStoredOnce() {
+		TestRun testRun = new TestRun();
+		testRun.setProjectId("project");
+		testRun.getTestResults().add(createTestResult("a", false, String.format(TRACE, 42)));
+		testRun.getTestResults().add(createTestResult("b", false, String.format(TRACE, 43)));
+		testRun.getTestResults().add(createTestResult("c", false, "java.lang.AssertionError: expected 1"));
+		testRun.getTestResults().add(createTestResult("d", true, null));
+
+		TestRun deduplicated = testRun.withDeduplicatedFailures();
+
+		assertNotSame(testRun, deduplicated);
+		assertEquals("project", deduplicated.getProjectId());
+		assertEquals(4, deduplicated.getTestResults().size());
+		assertEquals(1, deduplicated.getFailures().size());
+
+		TestResult first = deduplicated.getTestResults().get(0);
+		TestResult second = deduplicated.getTestResults().get(1);
+
+		assertNull(first.getMessage());
+		assertNull(second.getMessage());
+		assertEquals("a", first.getFingerprint());
+		assertEquals(first.getFailureRef(), second.getFailureRef());
+		assertEquals(String.format(TRACE, 42), deduplicated.getFailures().get(first.getFailureRef()));
+
+		// The failures that are not shared are kept in their result
+		assertSame(testRun.getTestResults().get(2), deduplicated.getTestResults().get(2));
+		assertEquals("java.lang.AssertionError: expected 1", deduplicated.getTestResults().get(2).getMessage());
+		assertNull(deduplicated.getTestResults().get(2).getFailureRef());
+		assertNull(deduplicated.getTestResults().get(3).getFailureRef());
+	}
+
+	@Test
+	public void resultsOfTheTestRunShouldNotBeModified() {
+		TestRun testRun = new TestRun();
+		testRun.getTestResults().add(createTestResult("a", false, String.format(TRACE, 42)));
+		testRun.getTestResults().add(createTestResult("b", false, String.format(TRACE, 43)));
+
+		testRun.withDeduplicatedFailures();
+
+		assertNull(testRun.getFailures());
+
+		for (TestResult result : testRun.getTestResults()) {
+			assertNotNull(result.getMessage());
+			assertNull(result.getFailureRef());
+		}
+
+		// The results are deduplicated again when the test run is sent again
+		assertEquals(1, testRun.withDeduplicatedFailures().getFailures().size());
+	}
+
+	@Test
+	public void failuresAlreadyStoredShouldBeReferenced() {
+		TestRun testRun = new TestRun();
+		testRun.getTestResults().add(createTestResult("a", false, String.format(TRACE, 42)));
+		testRun.getTestResults().add(createTestResult("b", false, String.format(TRACE, 43)));
+
+		TestRun deduplicated = testRun.withDeduplicatedFailures();
+
+		// A result added later with an already stored failure references it
+		deduplicated.getTestResults().add(createTestResult("c", false, String.format(TRACE, 44)));
+
+		TestRun again = deduplicated.withDeduplicatedFailures();
+
+		assertEquals(1, again.getFailures().size());
+		assertEquals(again.getTestResults().get(0).getFailureRef(), again.getTestResults().get(2).getFailureRef());
+		assertNull(again.getTestResults().get(2).getMessage());
+	}
+
+	@Test
+	public void testRunShouldBeKeptWhenNoFailureIsShared() {
+		TestRun testRun = new TestRun();
+		testRun.getTestResults().add(createTestResult("a", false, String.format(TRACE, 42)));
+
+		assertSame(testRun, testRun.withDeduplicatedFailures());
+		assertNull(testRun.getFailures());
+	}
+
+	private static TestResult createTestResult(String fingerprint, boolean passed, String message) {
+		return ModelFactory.createTestResult(null, fingerprint, fingerprint, null, 1L, message, passed, null, null, null, null, null);
+	}
+}
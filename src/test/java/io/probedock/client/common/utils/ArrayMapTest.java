@@ -0,0 +1,59 @@
+package io.probedock.client.common.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for class {@link ArrayMap}
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class ArrayMapTest {
+    @Test
+    public void entriesShouldBeKeptInTheOrderTheyWereAdded() {
+        Map<String, String> map = new ArrayMap<>();
+
+        for (int i = 0; i < 10; i++) {
+            map.put("k" + i, "v" + i);
+        }
+
+        assertNull(map.put("k10", "v10"));
+        assertEquals("v3", map.put("k3", "new"));
+
+        assertEquals(11, map.size());
+        assertEquals("new", map.get("k3"));
+        assertNull(map.get("unknown"));
+        assertEquals(Arrays.asList("k0", "k1", "k2", "k3", "k4", "k5", "k6", "k7", "k8", "k9", "k10"), new ArrayList<>(map.keySet()));
+
+        Map<String, String> expected = new HashMap<>(map);
+        assertEquals(expected, map);
+        assertEquals(expected.hashCode(), map.hashCode());
+    }
+
+    @Test
+    public void entriesShouldBeRemoved() {
+        Map<String, String> map = new ArrayMap<>();
+        map.put("a", "1");
+        map.put("b", "2");
+        map.put("c", "3");
+
+        assertEquals("2", map.remove("b"));
+        assertNull(map.remove("b"));
+
+        Iterator<Map.Entry<String, String>> it = map.entrySet().iterator();
+        it.next().setValue("one");
+        it.next();
+        it.remove();
+
+        assertEquals(1, map.size());
+        assertEquals("one", map.get("a"));
+        assertFalse(map.containsKey("c"));
+    }
+}
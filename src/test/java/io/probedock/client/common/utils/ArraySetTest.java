@@ -0,0 +1,68 @@
+package io.probedock.client.common.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for class {@link ArraySet}
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class ArraySetTest {
+    @Test
+    public void elementsShouldBeKeptOnceInTheOrderTheyWereAdded() {
+        Set<String> set = new ArraySet<>();
+
+        for (String element : Arrays.asList("c", "a", "b", "a", "d", "e", "c")) {
+            set.add(element);
+        }
+
+        assertEquals(Arrays.asList("c", "a", "b", "d", "e"), toList(set));
+        assertTrue(set.contains("d"));
+        assertFalse(set.contains("f"));
+        assertEquals(new HashSet<>(Arrays.asList("a", "b", "c", "d", "e")), set);
+        assertEquals(new HashSet<>(Arrays.asList("a", "b", "c", "d", "e")).hashCode(), set.hashCode());
+    }
+
+    @Test
+    public void elementsShouldBeRemoved() {
+        Set<String> set = new ArraySet<>(Arrays.asList("a", "b", "c", "d"));
+
+        assertTrue(set.remove("b"));
+        assertFalse(set.remove("b"));
+
+        Iterator<String> it = set.iterator();
+        it.next();
+        it.next();
+        it.remove();
+
+        assertEquals(Arrays.asList("a", "d"), toList(set));
+    }
+
+    @Test
+    public void immutableSetsShouldBeShared() {
+        Set<String> set = ArraySet.immutableOf(Arrays.asList("a", "b"));
+
+        assertSame(set, ArraySet.immutableOf(set));
+        assertSame(ArraySet.immutableOf(Collections.<String>emptySet()), ArraySet.immutableOf(new ArraySet<String>()));
+        assertTrue(ArraySet.isImmutable(set));
+        assertFalse(ArraySet.isImmutable(new ArraySet<>(set)));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void immutableSetsShouldNotBeModified() {
+        ArraySet.immutableOf(Arrays.asList("a", "b")).add("c");
+    }
+
+    private static List<String> toList(Set<String> set) {
+        return Arrays.asList(set.toArray(new String[set.size()]));
+    }
+}
@@ -0,0 +1,203 @@
+package io.probedock.client.common.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for class {@link CategoryResolver}
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class CategoryResolverTest {
+    private static CategoryResolver resolver(String... patternsAndCategories) {
+        Map<String, String> m = new LinkedHashMap<>();
+
+        for (int i = 0; i < patternsAndCategories.length; i += 2) {
+            m.put(patternsAndCategories[i], patternsAndCategories[i + 1]);
+        }
+
+        return new CategoryResolver(m);
+    }
+
+    @Test
+    public void literalPatternShouldOnlyMatchTheSamePackage() {
+        CategoryResolver resolver = resolver("io.probedock", "category");
+
+        assertEquals("category", resolver.resolve("io.probedock"));
+        assertNull(resolver.resolve("io.probedock.test"));
+        assertNull(resolver.resolve("io"));
+    }
+
+    @Test
+    public void starShouldMatchOneSegment() {
+        CategoryResolver resolver = resolver("io.probedock.*", "category");
+
+        assertEquals("category", resolver.resolve("io.probedock.test"));
+        assertNull(resolver.resolve("io.probedock"));
+        assertNull(resolver.resolve("io.probedock.test.integration"));
+    }
+
+    @Test
+    public void globstarShouldMatchZeroOrMoreSegments() {
+        CategoryResolver resolver = resolver("io.**.integration", "integration", "io.probedock.**", "category");
+
+        assertEquals("integration", resolver.resolve("io.integration"));
+        assertEquals("integration", resolver.resolve("io.probedock.test.integration"));
+        assertEquals("category", resolver.resolve("io.probedock.test"));
+        assertEquals("category", resolver.resolve("io.probedock.test.unit"));
+        assertNull(resolver.resolve("io.probedock"));
+    }
+
+    @Test
+    public void wildcardsInsideSegmentShouldNotCrossSegments() {
+        CategoryResolver resolver = resolver("io.probedock.integration**", "integration", "io.probedock.api?", "api", "io.[pq]robedock.e2e", "e2e");
+
+        assertEquals("integration", resolver.resolve("io.probedock.integration"));
+        assertEquals("integration", resolver.resolve("io.probedock.integrationTests"));
+        assertNull(resolver.resolve("io.probedock.integration.user"));
+        assertEquals("api", resolver.resolve("io.probedock.api2"));
+        assertNull(resolver.resolve("io.probedock.api"));
+        assertEquals("e2e", resolver.resolve("io.qrobedock.e2e"));
+        assertNull(resolver.resolve("io.rrobedock.e2e"));
+    }
+
+    @Test
+    public void firstPatternOfTheConfigurationShouldWin() {
+        assertEquals("first", resolver("io.probedock.**", "first", "io.probedock.test", "second").resolve("io.probedock.test"));
+        assertEquals("first", resolver("io.probedock.test", "first", "io.probedock.**", "second").resolve("io.probedock.test"));
+        assertEquals("first", resolver("**", "first", "io.probedock.test", "second").resolve("io.probedock.test"));
+    }
+
+    @Test
+    public void resultShouldBeMemoizedPerPackage() {
+        CategoryResolver resolver = resolver("io.probedock.*", "category");
+
+        Map.Entry<String, String> entry = resolver.match("io.probedock.test");
+
+        assertEquals("io.probedock.*", entry.getKey());
+        assertSame(entry, resolver.match("io.probedock.test"));
+        assertNull(resolver.match("com.google"));
+        assertNull(resolver.match("com.google"));
+    }
+
+    @Test
+    public void resolverShouldBeBuiltAgainWhenThePatternsChange() {
+        Map<String, String> m = new LinkedHashMap<>();
+        m.put("io.probedock", "category");
+
+        CategoryResolver resolver = CategoryResolver.forPatterns(m);
+        assertSame(resolver, CategoryResolver.forPatterns(m));
+
+        m.put("io.probedock.*", "other");
+
+        CategoryResolver other = CategoryResolver.forPatterns(m);
+        assertNotSame(resolver, other);
+        assertEquals("other", other.resolve("io.probedock.test"));
+    }
+
+    @Test
+    public void resolverShouldBeBuiltAgainWhenACategoryIsReplacedInPlace() {
+        Map<String, String> m = new LinkedHashMap<>();
+        m.put("io.probedock.*", "category");
+
+        assertEquals("category", CategoryResolver.forPatterns(m).resolve("io.probedock.test"));
+
+        m.put("io.probedock.*", "other");
+
+        assertEquals("other", CategoryResolver.forPatterns(m).resolve("io.probedock.test"));
+    }
+
+    @Test
+    public void resolverShouldBeBuiltAgainWhenTheOrderOfThePatternsChanges() {
+        Map<String, String> m = new LinkedHashMap<>();
+        m.put("io.probedock.**", "first");
+        m.put("io.probedock.test", "second");
+
+        Map<String, String> reversed = new LinkedHashMap<>();
+        reversed.put("io.probedock.test", "second");
+        reversed.put("io.probedock.**", "first");
+
+        assertEquals("first", CategoryResolver.forPatterns(m).resolve("io.probedock.test"));
+        assertEquals("second", CategoryResolver.forPatterns(reversed).resolve("io.probedock.test"));
+    }
+
+    @Test
+    public void anotherMapWithTheSamePatternsShouldReuseTheResolver() {
+        Map<String, String> m = new LinkedHashMap<>();
+        m.put("io.probedock", "category");
+
+        CategoryResolver resolver = CategoryResolver.forPatterns(m);
+
+        assertSame(resolver, CategoryResolver.forPatterns(new LinkedHashMap<>(m)));
+    }
+
+    @Test
+    public void resolversOfConfigurationsUsedInTurnShouldBeKept() {
+        Map<String, String> first = new LinkedHashMap<>();
+        first.put("io.probedock", "first");
+
+        Map<String, String> second = new LinkedHashMap<>();
+        second.put("io.probedock", "second");
+
+        CategoryResolver firstResolver = CategoryResolver.forPatterns(first);
+        CategoryResolver secondResolver = CategoryResolver.forPatterns(second);
+
+        assertSame(firstResolver, CategoryResolver.forPatterns(first));
+        assertSame(secondResolver, CategoryResolver.forPatterns(second));
+    }
+
+    @Test
+    public void bracesShouldBeExpanded() {
+        CategoryResolver resolver = resolver("io.probedock.{api,web.controllers}", "web", "io.probedock.v{1..3}", "versions");
+
+        assertEquals("web", resolver.resolve("io.probedock.api"));
+        assertEquals("web", resolver.resolve("io.probedock.web.controllers"));
+        assertNull(resolver.resolve("io.probedock.web"));
+        assertEquals("versions", resolver.resolve("io.probedock.v2"));
+        assertNull(resolver.resolve("io.probedock.v4"));
+    }
+
+    @Test
+    public void bracesWithoutAlternativesShouldBeMatchedLiterally() {
+        assertEquals(Arrays.asList("io.{a}"), CategoryResolver.expandBraces("io.{a}"));
+        assertEquals(Arrays.asList("io.{a,b"), CategoryResolver.expandBraces("io.{a,b"));
+        assertEquals(Arrays.asList("io.{a..c}"), CategoryResolver.expandBraces("io.{a..c}"));
+        assertEquals(Arrays.asList("io.a.x", "io.b.c.x", "io.b.d.x"), CategoryResolver.expandBraces("io.{a,b.{c,d}}.x"));
+    }
+
+    @Test
+    public void bracesExpandingToTooManyPatternsShouldBeMatchedLiterally() {
+        assertEquals(CategoryResolver.MAX_EXPANDED_PATTERNS, CategoryResolver.expandBraces("io.v{1..1000}").size());
+        assertEquals(Arrays.asList("io.v{1..1001}"), CategoryResolver.expandBraces("io.v{1..1001}"));
+        assertEquals(Arrays.asList("io.v{1..100000000}"), CategoryResolver.expandBraces("io.v{1..100000000}"));
+        assertEquals(Arrays.asList("io.v{1..99999999999999999999}"), CategoryResolver.expandBraces("io.v{1..99999999999999999999}"));
+        assertEquals(Arrays.asList("io.{1..100}.{1..100}"), CategoryResolver.expandBraces("io.{1..100}.{1..100}"));
+        assertEquals("versions", resolver("io.v{1..100000000}", "versions").resolve("io.v{1..100000000}"));
+    }
+
+    @Test
+    public void extendedGlobsShouldMatchInsideSegment() {
+        assertEquals("c", resolver("io.@(api|web)", "c").resolve("io.web"));
+        assertNull(resolver("io.@(api|web)", "c").resolve("io.apiweb"));
+        assertEquals("c", resolver("io.+(api|web)", "c").resolve("io.apiweb"));
+        assertEquals("c", resolver("io.test?(s)", "c").resolve("io.tests"));
+        assertEquals("c", resolver("io.test?(s)", "c").resolve("io.test"));
+        assertEquals("c", resolver("io.*(a)b", "c").resolve("io.b"));
+        assertEquals("c", resolver("io.!(internal)", "c").resolve("io.api"));
+        assertNull(resolver("io.!(internal)", "c").resolve("io.internal"));
+        assertEquals("c", resolver("io.!(internal)", "c").resolve("io.internals"));
+        assertNull(resolver("io.!(internal)", "c").resolve("io.internal.api"));
+    }
+
+    @Test
+    public void nothingShouldMatchWithoutPatterns() {
+        assertNull(new CategoryResolver(null).resolve("io.probedock"));
+        assertNull(resolver().resolve("io.probedock"));
+        assertNull(resolver("io.probedock", "category").resolve(null));
+    }
+}
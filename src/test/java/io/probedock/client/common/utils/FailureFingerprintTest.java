@@ -0,0 +1,41 @@
+package io.probedock.client.common.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for class {@link FailureFingerprint}
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class FailureFingerprintTest {
+    @Test
+    public void lineNumbersAndLambdaNamesShouldBeRemoved() {
+        assertEquals(
+            "java.sql.SQLException: Connection refused\n" +
+            "\tat io.probedock.Dao.lambda$find$(Dao.java)\n" +
+            "\tat io.probedock.Dao$$Lambda$.run(Unknown Source)\n" +
+            "\tat sun.reflect.NativeMethodAccessorImpl.invoke0(Native Method)\n" +
+            "\t... more",
+            FailureFingerprint.normalize(
+                "java.sql.SQLException: Connection refused\n" +
+                "\tat io.probedock.Dao.lambda$find$3(Dao.java:42)\n" +
+                "\tat io.probedock.Dao$$Lambda$12/0x0000000800c02a00.run(Unknown Source)\n" +
+                "\tat sun.reflect.NativeMethodAccessorImpl.invoke0(Native Method)\n" +
+                "\t... 12 more"
+            )
+        );
+    }
+
+    @Test
+    public void nearIdenticalFailuresShouldShareTheSameFingerprint() {
+        String first = FailureFingerprint.fingerprint("java.sql.SQLException: Connection refused\n\tat io.probedock.Dao.find(Dao.java:42)\n\t... 12 more");
+        String second = FailureFingerprint.fingerprint("java.sql.SQLException: Connection refused\n\tat io.probedock.Dao.find(Dao.java:43)\n\t... 14 more");
+        String other = FailureFingerprint.fingerprint("java.sql.SQLException: Timeout\n\tat io.probedock.Dao.find(Dao.java:42)\n\t... 12 more");
+
+        assertNotNull(first);
+        assertEquals(first, second);
+        assertNotEquals(first, other);
+    }
+}
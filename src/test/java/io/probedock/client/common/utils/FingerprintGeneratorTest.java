@@ -2,9 +2,10 @@ package io.probedock.client.common.utils;
 
 import org.junit.Test;
 
+import java.security.MessageDigest;
 import java.util.Map;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 /**
  * Test for class {@link io.probedock.client.common.utils.FingerprintGenerator}
@@ -26,4 +27,66 @@ public class FingerprintGeneratorTest {
 	public void generationOfFingerprintFromClassAndMethodNameShouldBeCorrect() throws Exception {
 		assertEquals("c39281690d1db17985e59b3a25c2b3b7e58aff87", FingerprintGenerator.fingerprint(this.getClass(), "generationOfFingerprintFromClassAndMethodNameShouldBeCorrect"));
 	}
+
+	@Test
+	public void fingerprintOfMethodShouldBeComputedOnce() throws Exception {
+		String fingerprint = FingerprintGenerator.fingerprint(this.getClass(), "fingerprintOfMethodShouldBeComputedOnce");
+
+		assertSame(fingerprint, FingerprintGenerator.fingerprint(this.getClass(), "fingerprintOfMethodShouldBeComputedOnce"));
+		assertSame(fingerprint, FingerprintGenerator.fingerprint(this.getClass(), this.getClass().getDeclaredMethod("fingerprintOfMethodShouldBeComputedOnce")));
+		assertEquals(FingerprintGenerator.fingerprint(this.getClass().getCanonicalName() + ".fingerprintOfMethodShouldBeComputedOnce"), fingerprint);
+	}
+
+	@Test
+	public void fingerprintsOfMethodsWithSameNameInDifferentClassesShouldBeDifferent() {
+		assertNotEquals(FingerprintGenerator.fingerprint(String.class, "toString"), FingerprintGenerator.fingerprint(Object.class, "toString"));
+	}
+
+	@Test
+	public void generationOfFingerprintShouldUseUtf8() {
+		assertEquals("3afce0c90486521c7a4f25319755b7de8497e991", FingerprintGenerator.fingerprint("Fingerprint: ünïcödé – 測試 😀"));
+	}
+
+	@Test
+	public void generationOfFingerprintShouldBeCorrectForLongStrings() throws Exception {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			sb.append("fingerprint ").append(i).append(" – ");
+		}
+
+		String str = sb.toString();
+
+		assertEquals(FingerprintGenerator.fingerprint(str), FingerprintGenerator.fingerprint(str));
+		assertEquals(sha1(str), FingerprintGenerator.fingerprint(str));
+		assertEquals("b5448ce070e8ff567c4870e9fe0aeba3c0a98330", FingerprintGenerator.fingerprint("fingerprint"));
+	}
+
+	@Test
+	public void unpairedSurrogatesShouldBeEncodedLikeTheJdk() throws Exception {
+		assertEquals(sha1("a\uD800b\uDC00c\uD83D"), FingerprintGenerator.fingerprint("a\uD800b\uDC00c\uD83D"));
+	}
+
+	@Test
+	public void multibyteCharactersAcrossChunksShouldBeEncodedLikeTheJdk() throws Exception {
+		for (int offset = 0; offset < 4; offset++) {
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < offset; i++) {
+				sb.append('a');
+			}
+			for (int i = 0; i < 3000; i++) {
+				sb.append(i % 3 == 0 ? "\uD83D\uDE00" : i % 3 == 1 ? "\u6E2C" : "\u00FC");
+			}
+
+			String str = sb.toString();
+			assertEquals(sha1(str), FingerprintGenerator.fingerprint(str));
+		}
+	}
+
+	private static String sha1(String str) throws Exception {
+		StringBuilder hex = new StringBuilder();
+		for (byte b : MessageDigest.getInstance("SHA-1").digest(str.getBytes("UTF-8"))) {
+			hex.append(String.format("%02x", b));
+		}
+		return hex.toString();
+	}
 }
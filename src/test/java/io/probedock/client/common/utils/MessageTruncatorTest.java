@@ -0,0 +1,81 @@
+package io.probedock.client.common.utils;
+
+import org.apache.commons.lang.StringUtils;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for class {@link MessageTruncator}
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class MessageTruncatorTest {
+    @Test
+    public void utf8LengthShouldBeTheLengthOfTheEncodedBytes() {
+        for (String text : new String[] { "", "ascii", "ünïcödé", "測試", "😀 emoji", "lone \uD83D surrogate", "\uDE00 low" }) {
+            assertEquals(text, text.getBytes(StandardCharsets.UTF_8).length, MessageTruncator.utf8Length(text));
+        }
+    }
+
+    @Test
+    public void shortMessagesShouldBeKept() {
+        MessageTruncator truncator = new MessageTruncator(10, MessageTruncator.Mode.HEAD);
+
+        String message = "0123456789";
+
+        assertSame(message, truncator.truncate(message));
+        assertNull(truncator.truncate(null));
+    }
+
+    @Test
+    public void headOfLongMessagesShouldBeKept() {
+        MessageTruncator truncator = new MessageTruncator(10, MessageTruncator.Mode.HEAD);
+
+        assertEquals("0123456...", truncator.truncate("0123456789a"));
+    }
+
+    @Test
+    public void messagesShouldNotBeCutInsideACodePoint() {
+        MessageTruncator truncator = new MessageTruncator(10, MessageTruncator.Mode.HEAD);
+
+        // Each ideogram takes 3 bytes and the emoji 4 bytes, only 7 bytes are available before the ellipsis
+        assertEquals("測試...", truncator.truncate("測試測試"));
+        assertEquals("ab😀...", truncator.truncate("ab😀😀😀"));
+        assertEquals("abc😀...", truncator.truncate("abc😀😀😀"));
+    }
+
+    @Test
+    public void headAndTailOfLongMessagesShouldBeKept() {
+        MessageTruncator truncator = new MessageTruncator(13, MessageTruncator.Mode.HEAD_TAIL);
+
+        String truncated = truncator.truncate("head of the message, Caused by: root");
+
+        assertEquals("head ... root", truncated);
+    }
+
+    @Test
+    public void truncatedMessagesShouldNotExceedTheMaximum() {
+        String message = StringUtils.repeat("ab測😀ü", 20000);
+
+        for (MessageTruncator.Mode mode : MessageTruncator.Mode.values()) {
+            for (int maxBytes = 3; maxBytes < 40; maxBytes++) {
+                String truncated = new MessageTruncator(maxBytes, mode).truncate(message);
+
+                assertTrue(mode + " " + maxBytes, truncated.getBytes(StandardCharsets.UTF_8).length <= maxBytes);
+                assertTrue(mode + " " + maxBytes, truncated.getBytes(StandardCharsets.UTF_8).length > maxBytes - 7);
+                assertFalse(truncated.contains("?"));
+            }
+        }
+    }
+
+    @Test
+    public void modeShouldBeRetrievedFromItsName() {
+        assertEquals(MessageTruncator.Mode.HEAD_TAIL, MessageTruncator.Mode.fromName("headTail"));
+        assertEquals(MessageTruncator.Mode.HEAD_TAIL, MessageTruncator.Mode.fromName("HEAD_TAIL"));
+        assertEquals(MessageTruncator.Mode.HEAD, MessageTruncator.Mode.fromName("head"));
+        assertEquals(MessageTruncator.Mode.HEAD, MessageTruncator.Mode.fromName(null));
+    }
+}
@@ -0,0 +1,43 @@
+package io.probedock.client.common.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for class {@link StringPool}
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class StringPoolTest {
+    @Test
+    public void equalStringsShouldBeTheSameInstance() {
+        StringPool pool = new StringPool(16, 32);
+
+        String first = pool.pool(new String("category"));
+
+        assertSame(first, pool.pool(new String("category")));
+        assertNull(pool.pool(null));
+    }
+
+    @Test
+    public void longStringsShouldNotBePooled() {
+        StringPool pool = new StringPool(16, 4);
+
+        String first = pool.pool(new String("message"));
+
+        assertNotSame(first, pool.pool(new String("message")));
+    }
+
+    @Test
+    public void poolShouldBeBounded() {
+        StringPool pool = new StringPool(1, 32);
+
+        String a = pool.pool(new String("a"));
+        String b = pool.pool(new String("b"));
+
+        // The single slot is taken by the last string pooled
+        assertSame(b, pool.pool(new String("b")));
+        assertNotSame(a, pool.pool(new String("a")));
+    }
+}
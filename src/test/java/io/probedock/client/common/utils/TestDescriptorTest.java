@@ -0,0 +1,180 @@
+package io.probedock.client.common.utils;
+
+import io.probedock.client.annotations.ProbeTest;
+import io.probedock.client.annotations.ProbeTestClass;
+import io.probedock.client.common.config.Configuration;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test for class {@link TestDescriptor}
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class TestDescriptorTest {
+    @ProbeTestClass(
+        category = "classCategory",
+        contributors = { "a@localhost.localdomain" },
+        tags = { "ta1" },
+        tickets = { "ti1" }
+    )
+    public static class AnnotatedTest {
+        @ProbeTest(
+            name = "This is a custom test name",
+            key = "123",
+            active = false,
+            tags = { "ta2" },
+            tickets = { "ti2" }
+        )
+        public void annotatedMethod() {
+        }
+
+        public void notAnnotatedMethod() {
+        }
+    }
+
+    public static class InheritingTest extends AnnotatedTest {
+    }
+
+    public static class IndexedClass {
+        @ProbeTest(name = "Name of the annotation")
+        public void indexedMethod() {
+        }
+    }
+
+    @Mock
+    private Configuration configuration;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        when(configuration.getTags()).thenReturn(new HashSet<>(Arrays.asList("configTag")));
+        when(configuration.getTickets()).thenReturn(new HashSet<String>());
+        when(configuration.getContributors()).thenReturn(new HashSet<String>());
+    }
+
+    @Test
+    public void descriptorShouldBeBuiltFromTheAnnotations() throws Exception {
+        TestDescriptor descriptor = TestDescriptor.of(AnnotatedTest.class, AnnotatedTest.class.getMethod("annotatedMethod"));
+
+        assertEquals(FingerprintGenerator.fingerprint(AnnotatedTest.class, "annotatedMethod"), descriptor.getFingerprint());
+        assertEquals("This is a custom test name", descriptor.getName());
+        assertEquals(AnnotatedTest.class.getCanonicalName() + ".annotatedMethod", descriptor.getTechnicalName());
+        assertEquals("io.probedock.client.common.utils", descriptor.getPackageName());
+        assertEquals("AnnotatedTest", descriptor.getClassName());
+        assertEquals("annotatedMethod", descriptor.getMethodName());
+        assertEquals("123", descriptor.getKey());
+        assertFalse(descriptor.isActive());
+        assertTrue(descriptor.isAnnotated());
+        assertEquals(new HashSet<>(Arrays.asList("ta1", "ta2")), descriptor.getTags());
+        assertEquals(new HashSet<>(Arrays.asList("ti1", "ti2")), descriptor.getTickets());
+        assertEquals(new HashSet<>(Arrays.asList("a@localhost.localdomain")), descriptor.getContributors());
+    }
+
+    @Test
+    public void descriptorShouldBeBuiltFromTheIndexWhenTheMethodIsIndexed() throws Exception {
+        TestDescriptor.IndexedTest indexed = mock(TestDescriptor.IndexedTest.class);
+        when(indexed.getFingerprint()).thenReturn("indexedFingerprint");
+        when(indexed.getName()).thenReturn("Indexed name");
+        when(indexed.getCategory()).thenReturn("indexedCategory");
+        when(indexed.getTags()).thenReturn(new HashSet<>(Arrays.asList("indexed")));
+        when(indexed.getTickets()).thenReturn(new HashSet<String>());
+        when(indexed.getContributors()).thenReturn(new HashSet<String>());
+
+        TestDescriptor.Index index = mock(TestDescriptor.Index.class);
+        when(index.find(IndexedClass.class.getName(), "indexedMethod")).thenReturn(indexed);
+
+        TestDescriptor.Index previous = TestDescriptor.getIndex();
+        TestDescriptor.setIndex(index);
+
+        try {
+            TestDescriptor descriptor = TestDescriptor.of(IndexedClass.class, IndexedClass.class.getMethod("indexedMethod"));
+
+            assertEquals("indexedFingerprint", descriptor.getFingerprint());
+            assertEquals("Indexed name", descriptor.getName());
+            assertEquals(IndexedClass.class.getCanonicalName() + ".indexedMethod", descriptor.getTechnicalName());
+            assertEquals(new HashSet<>(Arrays.asList("indexed")), descriptor.getTags());
+            assertTrue(descriptor.isAnnotated());
+
+            // The data merged with the configuration come from the index as well
+            assertEquals(new HashSet<>(Arrays.asList("configTag", "indexed")), descriptor.getTags(configuration));
+            assertEquals("indexedCategory", descriptor.getCategory(configuration, "default"));
+        }
+        finally {
+            TestDescriptor.setIndex(previous);
+        }
+    }
+
+    @Test
+    public void descriptorShouldBeBuiltOncePerMethod() throws Exception {
+        TestDescriptor descriptor = TestDescriptor.of(AnnotatedTest.class, "annotatedMethod");
+
+        assertSame(descriptor, TestDescriptor.of(AnnotatedTest.class, "annotatedMethod"));
+        assertSame(descriptor, TestDescriptor.of(AnnotatedTest.class, AnnotatedTest.class.getMethod("annotatedMethod")));
+    }
+
+    @Test
+    public void descriptorOfNotAnnotatedMethodShouldHaveTheHumanName() {
+        TestDescriptor descriptor = TestDescriptor.of(AnnotatedTest.class, "notAnnotatedMethod");
+
+        assertEquals(Inflector.forgeName(AnnotatedTest.class, "notAnnotatedMethod", null), descriptor.getName());
+        assertNull(descriptor.getKey());
+        assertNull(descriptor.isActive());
+        assertEquals(new HashSet<>(Arrays.asList("ta1")), descriptor.getTags());
+    }
+
+    @Test
+    public void inheritedMethodShouldHaveTheFingerprintOfTheTestClass() {
+        TestDescriptor descriptor = TestDescriptor.of(InheritingTest.class, "annotatedMethod");
+
+        assertEquals(FingerprintGenerator.fingerprint(InheritingTest.class, "annotatedMethod"), descriptor.getFingerprint());
+        assertEquals("123", descriptor.getKey());
+    }
+
+    @Test
+    public void descriptorOfUnknownMethodShouldBeBuiltWithoutMethodAnnotation() {
+        TestDescriptor descriptor = TestDescriptor.of(AnnotatedTest.class, "unknownMethod");
+
+        assertEquals(AnnotatedTest.class.getCanonicalName() + ".unknownMethod", descriptor.getTechnicalName());
+        assertNull(descriptor.getKey());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void annotationTagsShouldBeImmutable() {
+        TestDescriptor.of(AnnotatedTest.class, "annotatedMethod").getTags().add("tag");
+    }
+
+    @Test
+    public void dataMergedWithTheConfigurationShouldBeComputedOncePerConfiguration() {
+        TestDescriptor descriptor = TestDescriptor.of(AnnotatedTest.class, "annotatedMethod");
+
+        Set<String> tags = descriptor.getTags(configuration);
+
+        assertEquals(new HashSet<>(Arrays.asList("configTag", "ta1", "ta2")), tags);
+        assertSame(tags, descriptor.getTags(configuration));
+        verify(configuration, times(1)).getTags();
+
+        assertEquals("classCategory", descriptor.getCategory(configuration, "default"));
+        assertEquals("classCategory", descriptor.getCategory(configuration, "default"));
+    }
+
+    @Test
+    public void dataShouldBeMergedAgainWithAnotherConfiguration() {
+        TestDescriptor descriptor = TestDescriptor.of(AnnotatedTest.class, "annotatedMethod");
+
+        descriptor.getTags(configuration);
+
+        Configuration otherConfiguration = mock(Configuration.class);
+        when(otherConfiguration.getTags()).thenReturn(new HashSet<>(Arrays.asList("otherTag")));
+
+        assertEquals(new HashSet<>(Arrays.asList("otherTag", "ta1", "ta2")), descriptor.getTags(otherConfiguration));
+    }
+}
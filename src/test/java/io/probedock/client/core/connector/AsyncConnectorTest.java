@@ -0,0 +1,140 @@
+package io.probedock.client.core.connector;
+
+import io.probedock.client.common.model.v1.TestRun;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test for class {@link AsyncConnector}
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class AsyncConnectorTest {
+	@Mock
+	private Connector connector;
+
+	@Before
+	public void setUp() {
+		MockitoAnnotations.initMocks(this);
+	}
+
+	@Test
+	public void testRunShouldBeSentInTheBackground() throws Exception {
+		TestRun testRun = new TestRun();
+		when(connector.send(testRun)).thenReturn(true);
+
+		AsyncConnector asyncConnector = new AsyncConnector(connector, 1, 1000);
+
+		assertTrue(asyncConnector.send(testRun).get(1, TimeUnit.SECONDS));
+		assertTrue(asyncConnector.shutdown());
+
+		verify(connector).send(testRun);
+	}
+
+	@Test
+	public void testRunShouldBeSentFromTheCallingThreadWhenTheQueueIsFull() throws Exception {
+		final CountDownLatch latch = new CountDownLatch(1);
+
+		TestRun blockingRun = new TestRun();
+		TestRun queuedRun = new TestRun();
+		TestRun overflowRun = new TestRun();
+
+		when(connector.send(blockingRun)).thenAnswer(new Answer<Boolean>() {
+			@Override
+			public Boolean answer(InvocationOnMock invocation) throws Throwable {
+				latch.await(1, TimeUnit.SECONDS);
+				return true;
+			}
+		});
+		when(connector.send(queuedRun)).thenReturn(true);
+		when(connector.send(overflowRun)).thenReturn(false);
+
+		AsyncConnector asyncConnector = new AsyncConnector(connector, 1, 1000);
+
+		asyncConnector.send(blockingRun);
+
+		// Wait for the worker to pick the first run to be sure the second one is queued
+		verify(connector, timeout(1000)).send(blockingRun);
+		asyncConnector.send(queuedRun);
+
+		Future<Boolean> overflow = asyncConnector.send(overflowRun);
+
+		assertTrue(overflow.isDone());
+		assertFalse(overflow.get());
+
+		latch.countDown();
+		assertTrue(asyncConnector.shutdown());
+	}
+
+	@Test
+	public void testRunShouldBeRefusedOnceTheConnectorIsShutdown() {
+		AsyncConnector asyncConnector = new AsyncConnector(connector, 1, 1000);
+		asyncConnector.shutdown();
+
+		try {
+			asyncConnector.send(new TestRun());
+			fail("IllegalStateException should be thrown when the connector is shut down.");
+		}
+		catch (IllegalStateException ise) {
+			assertEquals("The asynchronous connector is already shut down.", ise.getMessage());
+		}
+	}
+
+	@Test
+	public void pendingTestRunsShouldBeDroppedWhenTheDrainTimeoutExpires() throws Exception {
+		final CountDownLatch latch = new CountDownLatch(1);
+
+		TestRun blockingRun = new TestRun();
+
+		when(connector.send(blockingRun)).thenAnswer(new Answer<Boolean>() {
+			@Override
+			public Boolean answer(InvocationOnMock invocation) throws Throwable {
+				latch.await(5, TimeUnit.SECONDS);
+				return true;
+			}
+		});
+
+		AsyncConnector asyncConnector = new AsyncConnector(connector, 2, 50);
+
+		asyncConnector.send(blockingRun);
+		asyncConnector.send(new TestRun());
+
+		assertFalse(asyncConnector.shutdown());
+
+		latch.countDown();
+	}
+
+	@Test
+	public void testRunShouldBeSentFromTheCallingThreadWhenTheConnectorIsDisabled() throws Exception {
+		final TestRun testRun = new TestRun();
+		final Thread caller = Thread.currentThread();
+
+		when(connector.send(testRun)).thenAnswer(new Answer<Boolean>() {
+			@Override
+			public Boolean answer(InvocationOnMock invocation) throws Throwable {
+				return Thread.currentThread() == caller;
+			}
+		});
+
+		AsyncConnector asyncConnector = new AsyncConnector(connector, false, 1, 1000);
+
+		assertFalse(asyncConnector.isEnabled());
+
+		Future<Boolean> future = asyncConnector.send(testRun);
+
+		assertTrue(future.isDone());
+		assertTrue(future.get());
+		assertTrue(asyncConnector.shutdown());
+	}
+}
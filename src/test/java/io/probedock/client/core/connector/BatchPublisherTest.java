@@ -0,0 +1,354 @@
+package io.probedock.client.core.connector;
+
+import io.probedock.client.common.config.Configuration;
+import io.probedock.client.common.config.ServerConfiguration;
+import io.probedock.client.common.model.ProbeTestRun;
+import io.probedock.client.common.model.v1.TestResult;
+import io.probedock.client.common.model.v1.TestRun;
+import io.probedock.client.core.storage.Outbox;
+import io.probedock.client.utils.EnvironmentUtils;
+import org.apache.commons.configuration.CompositeConfiguration;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test for class {@link BatchPublisher}
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class BatchPublisherTest {
+	@Mock
+	private Connector connector;
+
+	private TestRun testRun;
+
+	@Before
+	public void setUp() {
+		MockitoAnnotations.initMocks(this);
+
+		testRun = new TestRun();
+		testRun.setProjectId("project");
+		testRun.setVersion("1.0.0");
+	}
+
+	@Test
+	public void aReportUidShouldBeGeneratedWhenTheTestRunHasNone() {
+		BatchPublisher publisher = new BatchPublisher(connector, testRun, 2, 60000);
+
+		assertNotNull(publisher.getReportUid());
+		assertEquals(publisher.getReportUid(), testRun.getTestReports().get(0).getUid());
+	}
+
+	@Test
+	public void theReportUidOfTheTestRunShouldBeKept() {
+		testRun.addData(ProbeTestRun.PROBEDOCK_REPORT_UID, "uid");
+
+		BatchPublisher publisher = new BatchPublisher(connector, testRun, 2, 60000);
+
+		assertEquals("uid", publisher.getReportUid());
+		assertTrue(testRun.getTestReports().isEmpty());
+	}
+
+	@Test
+	public void batchShouldBePublishedWhenTheBatchSizeIsReached() throws Exception {
+		when(connector.deliver(any(ProbeTestRun.class))).thenReturn(Delivery.SENT);
+
+		BatchPublisher publisher = new BatchPublisher(connector, testRun, 2, 60000);
+
+		publisher.add(new TestResult());
+		publisher.awaitPublications();
+		verify(connector, never()).deliver(any(ProbeTestRun.class));
+
+		publisher.add(new TestResult());
+		publisher.awaitPublications();
+
+		ArgumentCaptor<TestRun> captor = ArgumentCaptor.forClass(TestRun.class);
+		verify(connector).deliver(captor.capture());
+
+		TestRun batch = captor.getValue();
+		assertEquals(2, batch.getTestResults().size());
+		assertEquals("project", batch.getProjectId());
+		assertEquals("1.0.0", batch.getVersion());
+		assertEquals(publisher.getReportUid(), batch.getData().get(ProbeTestRun.PROBEDOCK_REPORT_UID));
+		assertEquals(0, publisher.getPendingCount());
+		assertTrue(testRun.getTestResults().isEmpty());
+	}
+
+	@Test
+	public void batchShouldBePublishedWhenTheBatchIntervalIsReached() throws Exception {
+		when(connector.deliver(any(ProbeTestRun.class))).thenReturn(Delivery.SENT);
+
+		BatchPublisher publisher = new BatchPublisher(connector, testRun, 100, 0);
+
+		publisher.add(new TestResult());
+		publisher.awaitPublications();
+
+		verify(connector).deliver(any(ProbeTestRun.class));
+		assertEquals(0, publisher.getPendingCount());
+	}
+
+	@Test
+	public void batchShouldBePublishedWhenTheBatchIntervalExpiresWithoutNewResults() throws Exception {
+		when(connector.deliver(any(ProbeTestRun.class))).thenReturn(Delivery.SENT);
+
+		BatchPublisher publisher = new BatchPublisher(connector, testRun, 100, 50);
+
+		publisher.add(new TestResult());
+
+		verify(connector, timeout(2000)).deliver(any(ProbeTestRun.class));
+		publisher.shutdown();
+		assertEquals(0, publisher.getPendingCount());
+	}
+
+	@Test
+	public void remainingResultsShouldBePublishedOnShutdown() throws Exception {
+		when(connector.deliver(any(ProbeTestRun.class))).thenReturn(Delivery.SENT);
+
+		BatchPublisher publisher = new BatchPublisher(connector, testRun, 100, 60000);
+
+		publisher.add(new TestResult());
+
+		assertTrue(publisher.shutdown());
+		assertEquals(0, publisher.getPendingCount());
+		verify(connector).deliver(any(ProbeTestRun.class));
+	}
+
+	@Test
+	public void resultsShouldBeKeptForTheNextBatchWhenThePublicationFailed() throws Exception {
+		when(connector.deliver(any(ProbeTestRun.class))).thenReturn(Delivery.FAILED, Delivery.SENT);
+
+		BatchPublisher publisher = new BatchPublisher(connector, testRun, 1, 60000);
+
+		publisher.add(new TestResult());
+		publisher.awaitPublications();
+		assertEquals(1, publisher.getPendingCount());
+
+		publisher.add(new TestResult());
+		publisher.awaitPublications();
+		assertEquals(0, publisher.getPendingCount());
+
+		ArgumentCaptor<TestRun> captor = ArgumentCaptor.forClass(TestRun.class);
+		verify(connector, times(2)).deliver(captor.capture());
+
+		List<TestRun> batches = captor.getAllValues();
+		assertEquals(2, batches.get(1).getTestResults().size());
+	}
+
+	@Test
+	public void nothingShouldBeSentWhenThereIsNoPendingResult() throws Exception {
+		BatchPublisher publisher = new BatchPublisher(connector, testRun, 1, 60000);
+
+		assertTrue(publisher.publish());
+		verify(connector, never()).deliver(any(ProbeTestRun.class));
+	}
+
+	@Test
+	public void theOldestResultsShouldBeDroppedWhenTooManyArePending() throws Exception {
+		when(connector.deliver(any(ProbeTestRun.class))).thenReturn(Delivery.FAILED, Delivery.FAILED, Delivery.FAILED, Delivery.SENT);
+
+		BatchPublisher publisher = new BatchPublisher(connector, testRun, 2, 60000, 3);
+
+		TestResult first = new TestResult();
+		TestResult second = new TestResult();
+
+		publisher.add(first);
+		publisher.add(second);
+		publisher.awaitPublications();
+		publisher.add(new TestResult());
+		publisher.awaitPublications();
+		publisher.add(new TestResult());
+		publisher.awaitPublications();
+
+		assertEquals(3, publisher.getPendingCount());
+		assertEquals(1, publisher.getDroppedCount());
+
+		publisher.add(new TestResult());
+		publisher.awaitPublications();
+
+		assertEquals(0, publisher.getPendingCount());
+		assertEquals(2, publisher.getDroppedCount());
+
+		ArgumentCaptor<TestRun> captor = ArgumentCaptor.forClass(TestRun.class);
+		verify(connector, times(4)).deliver(captor.capture());
+
+		List<TestResult> lastBatch = captor.getAllValues().get(3).getTestResults();
+		assertEquals(3, lastBatch.size());
+		assertFalse(lastBatch.contains(first));
+		assertFalse(lastBatch.contains(second));
+	}
+
+	@Test
+	public void resultsShouldBeAddedWhileABatchIsBeingSent() throws Exception {
+		final CountDownLatch sending = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		when(connector.deliver(any(ProbeTestRun.class))).thenAnswer(new Answer<Delivery>() {
+			@Override
+			public Delivery answer(InvocationOnMock invocation) throws Throwable {
+				sending.countDown();
+				release.await(5, TimeUnit.SECONDS);
+				return Delivery.SENT;
+			}
+		});
+
+		BatchPublisher publisher = new BatchPublisher(connector, testRun, 1, 60000);
+
+		// The batch is sent in the background, the test thread is not blocked
+		publisher.add(new TestResult());
+		assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+		// The batch is still being sent, the result is kept for the next batch
+		publisher.add(new TestResult());
+		assertEquals(1, publisher.getPendingCount());
+
+		release.countDown();
+		publisher.awaitPublications();
+
+		assertEquals(0, publisher.getPendingCount());
+		verify(connector, times(2)).deliver(any(ProbeTestRun.class));
+	}
+
+	@Test
+	public void resultsStoredInTheOutboxShouldBeReleased() throws Exception {
+		when(connector.deliver(any(ProbeTestRun.class))).thenReturn(Delivery.STORED, Delivery.SENT);
+
+		BatchPublisher publisher = new BatchPublisher(connector, testRun, 1, 60000);
+
+		publisher.add(new TestResult());
+		publisher.awaitPublications();
+		assertEquals(0, publisher.getPendingCount());
+
+		publisher.add(new TestResult());
+		publisher.awaitPublications();
+
+		ArgumentCaptor<TestRun> captor = ArgumentCaptor.forClass(TestRun.class);
+		verify(connector, times(2)).deliver(captor.capture());
+		assertEquals(1, captor.getAllValues().get(1).getTestResults().size());
+	}
+
+	@Test
+	public void batchesThatCannotBeSentShouldBeStoredOnceInTheOutbox() throws Exception {
+		File workspace = Files.createTempDirectory("probedock").toFile();
+
+		try {
+			ServerConfiguration server = createUnreachableServer();
+			Configuration configuration = createConfiguration(workspace, server);
+
+			BatchPublisher publisher = new BatchPublisher(new Connector(configuration), testRun, 1, 60000);
+
+			publisher.add(new TestResult());
+			publisher.awaitPublications();
+			publisher.add(new TestResult());
+			publisher.awaitPublications();
+
+			assertEquals(0, publisher.getPendingCount());
+
+			Outbox outbox = new Outbox(configuration, server);
+			List<String> entries = outbox.getEntries(TestRun.class);
+			assertEquals(2, entries.size());
+
+			for (String entry : entries) {
+				assertEquals(1, outbox.claim(entry, TestRun.class).getTestResults().size());
+			}
+		}
+		finally {
+			FileUtils.deleteDirectory(workspace);
+		}
+	}
+
+	@Test
+	public void resultsOfTheBatchesShouldNotBeModifiedByTheDeduplicationOfTheFailures() throws Exception {
+		File workspace = Files.createTempDirectory("probedock").toFile();
+
+		try {
+			ServerConfiguration server = createUnreachableServer();
+			Configuration configuration = createConfiguration(workspace, server);
+			when(configuration.isPayloadDeduplicateFailures()).thenReturn(true);
+
+			BatchPublisher publisher = new BatchPublisher(new Connector(configuration), testRun, 2, 60000);
+
+			TestResult first = new TestResult(null, "a", "a", 1L, false, "java.lang.AssertionError: failed", null);
+			TestResult second = new TestResult(null, "b", "b", 1L, false, "java.lang.AssertionError: failed", null);
+
+			publisher.add(first);
+			publisher.add(second);
+			publisher.awaitPublications();
+
+			assertEquals("java.lang.AssertionError: failed", first.getMessage());
+			assertNull(first.getFailureRef());
+			assertEquals("java.lang.AssertionError: failed", second.getMessage());
+			assertNull(second.getFailureRef());
+
+			// The payload stored in the outbox is the deduplicated one
+			Outbox outbox = new Outbox(configuration, server);
+			List<String> entries = outbox.getEntries(TestRun.class);
+			assertEquals(1, entries.size());
+
+			TestRun stored = outbox.claim(entries.get(0), TestRun.class);
+			String ref = stored.getTestResults().get(0).getFailureRef();
+
+			assertNotNull(ref);
+			assertEquals(ref, stored.getTestResults().get(1).getFailureRef());
+			assertEquals("java.lang.AssertionError: failed", stored.getFailures().get(ref));
+		}
+		finally {
+			FileUtils.deleteDirectory(workspace);
+		}
+	}
+
+	/**
+	 * @return The configuration of a server on which nothing listens
+	 */
+	private static ServerConfiguration createUnreachableServer() throws Exception {
+		EnvironmentUtils.setEnvVars(new HashMap<String, String>());
+
+		// Nothing listens on the port once the socket is closed
+		int port;
+		try (ServerSocket socket = new ServerSocket(0)) {
+			port = socket.getLocalPort();
+		}
+
+		ServerConfiguration server = new ServerConfiguration("unreachable");
+		server.configureWith(Collections.<String, Object>singletonMap("apiUrl", "http://127.0.0.1:" + port + "/api"));
+		return server;
+	}
+
+	/**
+	 * @return The configuration to send the test runs once to the server and store them in the outbox of the workspace
+	 */
+	private static Configuration createConfiguration(File workspace, ServerConfiguration server) throws Exception {
+		// The workspace getter is final, the underlying configuration is provided instead
+		Configuration configuration = mock(Configuration.class);
+		Field configField = Configuration.class.getDeclaredField("config");
+		configField.setAccessible(true);
+		CompositeConfiguration config = new CompositeConfiguration();
+		config.setProperty("probedock.workspace", workspace.getAbsolutePath());
+		configField.set(configuration, config);
+
+		when(configuration.getServerConfiguration()).thenReturn(server);
+		when(configuration.getRetryMaxAttempts()).thenReturn(1);
+		when(configuration.isPayloadOutbox()).thenReturn(true);
+
+		return configuration;
+	}
+}
@@ -0,0 +1,115 @@
+package io.probedock.client.core.connector;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import io.probedock.client.common.config.Configuration;
+import io.probedock.client.common.config.ServerConfiguration;
+import io.probedock.client.common.model.v1.TestRun;
+import io.probedock.client.core.storage.Outbox;
+import io.probedock.client.utils.EnvironmentUtils;
+import org.apache.commons.configuration.CompositeConfiguration;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test for class {@link Connector}
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class ConnectorTest {
+	private File workspace;
+
+	private HttpServer server;
+
+	private Configuration configuration;
+
+	private ServerConfiguration serverConfiguration;
+
+	/**
+	 * Number of requests accepted by the server before it fails
+	 */
+	private final AtomicInteger accepted = new AtomicInteger();
+
+	@Before
+	public void setUp() throws Exception {
+		workspace = Files.createTempDirectory("probedock").toFile();
+
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				IOUtils.toByteArray(exchange.getRequestBody());
+				exchange.sendResponseHeaders(accepted.getAndDecrement() > 0 ? 202 : 400, -1);
+				exchange.close();
+			}
+		});
+		server.start();
+
+		EnvironmentUtils.setEnvVars(new HashMap<String, String>());
+
+		serverConfiguration = new ServerConfiguration("server");
+		serverConfiguration.configureWith(Collections.<String, Object>singletonMap("apiUrl", "http://127.0.0.1:" + server.getAddress().getPort() + "/api"));
+
+		// The workspace getter is final, the underlying configuration is provided instead
+		configuration = mock(Configuration.class);
+		Field configField = Configuration.class.getDeclaredField("config");
+		configField.setAccessible(true);
+		CompositeConfiguration config = new CompositeConfiguration();
+		config.setProperty("probedock.workspace", workspace.getAbsolutePath());
+		configField.set(configuration, config);
+
+		when(configuration.getServerConfiguration()).thenReturn(serverConfiguration);
+		when(configuration.getRetryMaxAttempts()).thenReturn(1);
+		when(configuration.isPayloadOutbox()).thenReturn(true);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		server.stop(0);
+		FileUtils.deleteDirectory(workspace);
+	}
+
+	@Test
+	public void outboxShouldBeReplayedInOrderAndKeepTheEntriesNotSent() throws Exception {
+		Outbox outbox = new Outbox(configuration, serverConfiguration);
+
+		String first = outbox.add(createTestRun("1.0.0"));
+		String second = outbox.add(createTestRun("2.0.0"));
+		String third = outbox.add(createTestRun("3.0.0"));
+
+		accepted.set(1);
+
+		assertEquals(1, new Connector(configuration).replayOutbox(TestRun.class));
+		assertFalse(outbox.getEntries(TestRun.class).contains(first));
+		assertEquals(Arrays.asList(second, third), outbox.getEntries(TestRun.class));
+
+		accepted.set(2);
+
+		assertEquals(2, new Connector(configuration).replayOutbox(TestRun.class));
+		assertTrue(outbox.getEntries(TestRun.class).isEmpty());
+	}
+
+	private TestRun createTestRun(String version) {
+		TestRun testRun = new TestRun();
+		testRun.setProjectId("project");
+		testRun.setVersion(version);
+		return testRun;
+	}
+}
@@ -0,0 +1,62 @@
+package io.probedock.client.core.connector;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for class {@link PayloadCompression}
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class PayloadCompressionTest {
+	@Test
+	public void compressionShouldBeRetrievedFromItsNameWhateverTheCase() {
+		assertEquals(PayloadCompression.GZIP, PayloadCompression.fromName("gzip"));
+		assertEquals(PayloadCompression.DEFLATE, PayloadCompression.fromName("DEFLATE"));
+		assertEquals(PayloadCompression.NONE, PayloadCompression.fromName("None"));
+	}
+
+	@Test
+	public void noCompressionShouldBeUsedWhenTheNameIsEmptyOrUnknown() {
+		assertEquals(PayloadCompression.NONE, PayloadCompression.fromName(null));
+		assertEquals(PayloadCompression.NONE, PayloadCompression.fromName(""));
+		assertEquals(PayloadCompression.NONE, PayloadCompression.fromName("brotli"));
+	}
+
+	@Test
+	public void contentEncodingShouldOnlyBePresentWhenThePayloadIsCompressed() {
+		assertNull(PayloadCompression.NONE.getContentEncoding());
+		assertEquals("gzip", PayloadCompression.GZIP.getContentEncoding());
+		assertEquals("deflate", PayloadCompression.DEFLATE.getContentEncoding());
+	}
+
+	@Test
+	public void gzipCompressionShouldProduceReadableGzipData() throws Exception {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+		try (OutputStream os = PayloadCompression.GZIP.wrap(baos)) {
+			os.write("{\"results\":[]}".getBytes("UTF-8"));
+		}
+
+		assertEquals("{\"results\":[]}", IOUtils.toString(new GZIPInputStream(new ByteArrayInputStream(baos.toByteArray())), "UTF-8"));
+	}
+
+	@Test
+	public void deflateCompressionShouldProduceReadableDeflateData() throws Exception {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+		try (OutputStream os = PayloadCompression.DEFLATE.wrap(baos)) {
+			os.write("{\"results\":[]}".getBytes("UTF-8"));
+		}
+
+		assertEquals("{\"results\":[]}", IOUtils.toString(new InflaterInputStream(new ByteArrayInputStream(baos.toByteArray())), "UTF-8"));
+	}
+}
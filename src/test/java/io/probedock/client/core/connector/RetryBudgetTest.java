@@ -0,0 +1,51 @@
+package io.probedock.client.core.connector;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for class {@link RetryBudget}
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class RetryBudgetTest {
+	@Test
+	public void tokensShouldBeConsumedByTheRetries() {
+		RetryBudget budget = new RetryBudget(2, 0.1);
+
+		assertTrue(budget.tryAcquire());
+		assertTrue(budget.tryAcquire());
+		assertFalse(budget.tryAcquire());
+		assertEquals(0, budget.getAvailable());
+	}
+
+	@Test
+	public void successfulPublicationsShouldRefillTheBudgetUpToItsMaximum() {
+		RetryBudget budget = new RetryBudget(1, 0.5);
+
+		assertTrue(budget.tryAcquire());
+
+		budget.onSuccess();
+		assertFalse(budget.tryAcquire());
+
+		budget.onSuccess();
+		budget.onSuccess();
+		budget.onSuccess();
+		assertEquals(1, budget.getAvailable());
+	}
+
+	@Test
+	public void sharedBudgetShouldBeTheSameInstanceForTheSameServerAndBudget() {
+		assertSame(RetryBudget.getInstance("https://probedock.io/api", 10), RetryBudget.getInstance("https://probedock.io/api", 10));
+	}
+
+	@Test
+	public void sharedBudgetsShouldBeDistinctByServerAndBudget() {
+		RetryBudget budget = RetryBudget.getInstance("https://probedock.io/api", 10);
+
+		assertNotSame(budget, RetryBudget.getInstance("https://probedock.io/api", 20));
+		assertNotSame(budget, RetryBudget.getInstance("https://other.probedock.io/api", 10));
+		assertEquals(20, RetryBudget.getInstance("https://probedock.io/api", 20).getAvailable());
+	}
+}
@@ -0,0 +1,98 @@
+package io.probedock.client.core.connector;
+
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for class {@link RetryPolicy}
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class RetryPolicyTest {
+	@Test
+	public void onlyTooManyRequestsAndServerErrorsShouldBeRetryable() {
+		RetryPolicy policy = new RetryPolicy(3, 1000, 30000, new RetryBudget(10, 0.1));
+
+		assertTrue(policy.isRetryable(429));
+		assertTrue(policy.isRetryable(500));
+		assertTrue(policy.isRetryable(503));
+
+		assertFalse(policy.isRetryable(400));
+		assertFalse(policy.isRetryable(401));
+		assertFalse(policy.isRetryable(404));
+		assertFalse(policy.isRetryable(422));
+	}
+
+	@Test
+	public void noRetryShouldBeDoneOnceTheMaximumNumberOfAttemptsIsReached() {
+		RetryPolicy policy = new RetryPolicy(3, 1000, 30000, new RetryBudget(10, 0.1));
+
+		assertTrue(policy.getRetryDelay(1, null) >= 0);
+		assertTrue(policy.getRetryDelay(2, null) >= 0);
+		assertEquals(-1, policy.getRetryDelay(3, null));
+	}
+
+	@Test
+	public void delayShouldGrowExponentiallyAndBeCapped() {
+		RetryPolicy policy = new RetryPolicy(20, 100, 1000, new RetryBudget(1000, 0.1));
+
+		for (int i = 0; i < 50; i++) {
+			assertTrue(policy.getRetryDelay(1, null) < 100);
+			assertTrue(policy.getRetryDelay(2, null) < 200);
+			assertTrue(policy.getRetryDelay(3, null) < 400);
+			assertTrue(policy.getRetryDelay(10, null) < 1000);
+		}
+	}
+
+	@Test
+	public void retryAfterInSecondsShouldTakePrecedenceOverTheBackoff() {
+		RetryPolicy policy = new RetryPolicy(3, 100, 30000, new RetryBudget(10, 0.1));
+
+		assertEquals(5000, policy.getRetryDelay(1, "5"));
+	}
+
+	@Test
+	public void retryAfterAboveTheMaximumDelayShouldBeCapped() {
+		RetryBudget budget = new RetryBudget(10, 0.1);
+		RetryPolicy policy = new RetryPolicy(3, 100, 1000, budget);
+
+		assertEquals(1000, policy.getRetryDelay(1, "120"));
+		assertEquals(9, budget.getAvailable());
+	}
+
+	@Test
+	public void retryAfterShouldBeParsedFromSecondsOrHttpDate() {
+		assertEquals(Long.valueOf(3000), RetryPolicy.parseRetryAfter("3"));
+		assertEquals(Long.valueOf(0), RetryPolicy.parseRetryAfter("-3"));
+		assertNull(RetryPolicy.parseRetryAfter(null));
+		assertNull(RetryPolicy.parseRetryAfter("soon"));
+
+		SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+		format.setTimeZone(TimeZone.getTimeZone("GMT"));
+
+		long delay = RetryPolicy.parseRetryAfter(format.format(new Date(System.currentTimeMillis() + 10000)));
+		assertTrue(delay > 8000 && delay <= 10000);
+
+		assertEquals(Long.valueOf(0), RetryPolicy.parseRetryAfter(format.format(new Date(System.currentTimeMillis() - 10000))));
+	}
+
+	@Test
+	public void noRetryShouldBeDoneWhenTheBudgetIsExhausted() {
+		RetryPolicy policy = new RetryPolicy(10, 100, 1000, new RetryBudget(2, 0.5));
+
+		assertTrue(policy.getRetryDelay(1, null) >= 0);
+		assertTrue(policy.getRetryDelay(1, null) >= 0);
+		assertEquals(-1, policy.getRetryDelay(1, null));
+
+		policy.onSuccess();
+		policy.onSuccess();
+
+		assertTrue(policy.getRetryDelay(1, null) >= 0);
+	}
+}
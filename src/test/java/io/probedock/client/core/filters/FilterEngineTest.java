@@ -0,0 +1,163 @@
+package io.probedock.client.core.filters;
+
+import io.probedock.client.annotations.ProbeTest;
+import io.probedock.client.annotations.ProbeTestClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for class {@link FilterEngine}
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class FilterEngineTest {
+    private static FilterTargetData annotatedTest() throws Exception {
+        return new FilterTargetData(
+            "0123456789abcdef", AnnotatedTest.class.getMethod("aTestShouldBeFiltered"),
+            AnnotatedTest.class.getMethod("aTestShouldBeFiltered").getAnnotation(ProbeTest.class),
+            AnnotatedTest.class.getAnnotation(ProbeTestClass.class)
+        );
+    }
+
+    private static FilterEngine compile(String... typesAndTexts) {
+        List<FilterDefinition> filters = new ArrayList<>();
+
+        for (int i = 0; i < typesAndTexts.length; i += 2) {
+            filters.add(new FilterDefinitionImpl(typesAndTexts[i], typesAndTexts[i + 1]));
+        }
+
+        return FilterEngine.compile(filters);
+    }
+
+    @Test
+    public void everyTestShouldBeRunnableWithoutFilters() throws Exception {
+        assertTrue(FilterEngine.compile(null).isRunnable(annotatedTest()));
+        assertTrue(FilterEngine.compile(Collections.<FilterDefinition>emptyList()).isRunnable(annotatedTest()));
+    }
+
+    @Test
+    public void tagsShouldBeMatchedExactly() throws Exception {
+        assertTrue(compile("tag", "fast").isRunnable(annotatedTest()));
+        assertTrue(compile("tag", "benchmark").isRunnable(annotatedTest()));
+        assertFalse(compile("tag", "fas").isRunnable(annotatedTest()));
+        assertFalse(compile("tag", "fast, unit").isRunnable(annotatedTest()));
+    }
+
+    @Test
+    public void ticketsShouldBeMatchedExactly() throws Exception {
+        assertTrue(compile("ticket", "PD-2").isRunnable(annotatedTest()));
+        assertTrue(compile("ticket", "PD-1").isRunnable(annotatedTest()));
+        assertFalse(compile("ticket", "PD-").isRunnable(annotatedTest()));
+    }
+
+    @Test
+    public void keysShouldBeMatchedAsSubstrings() throws Exception {
+        assertTrue(compile("key", "c12").isRunnable(annotatedTest()));
+        assertFalse(compile("key", "xyz").isRunnable(annotatedTest()));
+    }
+
+    @Test
+    public void technicalNameShouldBeMatchedAsKeyWhenThereIsNoKey() throws Exception {
+        FilterTargetData targetData = new FilterTargetData("fingerprint", "[]", "[]", "io.probedock.SomeTest.someMethod", "Some test: some method", "");
+
+        assertTrue(compile("key", "SomeTest.some").isRunnable(targetData));
+    }
+
+    @Test
+    public void namesShouldBeMatchedAgainstTheNameAndTheTechnicalName() throws Exception {
+        assertTrue(compile("name", "Custom").isRunnable(annotatedTest()));
+        assertTrue(compile("name", "AnnotatedTest.aTest").isRunnable(annotatedTest()));
+        assertFalse(compile("name", "custom").isRunnable(annotatedTest()));
+    }
+
+    @Test
+    public void fingerprintsShouldBeMatchedAsSubstrings() throws Exception {
+        assertTrue(compile("fp", "456789").isRunnable(annotatedTest()));
+        assertFalse(compile("fp", "fedcba").isRunnable(annotatedTest()));
+    }
+
+    @Test
+    public void anyFilterShouldMatchEveryKindOfData() throws Exception {
+        assertTrue(compile("*", "PD-3").isRunnable(annotatedTest()));
+        assertTrue(compile(null, "unit").isRunnable(annotatedTest()));
+        assertTrue(compile("", "Custom").isRunnable(annotatedTest()));
+        assertTrue(compile("*", "abc").isRunnable(annotatedTest()));
+        assertFalse(compile("*", "unknown").isRunnable(annotatedTest()));
+    }
+
+    @Test
+    public void typesShouldBeCaseInsensitive() throws Exception {
+        assertTrue(compile("TAG", "fast").isRunnable(annotatedTest()));
+    }
+
+    @Test
+    public void oneMatchingFilterAmongManyShouldBeEnough() throws Exception {
+        String[] typesAndTexts = new String[2000];
+
+        for (int i = 0; i < 1000; i++) {
+            typesAndTexts[i * 2] = i % 2 == 0 ? "tag" : "name";
+            typesAndTexts[i * 2 + 1] = "unknown" + i;
+        }
+
+        assertFalse(compile(typesAndTexts).isRunnable(annotatedTest()));
+
+        typesAndTexts[1998] = "ticket";
+        typesAndTexts[1999] = "PD-3";
+
+        assertTrue(compile(typesAndTexts).isRunnable(annotatedTest()));
+    }
+
+    @Test
+    public void unknownTypesShouldNotMatch() throws Exception {
+        assertFalse(compile("unknown", "fast").isRunnable(annotatedTest()));
+    }
+
+    @Test
+    public void legacyTagsAndTicketsShouldBeParsed() throws Exception {
+        FilterTargetData targetData = new FilterTargetData("fingerprint", "[ab, cd]", "PD-1", "Test.method", "Test: method", null);
+
+        assertTrue(compile("tag", "ab").isRunnable(targetData));
+        assertTrue(compile("tag", "cd").isRunnable(targetData));
+        assertFalse(compile("tag", "a").isRunnable(targetData));
+        assertTrue(compile("ticket", "PD-1").isRunnable(targetData));
+    }
+
+    @Test
+    public void engineShouldKnowTheFiltersItWasCompiledFrom() {
+        List<FilterDefinition> filters = Arrays.<FilterDefinition>asList(new FilterDefinitionImpl("tag", "fast"));
+
+        FilterEngine engine = FilterEngine.compile(filters);
+
+        assertTrue(engine.isCompiledFrom(filters));
+        assertTrue(engine.isCompiledFrom(Arrays.<FilterDefinition>asList(new FilterDefinitionImpl("tag", "fast"))));
+        assertFalse(engine.isCompiledFrom(Arrays.<FilterDefinition>asList(new FilterDefinitionImpl("tag", "slow"))));
+        assertFalse(engine.isCompiledFrom(null));
+    }
+
+    @Test
+    public void filtersReplacedInTheSameListShouldBeRecognized() {
+        List<FilterDefinition> filters = new ArrayList<>();
+        filters.add(new FilterDefinitionImpl("tag", "fast"));
+
+        FilterEngine engine = FilterEngine.compile(filters);
+
+        filters.set(0, new FilterDefinitionImpl("tag", "fast"));
+        assertTrue(engine.isCompiledFrom(filters));
+
+        filters.set(0, new FilterDefinitionImpl("tag", "slow"));
+        assertFalse(engine.isCompiledFrom(filters));
+    }
+
+    @ProbeTestClass(tags = "benchmark", tickets = "PD-1")
+    public static class AnnotatedTest {
+        @ProbeTest(key = "abc123", name = "Custom name", tags = {"fast", "unit"}, tickets = {"PD-2", "PD-3"})
+        public void aTestShouldBeFiltered() {
+        }
+    }
+}
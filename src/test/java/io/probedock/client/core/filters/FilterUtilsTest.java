@@ -0,0 +1,82 @@
+package io.probedock.client.core.filters;
+
+import io.probedock.client.annotations.ProbeTest;
+import io.probedock.client.common.utils.TestDescriptor;
+import io.probedock.client.core.index.TestIndex;
+import io.probedock.client.core.index.TestIndexEntry;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for class {@link FilterUtils}
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class FilterUtilsTest {
+    @Test
+    public void testsShouldBeRunnableWithoutFilters() {
+        assertTrue(FilterUtils.isRunnable(FilterUtilsTest.class, "aTaggedTest", null));
+        assertTrue(FilterUtils.isRunnable(FilterUtilsTest.class, "aTaggedTest", new ArrayList<FilterDefinition>()));
+    }
+
+    @Test
+    public void filtersShouldBeAppliedOnTheAnnotations() {
+        List<FilterDefinition> filters = Arrays.<FilterDefinition>asList(new FilterDefinitionImpl("tag", "filter"));
+
+        assertTrue(FilterUtils.isRunnable(FilterUtilsTest.class, "aTaggedTest", filters));
+        assertFalse(FilterUtils.isRunnable(FilterUtilsTest.class, "anUntaggedTest", filters));
+    }
+
+    @Test
+    public void changingTheFiltersShouldBeTakenIntoAccount() {
+        List<FilterDefinition> filters = new ArrayList<>();
+        filters.add(new FilterDefinitionImpl("tag", "unknown"));
+
+        assertFalse(FilterUtils.isRunnable(FilterUtilsTest.class, "aTaggedTest", filters));
+
+        filters.add(new FilterDefinitionImpl("tag", "filter"));
+
+        assertTrue(FilterUtils.isRunnable(FilterUtilsTest.class, "aTaggedTest", filters));
+    }
+
+    @Test
+    public void tagsGivenAsStringShouldBeMatchedExactly() {
+        List<FilterDefinition> filters = Arrays.<FilterDefinition>asList(new FilterDefinitionImpl("tag", "a"));
+
+        assertFalse(FilterUtils.isRunnable("fingerprint", "Name", "Test.method", "", "[ab, cd]", "[]", filters));
+        assertTrue(FilterUtils.isRunnable("fingerprint", "Name", "Test.method", "", "[ab, a]", "[]", filters));
+    }
+
+    @Test
+    public void indexedTestsShouldBeFilteredFromTheIndex() {
+        TestIndex index = new TestIndex(Collections.singletonList(new TestIndexEntry(
+            FilterUtilsTest.class.getName(), "anIndexedTest", null, null, null, null, null,
+            Collections.singleton("indexed"), Collections.<String>emptySet(), Collections.<String>emptySet()
+        )));
+
+        TestDescriptor.Index previous = TestDescriptor.getIndex();
+        TestDescriptor.setIndex(index);
+
+        try {
+            // The method does not exist, only the index knows the test
+            assertTrue(FilterUtils.isRunnable(FilterUtilsTest.class, "anIndexedTest", Arrays.<FilterDefinition>asList(new FilterDefinitionImpl("tag", "indexed"))));
+            assertFalse(FilterUtils.isRunnable(FilterUtilsTest.class, "anIndexedTest", Arrays.<FilterDefinition>asList(new FilterDefinitionImpl("tag", "other"))));
+        }
+        finally {
+            TestDescriptor.setIndex(previous);
+        }
+    }
+
+    @ProbeTest(tags = "filter")
+    public void aTaggedTest() {
+    }
+
+    public void anUntaggedTest() {
+    }
+}
@@ -0,0 +1,59 @@
+package io.probedock.client.core.filters;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for class {@link SubstringMatcher}
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class SubstringMatcherTest {
+    @Test
+    public void textContainingOneOfThePatternsShouldMatch() {
+        SubstringMatcher matcher = new SubstringMatcher(Arrays.asList("he", "she", "his", "hers"));
+
+        assertTrue(matcher.matches("ushers"));
+        assertTrue(matcher.matches("this"));
+        assertTrue(matcher.matches("she"));
+        assertFalse(matcher.matches("hi thor"));
+        assertFalse(matcher.matches("h"));
+    }
+
+    @Test
+    public void patternsFoundThroughTheFailureLinksShouldMatch() {
+        SubstringMatcher matcher = new SubstringMatcher(Arrays.asList("abcd", "bce"));
+
+        assertTrue(matcher.matches("abce"));
+        assertTrue(matcher.matches("aabcabcd"));
+        assertFalse(matcher.matches("abcbd"));
+    }
+
+    @Test
+    public void patternsContainedInOtherPatternsShouldMatch() {
+        SubstringMatcher matcher = new SubstringMatcher(Arrays.asList("abcde", "cd"));
+
+        assertTrue(matcher.matches("xabcdx"));
+    }
+
+    @Test
+    public void emptyPatternShouldMatchAnyText() {
+        SubstringMatcher matcher = new SubstringMatcher(Collections.singletonList(""));
+
+        assertTrue(matcher.matches(""));
+        assertTrue(matcher.matches("anything"));
+    }
+
+    @Test
+    public void noPatternShouldMatchNothing() {
+        SubstringMatcher matcher = new SubstringMatcher(Collections.<String>emptyList());
+
+        assertFalse(matcher.matches(""));
+        assertFalse(matcher.matches("anything"));
+        assertFalse(matcher.matches(null));
+    }
+}
@@ -0,0 +1,218 @@
+package io.probedock.client.core.index;
+
+import io.probedock.client.annotations.ProbeTest;
+import io.probedock.client.annotations.ProbeTestClass;
+import io.probedock.client.common.utils.TestDescriptor;
+import io.probedock.client.core.filters.FilterDefinition;
+import io.probedock.client.core.filters.FilterDefinitionImpl;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for class {@link ClasspathScanner}
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class ClasspathScannerTest {
+    @ProbeTestClass(
+        category = "classCategory",
+        contributors = { "a@localhost.localdomain" },
+        tags = { "ta1" },
+        tickets = { "ti1" }
+    )
+    public static class AnnotatedTest {
+        @ProbeTest(
+            name = "This is a custom test name",
+            key = "123",
+            active = false,
+            tags = { "ta2" },
+            tickets = { "ti2" }
+        )
+        public void annotatedMethod() {
+        }
+
+        @Test
+        public void junitMethod() {
+        }
+
+        public void notTestMethod() {
+        }
+    }
+
+    public static class MethodAnnotatedTest {
+        @ProbeTest(category = "methodCategory", tags = "ta3")
+        public void annotatedMethod() {
+        }
+
+        @Test
+        public void junitMethod() {
+        }
+    }
+
+    public static abstract class AbstractTest {
+        @ProbeTest
+        public void abstractMethod() {
+        }
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void entriesShouldMatchTheDescriptorsOfTheLoadedClasses() throws Exception {
+        List<TestIndexEntry> entries = index(AnnotatedTest.class);
+
+        assertEquals(2, entries.size());
+
+        for (TestIndexEntry entry : entries) {
+            TestDescriptor descriptor = TestDescriptor.of(AnnotatedTest.class, entry.getMethodName());
+
+            assertEquals(AnnotatedTest.class.getName(), entry.getClassName());
+            assertEquals(descriptor.getFingerprint(), entry.getFingerprint());
+            assertEquals(descriptor.getName(), entry.getName());
+            assertEquals(descriptor.getTechnicalName(), entry.getTechnicalName());
+            assertEquals(descriptor.getPackageName(), entry.getPackageName());
+            assertEquals(descriptor.getTags(), entry.getTags());
+            assertEquals(descriptor.getTickets(), entry.getTickets());
+            assertEquals(descriptor.getContributors(), entry.getContributors());
+        }
+    }
+
+    @Test
+    public void annotationValuesShouldBeIndexed() throws Exception {
+        TestIndex index = new TestIndex(index(AnnotatedTest.class));
+
+        TestIndexEntry annotated = index.getEntry(AnnotatedTest.class.getName(), "annotatedMethod");
+        assertEquals("123", annotated.getKey());
+        assertEquals("classCategory", annotated.getCategory());
+        assertFalse(annotated.isActive());
+
+        TestIndexEntry junit = index.getEntry(AnnotatedTest.class.getName(), "junitMethod");
+        assertNull(junit.getKey());
+        assertEquals("classCategory", junit.getCategory());
+        assertNull(junit.isActive());
+
+        assertNull(index.getEntry(AnnotatedTest.class.getName(), "notTestMethod"));
+    }
+
+    @Test
+    public void onlyProbeTestMethodsShouldBeIndexedWithoutClassAnnotation() throws Exception {
+        List<TestIndexEntry> entries = index(MethodAnnotatedTest.class);
+
+        assertEquals(1, entries.size());
+        assertEquals("annotatedMethod", entries.get(0).getMethodName());
+        assertEquals("methodCategory", entries.get(0).getCategory());
+        assertTrue(entries.get(0).isActive());
+        assertEquals(new HashSet<>(Arrays.asList("ta3")), entries.get(0).getTags());
+    }
+
+    @Test
+    public void abstractClassesShouldNotBeIndexed() throws Exception {
+        assertTrue(index(AbstractTest.class).isEmpty());
+    }
+
+    @Test
+    public void directoriesShouldBeScanned() throws Exception {
+        File root = new File(AnnotatedTest.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+
+        TestIndex index = new ClasspathScanner(2).scan(Collections.singletonList(root));
+
+        assertEquals(2, index.getEntries(AnnotatedTest.class.getName()).size());
+        assertEquals(1, index.getEntries(MethodAnnotatedTest.class.getName()).size());
+        assertTrue(index.getEntries(AbstractTest.class.getName()).isEmpty());
+    }
+
+    @Test
+    public void jarsShouldBeScanned() throws Exception {
+        File jar = folder.newFile("tests.jar");
+
+        writeJar(jar, AnnotatedTest.class, MethodAnnotatedTest.class);
+
+        TestIndex index = new ClasspathScanner().scan(Arrays.asList(jar, new File(folder.getRoot(), "missing")));
+
+        assertEquals(3, index.size());
+        assertEquals(
+            new LinkedHashSet<>(Arrays.asList(AnnotatedTest.class.getName())),
+            index.getRunnableClassNames(Arrays.<FilterDefinition>asList(new FilterDefinitionImpl("tag", "ta1")))
+        );
+    }
+
+    @Test
+    public void unreadableEntryShouldNotPreventTheOtherEntriesOfTheJarFromBeingScanned() throws Exception {
+        File jar = folder.newFile("tests.jar");
+
+        writeJar(jar, AnnotatedTest.class, MethodAnnotatedTest.class);
+
+        // The local header of the first entry is corrupted, the central directory is still valid
+        byte[] bytes = Files.readAllBytes(jar.toPath());
+        bytes[0] = 0;
+        Files.write(jar.toPath(), bytes);
+
+        TestIndex index = new ClasspathScanner().scan(Collections.singletonList(jar));
+
+        assertTrue(index.getEntries(AnnotatedTest.class.getName()).isEmpty());
+        assertEquals(1, index.getEntries(MethodAnnotatedTest.class.getName()).size());
+    }
+
+    @Test
+    public void directoriesOfTheClassLoaderShouldBeScanned() throws Exception {
+        File root = folder.newFolder("classes");
+
+        for (Class cl : Arrays.asList(AnnotatedTest.class, MethodAnnotatedTest.class)) {
+            File file = new File(root, cl.getName().replace('.', '/') + ".class");
+            assertTrue(file.getParentFile().isDirectory() || file.getParentFile().mkdirs());
+
+            try (InputStream is = getClassFile(cl)) {
+                Files.copy(is, file.toPath());
+            }
+        }
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] { root.toURI().toURL(), folder.newFile("other.jar").toURI().toURL() }, null)) {
+            TestIndex index = new ClasspathScanner().scanDirectories(classLoader);
+
+            assertEquals(3, index.size());
+        }
+    }
+
+    private static void writeJar(File jar, Class... classes) throws Exception {
+        try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(jar))) {
+            for (Class cl : classes) {
+                jos.putNextEntry(new JarEntry(cl.getName().replace('.', '/') + ".class"));
+
+                try (InputStream is = getClassFile(cl)) {
+                    byte[] buffer = new byte[4096];
+                    for (int read = is.read(buffer); read >= 0; read = is.read(buffer)) {
+                        jos.write(buffer, 0, read);
+                    }
+                }
+
+                jos.closeEntry();
+            }
+        }
+    }
+
+    private static InputStream getClassFile(Class cl) {
+        return cl.getResourceAsStream(cl.getName().substring(cl.getName().lastIndexOf('.') + 1) + ".class");
+    }
+
+    private static List<TestIndexEntry> index(Class cl) throws Exception {
+        String resource = cl.getName().substring(cl.getName().lastIndexOf('.') + 1) + ".class";
+
+        try (InputStream is = cl.getResourceAsStream(resource)) {
+            return ClasspathScanner.index(is, resource);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package io.probedock.client.core.index;
+
+import io.probedock.client.annotations.ProbeTest;
+import io.probedock.client.common.utils.TestDescriptor;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for class {@link ProbeTestProcessor}. The processor runs on the test sources when they are compiled.
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class ProbeTestProcessorTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    public static class InvalidValuesTest {
+        @ProbeTest(tags = { "valid", "not valid" }, contributors = { "a@localhost.localdomain", "not an e-mail" })
+        public void invalidValuesMethod() {
+        }
+    }
+
+    @Test
+    public void indexShouldBeGeneratedWhenTheTestsAreCompiled() throws Exception {
+        TestIndex index = TestIndex.load(getClass().getClassLoader());
+
+        assertNotNull(index);
+        assertNull(index.getEntry(ClasspathScannerTest.AbstractTest.class.getName(), "abstractMethod"));
+        assertNull(index.getEntry(ClasspathScannerTest.AnnotatedTest.class.getName(), "notTestMethod"));
+    }
+
+    @Test
+    public void generatedIndexShouldMatchTheClassFiles() throws Exception {
+        TestIndex generated = TestIndex.load(getClass().getClassLoader());
+
+        File root = new File(ClasspathScannerTest.AnnotatedTest.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        TestIndex scanned = new ClasspathScanner().scan(Collections.singletonList(root));
+
+        for (Class cl : new Class[] { ClasspathScannerTest.AnnotatedTest.class, ClasspathScannerTest.MethodAnnotatedTest.class }) {
+            assertEquals(toString(scanned.getEntries(cl.getName())), toString(generated.getEntries(cl.getName())));
+        }
+    }
+
+    @Test
+    public void indexShouldBeReadAsWritten() throws Exception {
+        TestIndex index = TestIndex.load(getClass().getClassLoader());
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        index.write(baos);
+
+        TestIndex read = TestIndex.read(new ByteArrayInputStream(baos.toByteArray()));
+
+        assertEquals(index.size(), read.size());
+
+        List<TestIndexEntry> entries = index.getEntries();
+        for (int i = 0; i < entries.size(); i++) {
+            TestIndexEntry entry = entries.get(i);
+            TestIndexEntry readEntry = read.getEntries().get(i);
+
+            assertEquals(entry.toString(), readEntry.toString());
+            assertEquals(entry.getName(), readEntry.getName());
+            assertEquals(entry.getCategory(), readEntry.getCategory());
+            assertEquals(entry.isActive(), readEntry.isActive());
+            assertEquals(entry.getContributors(), readEntry.getContributors());
+        }
+    }
+
+    @Test
+    public void invalidTagsAndContributorsShouldBeIgnoredLikeWithTheAnnotations() throws Exception {
+        TestIndexEntry indexed = TestIndex.load(getClass().getClassLoader()).getEntry(InvalidValuesTest.class.getName(), "invalidValuesMethod");
+
+        assertEquals(new HashSet<>(Arrays.asList("valid")), indexed.getTags());
+        assertEquals(new HashSet<>(Arrays.asList("a@localhost.localdomain")), indexed.getContributors());
+
+        TestDescriptor.Index previous = TestDescriptor.getIndex();
+        TestDescriptor.setIndex(null);
+
+        try {
+            TestDescriptor reflected = TestDescriptor.of(InvalidValuesTest.class, "invalidValuesMethod");
+
+            assertEquals(indexed.getTags(), reflected.getTags());
+            assertEquals(indexed.getContributors(), reflected.getContributors());
+        }
+        finally {
+            TestDescriptor.setIndex(previous);
+        }
+    }
+
+    @Test
+    public void invalidTagsAndContributorsOfAnIndexShouldBeIgnoredWhenItIsRead() throws Exception {
+        String json = "{\"version\":1,\"tests\":[{\"className\":\"a.Test\",\"methodName\":\"method\",\"tags\":[\"valid\",\"not valid\"],"
+            + "\"tickets\":[],\"contributors\":[\"a@localhost.localdomain\",\"not an e-mail\"]}]}";
+
+        TestIndexEntry entry = TestIndex.read(new ByteArrayInputStream(json.getBytes("UTF-8"))).getEntry("a.Test", "method");
+
+        assertEquals(new HashSet<>(Arrays.asList("valid")), entry.getTags());
+        assertEquals(new HashSet<>(Arrays.asList("a@localhost.localdomain")), entry.getContributors());
+    }
+
+    @Test
+    public void entriesOfTheClassesNotCompiledAgainShouldBeKeptWhileTheirClassFilesExist() throws Exception {
+        File sources = folder.newFolder("sources");
+        File classes = folder.newFolder("classes");
+
+        File first = writeTest(sources, "First");
+        File second = writeTest(sources, "Second");
+
+        compile(classes, first, second);
+        assertNotNull(readIndex(classes).getEntry("a.Second", "test"));
+
+        // Only the first class is compiled again, the second one is still there
+        compile(classes, first);
+        assertNotNull(readIndex(classes).getEntry("a.First", "test"));
+        assertNotNull(readIndex(classes).getEntry("a.Second", "test"));
+
+        // The second class is deleted
+        assertTrue(second.delete());
+        assertTrue(new File(classes, "a/Second.class").delete());
+
+        compile(classes, first);
+        assertNotNull(readIndex(classes).getEntry("a.First", "test"));
+        assertNull(readIndex(classes).getEntry("a.Second", "test"));
+    }
+
+    private static File writeTest(File sources, String className) throws Exception {
+        File file = new File(sources, "a/" + className + ".java");
+        assertTrue(file.getParentFile().isDirectory() || file.getParentFile().mkdirs());
+
+        String source = "package a; public class " + className + " { @" + ProbeTest.class.getName() + " public void test() {} }";
+        Files.write(file.toPath(), source.getBytes(StandardCharsets.UTF_8));
+
+        return file;
+    }
+
+    private static void compile(File classes, File... sources) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        String annotations = new File(ProbeTest.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null,
+                Arrays.asList("-classpath", annotations, "-d", classes.getPath(), "-implicit:none"),
+                null, fileManager.getJavaFileObjects(sources));
+
+            task.setProcessors(Collections.singletonList(new ProbeTestProcessor()));
+
+            assertTrue(task.call());
+        }
+    }
+
+    private static TestIndex readIndex(File classes) throws Exception {
+        try (InputStream is = new FileInputStream(new File(classes, TestIndex.RESOURCE))) {
+            return TestIndex.read(is);
+        }
+    }
+
+    private static String toString(Iterable<TestIndexEntry> entries) {
+        StringBuilder sb = new StringBuilder();
+
+        for (TestIndexEntry entry : entries) {
+            sb.append(entry).append(", name: ").append(entry.getName()).append(", category: ").append(entry.getCategory())
+                .append(", active: ").append(entry.isActive()).append(", contributors: ").append(entry.getContributors()).append('\n');
+        }
+
+        return sb.toString();
+    }
+}
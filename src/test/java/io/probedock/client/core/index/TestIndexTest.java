@@ -0,0 +1,114 @@
+package io.probedock.client.core.index;
+
+import io.probedock.client.common.config.Configuration;
+import io.probedock.client.common.utils.TestDescriptor;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test for class {@link TestIndex}
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class TestIndexTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void entriesOfTheClassesNotFoundShouldBeDroppedWhenTheIndexIsLoaded() throws Exception {
+        File root = folder.newFolder("classes");
+
+        writeIndex(root, entry("a.Existing"), entry("a.Deleted"));
+        assertTrue(new File(root, "a").mkdirs());
+        assertTrue(new File(root, "a/Existing.class").createNewFile());
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] { root.toURI().toURL() }, null)) {
+            TestIndex index = TestIndex.load(classLoader);
+
+            assertNotNull(index.getEntry("a.Existing", "test"));
+            assertNull(index.getEntry("a.Deleted", "test"));
+        }
+    }
+
+    @Test
+    public void indexShouldOnlyBeInstalledWhenTheConfigurationEnablesIt() throws Exception {
+        File root = folder.newFolder("classes");
+
+        writeIndex(root);
+
+        Configuration configuration = mock(Configuration.class);
+        TestDescriptor.Index previous = TestDescriptor.getIndex();
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] { root.toURI().toURL() }, null)) {
+            TestDescriptor.setIndex(null);
+
+            assertNull(TestIndex.install(configuration, classLoader));
+            assertNull(TestDescriptor.getIndex());
+
+            when(configuration.isTestIndexEnabled()).thenReturn(true);
+
+            TestIndex index = TestIndex.install(configuration, classLoader);
+
+            assertNotNull(index);
+            assertSame(index, TestDescriptor.getIndex());
+        }
+        finally {
+            TestDescriptor.setIndex(previous);
+        }
+    }
+
+    @Test
+    public void directoriesShouldBeScannedWhenNoIndexWasGenerated() throws Exception {
+        File root = folder.newFolder("classes");
+        Class<?> cl = ClasspathScannerTest.MethodAnnotatedTest.class;
+
+        File classFile = new File(root, cl.getName().replace('.', '/') + ".class");
+        assertTrue(classFile.getParentFile().mkdirs());
+
+        try (InputStream is = cl.getResourceAsStream(cl.getName().substring(cl.getName().lastIndexOf('.') + 1) + ".class")) {
+            Files.copy(is, classFile.toPath());
+        }
+
+        Configuration configuration = mock(Configuration.class);
+        when(configuration.isTestIndexEnabled()).thenReturn(true);
+
+        TestDescriptor.Index previous = TestDescriptor.getIndex();
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] { root.toURI().toURL() }, null)) {
+            TestIndex index = TestIndex.install(configuration, classLoader);
+
+            assertNotNull(index.getEntry(cl.getName(), "annotatedMethod"));
+            assertSame(index, TestDescriptor.getIndex());
+        }
+        finally {
+            TestDescriptor.setIndex(previous);
+        }
+    }
+
+    private static TestIndexEntry entry(String className) {
+        return new TestIndexEntry(className, "test", null, null, null, null, null, new HashSet<String>(), new HashSet<String>(), new HashSet<String>());
+    }
+
+    private static void writeIndex(File root, TestIndexEntry... entries) throws Exception {
+        File file = new File(root, TestIndex.RESOURCE);
+        assertTrue(file.getParentFile().mkdirs());
+
+        try (OutputStream os = new FileOutputStream(file)) {
+            new TestIndex(Arrays.asList(entries)).write(os);
+        }
+    }
+}
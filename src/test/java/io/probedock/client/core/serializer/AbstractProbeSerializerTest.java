@@ -0,0 +1,96 @@
+package io.probedock.client.core.serializer;
+
+import io.probedock.client.common.model.ProbeTestRun;
+import io.probedock.client.common.model.v1.TestRun;
+import io.probedock.client.core.serializer.json.JsonSerializer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for class {@link AbstractProbeSerializer}
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+@SuppressWarnings("deprecation")
+public class AbstractProbeSerializerTest {
+	private TestRun testRun;
+
+	@Before
+	public void setUp() {
+		testRun = new TestRun();
+		testRun.setProjectId("project");
+		testRun.setVersion("1.0.0 – ünïcödé");
+	}
+
+	@Test
+	public void byteStreamsShouldBeAdaptedToTheCharacterStreams() throws Exception {
+		final JsonSerializer json = new JsonSerializer();
+
+		ProbeSerializer serializer = new AbstractProbeSerializer() {
+			@Override
+			public void serializePayload(OutputStreamWriter osw, ProbeTestRun payload, boolean pretty) throws IOException {
+				json.serializePayload(osw, payload, pretty);
+			}
+
+			@Override
+			public <T extends ProbeTestRun> T deserializePayload(InputStreamReader isr, Class<T> clazz) throws IOException {
+				return json.deserializePayload(isr, clazz);
+			}
+		};
+
+		assertSame(serializer, AbstractProbeSerializer.compatible(serializer));
+		assertEquals("1.0.0 – ünïcödé", roundTrip(serializer).getVersion());
+	}
+
+	@Test
+	public void serializersOfThePreviousVersionsShouldBeUsedThroughTheirCharacterStreamMethods() throws Exception {
+		final JsonSerializer json = new JsonSerializer();
+
+		// The byte stream methods are missing from the serializers compiled against the previous versions
+		ProbeSerializer legacy = (ProbeSerializer) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { ProbeSerializer.class }, new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				Class<?> stream = method.getParameterTypes()[0];
+
+				if (stream != OutputStreamWriter.class && stream != InputStreamReader.class) {
+					throw new AbstractMethodError(method.getName());
+				}
+
+				try {
+					return method.invoke(json, args);
+				}
+				catch (InvocationTargetException ite) {
+					throw ite.getCause();
+				}
+			}
+		});
+
+		ProbeSerializer serializer = AbstractProbeSerializer.compatible(legacy);
+
+		assertEquals("1.0.0 – ünïcödé", roundTrip(serializer).getVersion());
+		assertEquals("1.0.0 – ünïcödé", roundTrip(serializer).getVersion());
+	}
+
+	@Test
+	public void serializersImplementingTheByteStreamsShouldBeUsedDirectly() throws Exception {
+		assertEquals("1.0.0 – ünïcödé", roundTrip(AbstractProbeSerializer.compatible(new JsonSerializer())).getVersion());
+	}
+
+	private TestRun roundTrip(ProbeSerializer serializer) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		serializer.serializePayload(baos, testRun, false);
+		return serializer.deserializePayload(new ByteArrayInputStream(baos.toByteArray()), TestRun.class);
+	}
+}
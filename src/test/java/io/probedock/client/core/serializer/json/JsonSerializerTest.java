@@ -0,0 +1,161 @@
+package io.probedock.client.core.serializer.json;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.probedock.client.common.model.v1.ModelFactory;
+import io.probedock.client.common.model.v1.TestResult;
+import io.probedock.client.common.model.v1.TestRun;
+import io.probedock.client.common.utils.Constants;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for class {@link JsonSerializer}
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class JsonSerializerTest {
+	private JsonSerializer serializer;
+
+	private TestRun testRun;
+
+	@Before
+	public void setUp() {
+		serializer = new JsonSerializer();
+
+		testRun = new TestRun();
+		testRun.setProjectId("project");
+		testRun.setVersion("1.0.0");
+		testRun.getTestResults().add(ModelFactory.createTestResult(
+			null, "fingerprint", "Json serializer: ünïcödé – 測試", "Unit", 12, "Message", false, true,
+			null, new HashSet<>(Arrays.asList("json")), null, null
+		));
+	}
+
+	@Test
+	public void byteStreamShouldContainTheSamePayloadThanTheCharacterStream() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		serializer.serializePayload(bytes, testRun, false);
+
+		ByteArrayOutputStream chars = new ByteArrayOutputStream();
+		serializer.serializePayload(new OutputStreamWriter(chars, Charset.forName(Constants.ENCODING)), testRun, false);
+
+		assertArrayEquals(chars.toByteArray(), bytes.toByteArray());
+	}
+
+	@Test
+	public void payloadShouldBeTheSameOnceSerializedAndDeserializedFromByteStream() throws Exception {
+		testRun.getTestResults().get(0).setName("Json serializer: ünïcödé – 測試 😀");
+
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		serializer.serializePayload(baos, testRun, true);
+
+		TestRun deserialized = serializer.deserializePayload(new ByteArrayInputStream(baos.toByteArray()), TestRun.class);
+
+		assertEquals("project", deserialized.getProjectId());
+		assertEquals("Json serializer: ünïcödé – 測試 😀", deserialized.getTestResults().get(0).getName());
+		assertEquals("Message", deserialized.getTestResults().get(0).getMessage());
+		assertFalse(deserialized.getTestResults().get(0).isPassed());
+	}
+
+	@Test
+	public void resultsOfTheCollectorShouldBeSerialized() throws Exception {
+		testRun.getResultCollector().add(ModelFactory.createTestResult(
+			null, "collected", "Collected", "Unit", 3, null, true, true, null, null, null, null
+		));
+
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		serializer.serializePayload(baos, testRun, false);
+
+		TestRun deserialized = serializer.deserializePayload(new ByteArrayInputStream(baos.toByteArray()), TestRun.class);
+
+		assertEquals(2, deserialized.getTestResults().size());
+		assertEquals("collected", deserialized.getTestResults().get(1).getFingerprint());
+		assertFalse(new String(baos.toByteArray(), Constants.ENCODING).contains("resultCollector"));
+	}
+
+	@Test
+	public void compactCollectionsShouldBeSerializedAsArraysAndObjects() throws Exception {
+		TestResult testResult = testRun.getTestResults().get(0);
+		testResult.addTicket("PD-1");
+		testResult.addData("java.class", "JsonSerializerTest");
+
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		serializer.serializePayload(baos, testRun, false);
+
+		JsonNode result = new ObjectMapper().readTree(baos.toByteArray()).get("results").get(0);
+
+		assertEquals("[\"json\"]", result.get("g").toString());
+		assertEquals("[\"PD-1\"]", result.get("t").toString());
+		assertEquals("fingerprint", result.get("a").get("fingerprint").asText());
+		assertEquals("JsonSerializerTest", result.get("a").get("java.class").asText());
+
+		TestResult deserialized = serializer.deserializePayload(new ByteArrayInputStream(baos.toByteArray()), TestRun.class).getTestResults().get(0);
+
+		assertEquals(testResult.getTags(), deserialized.getTags());
+		assertEquals(testResult.getTickets(), deserialized.getTickets());
+		assertEquals(testResult.getData(), deserialized.getData());
+	}
+
+	@Test
+	public void repeatedStringsShouldBeSharedOnceDeserialized() throws Exception {
+		testRun.getTestResults().add(ModelFactory.createTestResult(
+			null, "other", "Other", "Unit", 3, null, true, true, null, new HashSet<>(Arrays.asList("json")), null, null
+		));
+
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		serializer.serializePayload(baos, testRun, false);
+
+		TestRun deserialized = serializer.deserializePayload(new ByteArrayInputStream(baos.toByteArray()), TestRun.class);
+
+		TestResult first = deserialized.getTestResults().get(0);
+		TestResult second = deserialized.getTestResults().get(1);
+
+		assertSame(first.getCategory(), second.getCategory());
+		assertSame(first.getTags().iterator().next(), second.getTags().iterator().next());
+		assertSame(first.getData().keySet().iterator().next(), second.getData().keySet().iterator().next());
+	}
+
+	@Test
+	public void deduplicatedFailuresShouldBeSerializedInTheTestRun() throws Exception {
+		testRun.getTestResults().add(ModelFactory.createTestResult(
+			null, "other", "Other", "Unit", 3, "Message", false, true, null, null, null, null
+		));
+
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		serializer.serializePayload(baos, testRun.withDeduplicatedFailures(), false);
+
+		JsonNode payload = new ObjectMapper().readTree(baos.toByteArray());
+		String ref = payload.get("results").get(0).get("r").asText();
+
+		assertNull(payload.get("results").get(0).get("m"));
+		assertEquals(ref, payload.get("results").get(1).get("r").asText());
+		assertEquals("Message", payload.get("failures").get(ref).asText());
+
+		TestRun deserialized = serializer.deserializePayload(new ByteArrayInputStream(baos.toByteArray()), TestRun.class);
+
+		assertEquals("Message", deserialized.getFailures().get(deserialized.getTestResults().get(1).getFailureRef()));
+	}
+
+	@Test
+	public void payloadWrittenInBytesShouldBeReadableFromCharacterStream() throws Exception {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		serializer.serializePayload(baos, testRun, false);
+
+		TestRun deserialized = serializer.deserializePayload(
+			new InputStreamReader(new ByteArrayInputStream(baos.toByteArray()), Charset.forName(Constants.ENCODING)), TestRun.class
+		);
+
+		assertEquals("Json serializer: ünïcödé – 測試", deserialized.getTestResults().get(0).getName());
+	}
+}
@@ -0,0 +1,98 @@
+package io.probedock.client.core.serializer.smile;
+
+import io.probedock.client.common.model.v1.ModelFactory;
+import io.probedock.client.common.model.v1.TestResult;
+import io.probedock.client.common.model.v1.TestRun;
+import io.probedock.client.common.utils.MetaDataBuilder;
+import io.probedock.client.core.serializer.json.JsonSerializer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for class {@link SmileSerializer}
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class SmileSerializerTest {
+	private TestRun testRun;
+
+	@Before
+	public void setUp() {
+		testRun = new TestRun();
+		testRun.setProjectId("project");
+		testRun.setVersion("1.0.0");
+
+		for (int i = 0; i < 100; i++) {
+			testRun.getTestResults().add(ModelFactory.createTestResult(
+				null, "fingerprint" + i, "Smile serializer: test " + i, "Unit", i, null, true, true,
+				new HashSet<>(Arrays.asList("someone@probedock.io")),
+				new HashSet<>(Arrays.asList("serializer", "smile")),
+				new HashSet<>(Arrays.asList("PD-1")),
+				new MetaDataBuilder().add("java.package", "io.probedock.client.core.serializer.smile").toMetaData()
+			));
+		}
+	}
+
+	@Test
+	public void payloadShouldBeTheSameOnceSerializedAndDeserialized() throws Exception {
+		SmileSerializer serializer = new SmileSerializer();
+
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		serializer.serializePayload(baos, testRun, false);
+
+		TestRun deserialized = serializer.deserializePayload(new ByteArrayInputStream(baos.toByteArray()), TestRun.class);
+
+		assertEquals("project", deserialized.getProjectId());
+		assertEquals("1.0.0", deserialized.getVersion());
+		assertEquals(100, deserialized.getTestResults().size());
+
+		TestResult testResult = deserialized.getTestResults().get(42);
+		assertEquals("fingerprint42", testResult.getFingerprint());
+		assertEquals("Smile serializer: test 42", testResult.getName());
+		assertEquals(42, testResult.getDuration());
+		assertEquals(new HashSet<>(Arrays.asList("serializer", "smile")), testResult.getTags());
+		assertEquals("io.probedock.client.core.serializer.smile", testResult.getData().get("java.package"));
+	}
+
+	@Test
+	public void payloadShouldBeSmallerThanItsJsonCounterpart() throws Exception {
+		ByteArrayOutputStream smile = new ByteArrayOutputStream();
+		new SmileSerializer().serializePayload(smile, testRun, false);
+
+		ByteArrayOutputStream json = new ByteArrayOutputStream();
+		new JsonSerializer().serializePayload(json, testRun, false);
+
+		assertTrue(smile.size() < json.size() / 2);
+	}
+
+	@Test
+	@SuppressWarnings("deprecation")
+	public void payloadShouldBeTheSameOnceSerializedToACharacterStreamAndDeserialized() throws Exception {
+		SmileSerializer serializer = new SmileSerializer();
+
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		serializer.serializePayload(new OutputStreamWriter(baos, "UTF-16"), testRun, false);
+
+		TestRun deserialized = serializer.deserializePayload(new InputStreamReader(new ByteArrayInputStream(baos.toByteArray()), "UTF-16"), TestRun.class);
+
+		assertEquals("project", deserialized.getProjectId());
+		assertEquals(100, deserialized.getTestResults().size());
+		assertEquals("Smile serializer: test 42", deserialized.getTestResults().get(42).getName());
+	}
+
+	@Test(expected = IOException.class)
+	@SuppressWarnings("deprecation")
+	public void characterStreamThatIsNotBase64ShouldBeRejected() throws Exception {
+		new SmileSerializer().deserializePayload(new InputStreamReader(new ByteArrayInputStream("{\"projectId\":\"project\"}".getBytes("UTF-8")), "UTF-8"), TestRun.class);
+	}
+}
@@ -0,0 +1,126 @@
+package io.probedock.client.core.storage;
+
+import io.probedock.client.common.config.Configuration;
+import io.probedock.client.common.model.ProbeTestRun;
+import io.probedock.client.common.model.v1.TestRun;
+import io.probedock.client.utils.EnvironmentUtils;
+import org.apache.commons.configuration.CompositeConfiguration;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Test for class {@link FileStore}
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class FileStoreTest {
+	private File workspace;
+
+	private FileStore store;
+
+	@Before
+	public void setUp() throws Exception {
+		workspace = Files.createTempDirectory("probedock").toFile();
+
+		EnvironmentUtils.setEnvVars(new HashMap<String, String>());
+
+		// The workspace getter is final, the underlying configuration is provided instead
+		Configuration configuration = mock(Configuration.class);
+		Field configField = Configuration.class.getDeclaredField("config");
+		configField.setAccessible(true);
+		CompositeConfiguration config = new CompositeConfiguration();
+		config.setProperty("probedock.workspace", workspace.getAbsolutePath());
+		configField.set(configuration, config);
+
+		store = new FileStore(configuration, "store");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		FileUtils.deleteDirectory(workspace);
+	}
+
+	@Test
+	public void payloadsShouldBeIteratedFromTheOldest() throws Exception {
+		store.save(createTestRun("1.0.0", "ci", "a"));
+		store.save(createTestRun("2.0.0", "ci", "b"));
+		store.save(createTestRun("3.0.0", "nightly", "c"));
+
+		assertEquals(Arrays.asList("1.0.0", "2.0.0", "3.0.0"), getVersions(store.iterate(TestRun.class)));
+	}
+
+	@Test
+	public void payloadsShouldBeFilteredByTheirHeader() throws Exception {
+		store.save(createTestRun("1.0.0", "ci", "a"));
+		store.save(createTestRun("2.0.0", "ci", "b"));
+		store.save(createTestRun("2.0.0", "nightly", "c"));
+
+		assertEquals(Arrays.asList("2.0.0", "2.0.0"), getVersions(store.iterate(TestRun.class, new PayloadHeaderFilter().version("2.0.0"))));
+		assertEquals(Arrays.asList("1.0.0", "2.0.0"), getVersions(store.iterate(TestRun.class, new PayloadHeaderFilter().stage("ci"))));
+		assertEquals(Arrays.asList("2.0.0"), getVersions(store.iterate(TestRun.class, new PayloadHeaderFilter().stage("nightly").reportUid("c"))));
+		assertTrue(getVersions(store.iterate(TestRun.class, new PayloadHeaderFilter().projectId("other"))).isEmpty());
+	}
+
+	@Test
+	public void payloadsRemovedWhileIteratingShouldBeSkipped() throws Exception {
+		store.save(createTestRun("1.0.0", "ci", "a"));
+		String second = store.save(createTestRun("2.0.0", "ci", "b"));
+		store.save(createTestRun("3.0.0", "ci", "c"));
+
+		Iterator<TestRun> iterator = store.iterate(TestRun.class).iterator();
+
+		assertEquals("1.0.0", iterator.next().getVersion());
+		assertTrue(store.remove(second, TestRun.class));
+		assertEquals("3.0.0", iterator.next().getVersion());
+		assertFalse(iterator.hasNext());
+	}
+
+	@Test
+	public void payloadFilesOfThePreviousVersionsShouldBeFilteredOnceRead() throws Exception {
+		File directory = new File(workspace, "store");
+		directory.mkdirs();
+
+		FileUtils.writeStringToFile(
+			new File(directory, "0f8fad5b-d9cb-469f-a165-70867728950e"),
+			"{\"projectId\":\"project\",\"version\":\"0.9.0\",\"stage\":\"ci\"}",
+			"UTF-8"
+		);
+
+		store.save(createTestRun("1.0.0", "nightly", "a"));
+
+		assertEquals(Arrays.asList("0.9.0"), getVersions(store.iterate(TestRun.class, new PayloadHeaderFilter().stage("ci"))));
+	}
+
+	private static List<String> getVersions(Iterable<TestRun> testRuns) {
+		List<String> versions = new ArrayList<>();
+
+		for (TestRun testRun : testRuns) {
+			versions.add(testRun.getVersion());
+		}
+
+		return versions;
+	}
+
+	private static TestRun createTestRun(String version, String stage, String reportUid) {
+		TestRun testRun = new TestRun();
+		testRun.setProjectId("project");
+		testRun.setVersion(version);
+		testRun.setStage(stage);
+		testRun.addData(ProbeTestRun.PROBEDOCK_REPORT_UID, reportUid);
+		return testRun;
+	}
+}
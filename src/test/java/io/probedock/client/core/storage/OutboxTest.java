@@ -0,0 +1,160 @@
+package io.probedock.client.core.storage;
+
+import io.probedock.client.common.config.Configuration;
+import io.probedock.client.common.config.ServerConfiguration;
+import io.probedock.client.common.model.v1.TestRun;
+import io.probedock.client.utils.EnvironmentUtils;
+import org.apache.commons.configuration.CompositeConfiguration;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Closeable;
+import java.io.File;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Test for class {@link Outbox}
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class OutboxTest {
+	private File workspace;
+
+	private Configuration configuration;
+
+	private Outbox outbox;
+
+	@Before
+	public void setUp() throws Exception {
+		workspace = Files.createTempDirectory("probedock").toFile();
+
+		EnvironmentUtils.setEnvVars(new HashMap<String, String>());
+
+		// The workspace getter is final, the underlying configuration is provided instead
+		configuration = mock(Configuration.class);
+		Field configField = Configuration.class.getDeclaredField("config");
+		configField.setAccessible(true);
+		CompositeConfiguration config = new CompositeConfiguration();
+		config.setProperty("probedock.workspace", workspace.getAbsolutePath());
+		configField.set(configuration, config);
+
+		outbox = new Outbox(configuration, new ServerConfiguration("server"));
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		FileUtils.deleteDirectory(workspace);
+	}
+
+	@Test
+	public void testRunsShouldBeStoredInAnOutboxPerServer() throws Exception {
+		String entry = outbox.add(createTestRun("1.0.0"));
+
+		assertTrue(new File(workspace, "outbox/server").isDirectory());
+		assertEquals(Collections.singletonList(entry), outbox.getEntries(TestRun.class));
+	}
+
+	@Test
+	public void claimedTestRunShouldBeRemovedFromTheOutbox() throws Exception {
+		String entry = outbox.add(createTestRun("1.0.0"));
+
+		TestRun testRun = outbox.claim(entry, TestRun.class);
+
+		assertNotNull(testRun);
+		assertEquals("1.0.0", testRun.getVersion());
+		assertEquals("project", testRun.getProjectId());
+		assertTrue(outbox.getEntries(TestRun.class).isEmpty());
+	}
+
+	@Test
+	public void testRunShouldOnlyBeClaimedOnce() throws Exception {
+		String entry = outbox.add(createTestRun("1.0.0"));
+
+		assertNotNull(outbox.claim(entry, TestRun.class));
+		assertNull(outbox.claim(entry, TestRun.class));
+	}
+
+	@Test
+	public void entriesShouldBeOrderedFromTheOldest() throws Exception {
+		String first = outbox.add(createTestRun("1.0.0"));
+		String second = outbox.add(createTestRun("2.0.0"));
+
+		List<String> entries = outbox.getEntries(TestRun.class);
+
+		assertEquals(2, entries.size());
+		assertEquals(first, entries.get(0));
+		assertEquals(second, entries.get(1));
+	}
+
+	@Test
+	public void payloadFilesOfThePreviousVersionsShouldBeImported() throws Exception {
+		File directory = new File(workspace, "outbox/legacy");
+		directory.mkdirs();
+
+		String entry = "0f8fad5b-d9cb-469f-a165-70867728950e";
+		FileUtils.writeStringToFile(new File(directory, entry), "{\"projectId\":\"project\",\"version\":\"0.9.0\"}", "UTF-8");
+
+		Outbox legacyOutbox = new Outbox(configuration, new ServerConfiguration("legacy"));
+
+		assertEquals(Collections.singletonList(entry), legacyOutbox.getEntries(TestRun.class));
+		assertFalse(new File(directory, entry).exists());
+		assertEquals("0.9.0", legacyOutbox.claim(entry, TestRun.class).getVersion());
+	}
+
+	@Test
+	public void peekedTestRunShouldBeKeptUntilItIsRemoved() throws Exception {
+		String first = outbox.add(createTestRun("1.0.0"));
+		String second = outbox.add(createTestRun("2.0.0"));
+
+		assertEquals("1.0.0", outbox.peek(first, TestRun.class).getVersion());
+		assertEquals(2, outbox.getEntries(TestRun.class).size());
+
+		assertTrue(outbox.remove(first, TestRun.class));
+		assertFalse(outbox.remove(first, TestRun.class));
+		assertNull(outbox.peek(first, TestRun.class));
+		assertEquals(Collections.singletonList(second), outbox.getEntries(TestRun.class));
+	}
+
+	@Test
+	public void entriesThatCannotBeDeserializedShouldBeRemoved() throws Exception {
+		File directory = new File(workspace, "outbox/corrupted");
+		directory.mkdirs();
+
+		String entry = "0f8fad5b-d9cb-469f-a165-70867728950e";
+		FileUtils.writeStringToFile(new File(directory, entry), "{\"projectId\":", "UTF-8");
+
+		Outbox corruptedOutbox = new Outbox(configuration, new ServerConfiguration("corrupted"));
+
+		assertEquals(Collections.singletonList(entry), corruptedOutbox.getEntries(TestRun.class));
+		assertNull(corruptedOutbox.peek(entry, TestRun.class));
+		assertTrue(corruptedOutbox.getEntries(TestRun.class).isEmpty());
+	}
+
+	@Test
+	public void outboxShouldBeReplayedOnceAtATime() throws Exception {
+		try (Closeable lock = outbox.lockReplay()) {
+			assertNotNull(lock);
+			assertNull(outbox.lockReplay());
+		}
+
+		Closeable lock = outbox.lockReplay();
+		assertNotNull(lock);
+		lock.close();
+	}
+
+	private TestRun createTestRun(String version) {
+		TestRun testRun = new TestRun();
+		testRun.setProjectId("project");
+		testRun.setVersion(version);
+		return testRun;
+	}
+}
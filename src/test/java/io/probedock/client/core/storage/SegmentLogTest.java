@@ -0,0 +1,403 @@
+package io.probedock.client.core.storage;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for class {@link SegmentLog}
+ *
+ * @author Laurent Prevost laurent.prevost@probedock.io
+ */
+public class SegmentLogTest {
+	private static final SegmentLog.PayloadReader<String> READER = new SegmentLog.PayloadReader<String>() {
+		@Override
+		public String read(InputStream is) throws IOException {
+			return IOUtils.toString(is, StandardCharsets.UTF_8);
+		}
+	};
+
+	private File directory;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("probedock").toFile();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		SegmentLog.closeAll();
+		FileUtils.deleteDirectory(directory);
+	}
+
+	@Test
+	public void payloadsShouldBeReadAsWritten() throws Exception {
+		SegmentLog log = createLog(1024 * 1024, 1024 * 1024);
+
+		append(log, "a", "first");
+		append(log, "b", "second");
+
+		assertEquals("first", log.read("a", READER));
+		assertEquals("second", log.read("b", READER));
+		assertNull(log.read("c", READER));
+		assertEquals(Arrays.asList("a", "b"), log.getNames());
+		assertEquals(Arrays.asList("first", "second"), log.readAll(READER));
+	}
+
+	@Test
+	public void largePayloadsShouldBeReadFromTheMappedSegments() throws Exception {
+		SegmentLog log = createLog(1024 * 1024, 4 * 1024 * 1024);
+
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; sb.length() < 2 * 1024 * 1024; i++) {
+			sb.append("payload ").append(i).append('\n');
+		}
+		String large = sb.toString();
+
+		append(log, "a", "first");
+		append(log, "b", large);
+		append(log, "c", "third");
+
+		assertEquals(large, log.read("b", READER));
+		assertEquals(Arrays.asList("first", large, "third"), log.readAll(READER));
+	}
+
+	@Test
+	public void headersShouldBeKeptWithThePayloads() throws Exception {
+		SegmentLog log = createLog(1024 * 1024, 1024 * 1024);
+
+		append(log, "a", new PayloadHeader("project", "1.0.0", null, "ci", "uid"), "first");
+		append(log, "b", "second");
+
+		for (SegmentLog reader : Arrays.asList(log, createLog(1024 * 1024, 1024 * 1024))) {
+			Map<String, PayloadHeader> headers = reader.getHeaders();
+
+			assertEquals(Arrays.asList("a", "b"), new ArrayList<>(headers.keySet()));
+			assertEquals("projectId: project, version: 1.0.0, pipeline: null, stage: ci, reportUid: uid", headers.get("a").toString());
+			assertNull(headers.get("b"));
+			assertEquals("first", reader.read("a", READER));
+		}
+	}
+
+	@Test
+	public void segmentsOfTheFirstFormatShouldBeRead() throws Exception {
+		SegmentLog log = createLog(1024 * 1024, 1024 * 1024);
+
+		append(log, "a", "first");
+
+		File segment = getSegments()[0];
+		try (RandomAccessFile raf = new RandomAccessFile(segment, "rw")) {
+			raf.seek(4);
+			raf.writeInt(1);
+		}
+
+		SegmentLog reopened = createLog(1024 * 1024, 1024 * 1024);
+		assertEquals("first", reopened.read("a", READER));
+
+		// The payloads of the current format are appended to a new segment
+		append(reopened, "b", new PayloadHeader("project", "1.0.0", null, null, null), "second");
+		assertEquals(2, countSegments());
+		assertEquals(Arrays.asList("first", "second"), createLog(1024 * 1024, 1024 * 1024).readAll(READER));
+	}
+
+	@Test
+	public void removedPayloadsShouldNotBeReadAnymore() throws Exception {
+		SegmentLog log = createLog(1024 * 1024, 1024 * 1024);
+
+		append(log, "a", "first");
+		append(log, "b", "second");
+
+		assertTrue(log.remove("a"));
+		assertFalse(log.remove("a"));
+
+		assertNull(log.read("a", READER));
+		assertEquals(Collections.singletonList("b"), log.getNames());
+		assertEquals(Collections.singletonList("b"), createLog(1024 * 1024, 1024 * 1024).getNames());
+	}
+
+	@Test
+	public void payloadShouldOnlyBeTakenOnce() throws Exception {
+		SegmentLog log = createLog(1024 * 1024, 1024 * 1024);
+		SegmentLog other = createLog(1024 * 1024, 1024 * 1024);
+
+		append(log, "a", "first");
+		append(log, "b", "second");
+
+		assertEquals("first", other.take("a", READER));
+		assertNull(log.take("a", READER));
+		assertEquals(Collections.singletonList("b"), log.getNames());
+	}
+
+	@Test
+	public void payloadsAppendedByOtherLogsShouldBeRead() throws Exception {
+		SegmentLog log = createLog(1024 * 1024, 1024 * 1024);
+		SegmentLog other = createLog(1024 * 1024, 1024 * 1024);
+
+		append(log, "a", "first");
+		append(other, "b", "second");
+		append(log, "c", "third");
+
+		assertEquals(Arrays.asList("a", "b", "c"), other.getNames());
+		assertEquals(Arrays.asList("first", "second", "third"), log.readAll(READER));
+	}
+
+	@Test
+	public void indexShouldBeWrittenPeriodically() throws Exception {
+		SegmentLog log = createLog(1024 * 1024, 1024 * 1024);
+
+		for (int i = 0; i < 100; i++) {
+			append(log, "p" + i, "payload " + i);
+		}
+
+		assertTrue(new File(directory, "index").isFile());
+
+		SegmentLog reopened = createLog(1024 * 1024, 1024 * 1024);
+		assertEquals(100, reopened.getNames().size());
+		assertEquals("payload 99", reopened.read("p99", READER));
+	}
+
+	@Test
+	public void segmentsShouldBeRolledOnceFull() throws Exception {
+		// A segment is full after a single payload
+		SegmentLog log = createLog(50, 1024 * 1024);
+
+		for (int i = 0; i < 10; i++) {
+			append(log, "p" + i, "payload of 30 characters long " + i);
+		}
+
+		assertEquals(10, countSegments());
+		assertEquals(10, createLog(50, 1024 * 1024).readAll(READER).size());
+	}
+
+	@Test
+	public void segmentsShouldBeCompactedWhenMostPayloadsAreRemoved() throws Exception {
+		SegmentLog log = createLog(100, 200);
+		SegmentLog other = createLog(100, 200);
+
+		for (int i = 0; i < 10; i++) {
+			append(log, "p" + i, "payload of 30 characters long " + i);
+		}
+
+		for (int i = 0; i < 8; i++) {
+			assertTrue(log.remove("p" + i));
+		}
+
+		assertEquals(1, countSegments());
+		assertEquals(Arrays.asList("p8", "p9"), log.getNames());
+		assertEquals(Arrays.asList("payload of 30 characters long 8", "payload of 30 characters long 9"), other.readAll(READER));
+	}
+
+	@Test
+	public void segmentsShouldBeDeletedWhenAllPayloadsAreRemoved() throws Exception {
+		SegmentLog log = createLog(100, 1024 * 1024);
+
+		for (int i = 0; i < 5; i++) {
+			append(log, "p" + i, "payload " + i);
+		}
+
+		for (int i = 0; i < 5; i++) {
+			log.remove("p" + i);
+		}
+
+		assertEquals(0, countSegments());
+		assertTrue(log.getNames().isEmpty());
+	}
+
+	@Test
+	public void clearShouldDeleteTheSegments() throws Exception {
+		SegmentLog log = createLog(1024 * 1024, 1024 * 1024);
+
+		append(log, "a", "first");
+		log.clear();
+
+		assertEquals(0, countSegments());
+		assertTrue(createLog(1024 * 1024, 1024 * 1024).getNames().isEmpty());
+	}
+
+	@Test
+	public void recordNotWrittenCompletelyShouldBeIgnored() throws Exception {
+		SegmentLog log = createLog(1024 * 1024, 1024 * 1024);
+
+		append(log, "a", "first");
+		append(log, "b", "second");
+
+		File segment = getSegments()[0];
+
+		try (RandomAccessFile raf = new RandomAccessFile(segment, "rw")) {
+			raf.setLength(raf.length() - 3);
+		}
+
+		SegmentLog reopened = createLog(1024 * 1024, 1024 * 1024);
+		assertEquals(Collections.singletonList("a"), reopened.getNames());
+
+		append(reopened, "c", "third");
+		assertEquals(Arrays.asList("first", "third"), createLog(1024 * 1024, 1024 * 1024).readAll(READER));
+	}
+
+	@Test
+	public void corruptedRecordShouldBeSkippedWithoutLosingTheNextOnes() throws Exception {
+		SegmentLog log = createLog(1024 * 1024, 1024 * 1024);
+
+		List<Long> ends = new ArrayList<>();
+		for (int i = 1; i <= 5; i++) {
+			append(log, "p" + i, "payload " + i);
+			ends.add(getSegments()[0].length());
+		}
+
+		// The last byte of the second payload is changed, its length is still valid
+		try (RandomAccessFile raf = new RandomAccessFile(getSegments()[0], "rw")) {
+			raf.seek(ends.get(1) - 1);
+			raf.write('X');
+		}
+
+		SegmentLog reopened = createLog(1024 * 1024, 1024 * 1024);
+		assertEquals(Arrays.asList("p1", "p3", "p4", "p5"), reopened.getNames());
+
+		append(reopened, "p6", "payload 6");
+
+		SegmentLog other = createLog(1024 * 1024, 1024 * 1024);
+		assertEquals(Arrays.asList("payload 1", "payload 3", "payload 4", "payload 5", "payload 6"), other.readAll(READER));
+		assertEquals("payload 5", other.read("p5", READER));
+		assertEquals(2, countSegments());
+	}
+
+	@Test
+	public void recordWithAnInvalidContentShouldBeSkipped() throws Exception {
+		SegmentLog log = createLog(1024 * 1024, 1024 * 1024);
+
+		append(log, "a", "first");
+		long offset = getSegments()[0].length();
+		append(log, "b", "second");
+		append(log, "c", "third");
+
+		// The length of the name of the second record goes beyond the record
+		try (RandomAccessFile raf = new RandomAccessFile(getSegments()[0], "rw")) {
+			raf.seek(offset + 9);
+			raf.writeShort(0x7fff);
+		}
+
+		SegmentLog reopened = createLog(1024 * 1024, 1024 * 1024);
+		assertEquals(Arrays.asList("a", "c"), reopened.getNames());
+
+		append(reopened, "d", "fourth");
+		assertEquals(Arrays.asList("first", "third", "fourth"), createLog(1024 * 1024, 1024 * 1024).readAll(READER));
+	}
+
+	@Test
+	public void closedLogShouldNotBeUsedAndShouldBeOpenedAgain() throws Exception {
+		SegmentLog log = SegmentLog.open(directory);
+		append(log, "a", "first");
+
+		log.close();
+
+		try {
+			log.read("a", READER);
+			fail("The closed log should not be read.");
+		}
+		catch (IOException ioe) {
+			// Expected
+		}
+
+		SegmentLog reopened = SegmentLog.open(directory);
+
+		assertNotSame(log, reopened);
+		assertEquals("first", reopened.read("a", READER));
+	}
+
+	@Test
+	public void legacyPayloadsShouldBeImportedBeforeTheLogIsShared() throws Exception {
+		for (int i = 0; i < 50; i++) {
+			Files.write(new File(directory, UUID.randomUUID().toString()).toPath(), ("payload " + i).getBytes(StandardCharsets.UTF_8));
+		}
+
+		final CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+
+		try {
+			List<Future<Integer>> counts = new ArrayList<>();
+
+			for (int i = 0; i < 4; i++) {
+				counts.add(executor.submit(new Callable<Integer>() {
+					@Override
+					public Integer call() throws Exception {
+						start.await();
+						return SegmentLog.open(directory).getNames().size();
+					}
+				}));
+			}
+
+			start.countDown();
+
+			for (Future<Integer> count : counts) {
+				assertEquals(50, (int) count.get(10, TimeUnit.SECONDS));
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private SegmentLog createLog(long segmentSize, long compactionThreshold) {
+		return new SegmentLog(directory, segmentSize, compactionThreshold);
+	}
+
+	private File[] getSegments() {
+		return directory.listFiles(new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				return name.endsWith(".log");
+			}
+		});
+	}
+
+	private int countSegments() {
+		int count = 0;
+
+		for (String name : directory.list()) {
+			if (name.endsWith(".log")) {
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	private static void append(SegmentLog log, String name, final String payload) throws IOException {
+		append(log, name, null, payload);
+	}
+
+	private static void append(SegmentLog log, String name, PayloadHeader header, final String payload) throws IOException {
+		log.append(name, header, new SegmentLog.PayloadWriter() {
+			@Override
+			public void write(OutputStream os) throws IOException {
+				os.write(payload.getBytes(StandardCharsets.UTF_8));
+				os.close();
+			}
+		});
+	}
+}